@@ -0,0 +1,44 @@
+package hello.itemservice.domain.item;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품명 접두어 검색 지연 시간 측정 (상품 100만 개)
+ *
+ * SampleTime 모드로 p50, p99 를 확인한다. 목표는 p99 1ms 이하.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemNameIndexBenchmark {
+
+    private static final String[] WORDS = {"사과", "배", "포도", "딸기", "수박", "apple", "banana", "grape"};
+
+    @Param({"1000000"})
+    int itemCount;
+
+    @Param({"사", "포도", "ap", "수박 1"})
+    String query;
+
+    ItemRepository itemRepository;
+
+    @Setup
+    public void setUp() {
+
+        itemRepository = new ItemRepository();
+
+        for (int i = 0; i < itemCount; i++) {
+
+            itemRepository.save(new Item(WORDS[i % WORDS.length] + " " + i, 10000, 10));
+        }
+    }
+
+    @Benchmark
+    public List<Item> findByNamePrefix() {
+
+        return itemRepository.findByNamePrefix(query, 20);
+    }
+}
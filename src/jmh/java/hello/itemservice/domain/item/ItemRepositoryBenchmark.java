@@ -0,0 +1,47 @@
+package hello.itemservice.domain.item;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 목록 조회 성능 측정
+ *
+ * gc 프로파일러의 gc.alloc.rate.norm 값이 요청 한 번당 할당량이다.
+ * copyPerRequest 는 기존 방식(요청마다 new ArrayList 로 복사), findAll 은 스냅샷 공유 방식이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    int itemCount;
+
+    ItemRepository itemRepository;
+
+    @Setup
+    public void setUp() {
+
+        itemRepository = new ItemRepository();
+
+        for (int i = 0; i < itemCount; i++) {
+
+            itemRepository.save(new Item("item" + i, 10000, 10));
+        }
+    }
+
+    @Benchmark
+    public List<Item> copyPerRequest() {
+
+        return new ArrayList<>(itemRepository.findAll());
+    }
+
+    @Benchmark
+    public List<Item> findAll() {
+
+        return itemRepository.findAll();
+    }
+}
@@ -0,0 +1,67 @@
+package hello.itemservice.domain.item;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장 엔진별 메모리 사용량 측정
+ *
+ * 상품을 채운 뒤 GC 를 돌려서 늘어난 사용량을 상품 하나당 byte 로 환산해 bytesPerItem 보조 지표로 남긴다.
+ * 시간 값은 의미가 없고 bytesPerItem 만 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ItemStoreFootprintBenchmark {
+
+    @Param({"HEAP", "COLUMNAR"})
+    ItemStoreType storeType;
+
+    @Param({"200000"})
+    int itemCount;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long bytesPerItem;
+    }
+
+    @Benchmark
+    public ItemStore fill(Footprint footprint) {
+
+        String itemName = "item";
+        long before = usedMemory();
+
+        ItemStore itemStore = storeType.create();
+
+        for (long id = 1; id <= itemCount; id++) {
+
+            Item item = new Item(itemName, 10000 + (int) id, 1000 + (int) id);
+            item.setId(id);
+            item.setOpen(true);
+            item.setItemType(ItemType.BOOK);
+
+            itemStore.put(item);
+        }
+
+        footprint.bytesPerItem = (usedMemory() - before) / itemCount;
+
+        return itemStore;
+    }
+
+    private static long usedMemory() {
+
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
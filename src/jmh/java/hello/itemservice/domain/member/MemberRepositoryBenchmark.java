@@ -0,0 +1,56 @@
+package hello.itemservice.domain.member;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그인 아이디 조회 성능 측정
+ *
+ * scan 은 기존 방식(findAll 후 stream 필터), findByLoginId 는 인덱스 조회 방식이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MemberRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    int memberCount;
+
+    MemberRepository memberRepository;
+    String lastLoginId;
+
+    @Setup
+    public void setUp() {
+
+        memberRepository = new MemberRepository();
+
+        for (int i = 0; i < memberCount; i++) {
+
+            Member member = new Member();
+
+            member.setLoginId("member" + i);
+            member.setPassword("password" + i);
+            member.setName("name" + i);
+
+            memberRepository.save(member);
+        }
+
+        lastLoginId = "member" + (memberCount - 1);
+    }
+
+    @Benchmark
+    public Optional<Member> scan() {
+
+        return memberRepository.findAll().stream()
+                .filter(m -> m.getLoginId().equals(lastLoginId))
+                .findFirst();
+    }
+
+    @Benchmark
+    public Optional<Member> findByLoginId() {
+
+        return memberRepository.findByLoginId(lastLoginId);
+    }
+}
@@ -0,0 +1,36 @@
+package hello.itemservice.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 식별자 생성 성능 측정 (32 스레드 동시 호출)
+ *
+ * uuid 는 기존 방식(UUID.randomUUID().toString()), secureId, uniqueId 는 IdGenerator 방식이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(32)
+public class IdGeneratorBenchmark {
+
+    @Benchmark
+    public String uuid() {
+
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String secureId() {
+
+        return IdGenerator.secureId();
+    }
+
+    @Benchmark
+    public String uniqueId() {
+
+        return IdGenerator.uniqueId();
+    }
+}
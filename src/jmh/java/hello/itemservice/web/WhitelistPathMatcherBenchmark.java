@@ -0,0 +1,63 @@
+package hello.itemservice.web;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그인 체크 화이트 리스트 매칭 성능 측정
+ *
+ * simpleMatch 는 기존 방식(PatternMatchUtils 로 패턴 목록을 순서대로 비교), matcher 는 WhitelistPathMatcher 방식이다.
+ * 한 번 호출에 아래 요청 경로를 모두 확인한다. (화이트 리스트 경로와 인증이 필요한 경로가 섞인 실제 요청 분포)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WhitelistPathMatcherBenchmark {
+
+    static final String[] PATTERNS = {
+            "/", "/members/add", "/login", "/logout", "/css/*", "/*.ico", "/error",
+            "/error-ex", "/error-404", "/error-500", "/error-page/*"};
+
+    static final String[] URIS = {
+            "/", "/login", "/css/bootstrap.min.css", "/favicon.ico",
+            "/items", "/basic/items/1", "/basic/items/1/edit", "/validation/v4/items/12/edit",
+            "/upload/items/3", "/images/6f1c2a9e-0d4b-4bd7-8c35-3e3f1c0b9a11.png", "/error-page/404", "/members/add"};
+
+    WhitelistPathMatcher matcher = WhitelistPathMatcher.of(
+            "/", "/members/add", "/login", "/logout", "/css/**", "/*.ico", "/error",
+            "/error-ex", "/error-404", "/error-500", "/error-page/**");
+
+    @Benchmark
+    public int simpleMatch() {
+
+        int count = 0;
+
+        for (String uri : URIS) {
+
+            if (PatternMatchUtils.simpleMatch(PATTERNS, uri)) {
+
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int matcher() {
+
+        int count = 0;
+
+        for (String uri : URIS) {
+
+            if (matcher.matches(uri)) {
+
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
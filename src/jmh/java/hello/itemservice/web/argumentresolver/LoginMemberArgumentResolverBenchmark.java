@@ -0,0 +1,79 @@
+package hello.itemservice.web.argumentresolver;
+
+import hello.itemservice.domain.member.Member;
+import hello.itemservice.web.LoginMemberCache;
+import hello.itemservice.web.SessionConst;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpSession;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그인 회원 조회 성능 측정 (필터 -> 인터셉터 -> ArgumentResolver)
+ *
+ * sessionPerStep 은 기존 방식(단계마다 getSession + getAttribute), cachedPerRequest 는 LoginMemberCache 방식이다.
+ * 요청마다 새 요청 객체에서 시작하도록 요청 속성을 지우고 측정한다.
+ *
+ * MockHttpSession 조회는 HashMap 조회 수준이라 실제 Tomcat 세션 조회(세션 관리자 조회, 접근 시각 갱신)보다 싸다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoginMemberArgumentResolverBenchmark {
+
+    LoginMemberArgumentResolver resolver;
+    MethodParameter parameter;
+    MockHttpServletRequest request;
+    ServletWebRequest webRequest;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+
+        resolver = new LoginMemberArgumentResolver();
+        parameter = new MethodParameter(LoginMemberArgumentResolverBenchmark.class.getDeclaredMethod("handler", Member.class), 0);
+
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(SessionConst.LOGIN_MEMBER, new Member());
+
+        request = new MockHttpServletRequest();
+        request.setSession(session);
+
+        webRequest = new ServletWebRequest(request);
+    }
+
+    @Benchmark
+    public Object sessionPerStep() {
+
+        // 필터
+        HttpSession filterSession = request.getSession(false);
+        boolean filterLogin = filterSession != null && filterSession.getAttribute(SessionConst.LOGIN_MEMBER) != null;
+
+        // 인터셉터
+        HttpSession interceptorSession = request.getSession();
+        boolean interceptorLogin = interceptorSession.getAttribute(SessionConst.LOGIN_MEMBER) != null;
+
+        // ArgumentResolver
+        HttpSession session = request.getSession(false);
+
+        return filterLogin && interceptorLogin && session != null ? session.getAttribute(SessionConst.LOGIN_MEMBER) : null;
+    }
+
+    @Benchmark
+    public Object cachedPerRequest() throws Exception {
+
+        LoginMemberCache.evict(request);
+
+        boolean filterLogin = LoginMemberCache.get(request) != null;
+        boolean interceptorLogin = LoginMemberCache.get(request) != null;
+
+        return filterLogin && interceptorLogin ? resolver.resolveArgument(parameter, null, webRequest, null) : null;
+    }
+
+    @SuppressWarnings("unused")
+    private void handler(@Login Member member) {
+    }
+}
@@ -0,0 +1,83 @@
+package hello.itemservice.web.session;
+
+import hello.itemservice.domain.member.Member;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.Cookie;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 세션 조회 성능 측정
+ *
+ * getSessionV1, getSessionV2 는 Cookie 배열 방식, getSessionV3 는 Cookie 헤더 직접 조회 + 요청 속성 보관 방식이다.
+ * getSessionV3 는 요청마다 처음 조회하는 경우, getSessionV3Cached 는 같은 요청에서 다시 조회하는 경우다.
+ *
+ * MockHttpServletRequest 는 Cookie 배열을 미리 들고 있으므로, V1, V2 결과에는 Tomcat 이 Cookie 헤더를 파싱해서
+ * Cookie 객체를 만드는 비용이 빠져 있다. 실제 요청에서는 차이가 더 크다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionManagerBenchmark {
+
+    // 세션 쿠키 앞에 있는 다른 쿠키 수
+    @Param({"0", "10"})
+    int otherCookieCount;
+
+    SessionManager sessionManager;
+    MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+
+        sessionManager = new SessionManager();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sessionManager.createSession(new Member(), response);
+
+        Cookie[] cookies = new Cookie[otherCookieCount + 1];
+
+        for (int i = 0; i < otherCookieCount; i++) {
+
+            cookies[i] = new Cookie("cookie" + i, "value" + i);
+        }
+
+        cookies[otherCookieCount] = response.getCookie(SessionManager.SESSION_COOKIE_NAME);
+
+        request = new MockHttpServletRequest();
+        request.setCookies(cookies);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionManager.close();
+    }
+
+    @Benchmark
+    public Object getSessionV1() {
+
+        return sessionManager.getSessionV1(request);
+    }
+
+    @Benchmark
+    public Object getSessionV2() {
+
+        return sessionManager.getSessionV2(request);
+    }
+
+    @Benchmark
+    public Object getSessionV3() {
+
+        request.removeAttribute(SessionManager.SESSION_ATTRIBUTE);
+
+        return sessionManager.getSessionV3(request);
+    }
+
+    @Benchmark
+    public Object getSessionV3Cached() {
+
+        return sessionManager.getSessionV3(request);
+    }
+}
@@ -19,8 +19,17 @@ public class TestDataInit {
     @PostConstruct
     public void init() {
 
-        itemRepository.save(new Item("itemA", 10000, 10));
-        itemRepository.save(new Item("itemB", 20000, 20));
+        // 로그에서 복구한 데이터가 있으면 다시 넣지 않는다.
+        if (!itemRepository.isRecovered()) {
+
+            itemRepository.save(new Item("itemA", 10000, 10));
+            itemRepository.save(new Item("itemB", 20000, 20));
+        }
+
+        if (memberRepository.isRecovered()) {
+
+            return;
+        }
 
         Member member = new Member();
 
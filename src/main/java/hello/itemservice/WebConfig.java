@@ -1,18 +1,22 @@
 package hello.itemservice;
 
 import hello.itemservice.formatter.MyNumberFormatter;
+import hello.itemservice.web.WhitelistPathMatcher;
 import hello.itemservice.web.argumentresolver.LoginMemberArgumentResolver;
 import hello.itemservice.web.exception.interceptor.LogInterceptor;
 import hello.itemservice.web.filter.LogFilter;
 import hello.itemservice.web.filter.LoginCheckFilter;
 import hello.itemservice.web.interceptor.LoginCheckInterceptor;
 import hello.itemservice.web.interceptor.LoginInterceptor;
+import hello.itemservice.web.log.AccessLog;
+import hello.itemservice.web.metrics.LatencyMetrics;
 import hello.itemservice.web.resolver.MyHandlerExceptionResolver;
 import hello.itemservice.web.resolver.UserHandlerExceptionResolver;
 import hello.itemservice.web.typeconverter.converter.IntegerToStringConverter;
 import hello.itemservice.web.typeconverter.converter.IpPortToStringConverter;
 import hello.itemservice.web.typeconverter.converter.StringToIntegerConverter;
 import hello.itemservice.web.typeconverter.converter.StringToIpPortConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +36,26 @@ import java.util.List;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final AccessLog accessLog;
+    private final LatencyMetrics latencyMetrics;
+
+    public WebConfig(AccessLog accessLog, LatencyMetrics latencyMetrics) {
+
+        this.accessLog = accessLog;
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    // 로그인 체크 화이트 리스트. 로그인 체크 필터와 인터셉터가 함께 사용
+    // 아래 로그인 체크 필터나 인터셉터 등록을 주석 해제할 때 생성자 대신 사용 (application.properties 의 login.whitelist 도 함께 주석 해제)
+//    private final WhitelistPathMatcher loginWhitelist;
+//
+//    public WebConfig(@Value("${login.whitelist}") String[] loginWhitelist, AccessLog accessLog, LatencyMetrics latencyMetrics) {
+//
+//        this.loginWhitelist = WhitelistPathMatcher.of(loginWhitelist);
+//        this.accessLog = accessLog;
+//        this.latencyMetrics = latencyMetrics;
+//    }
+
     /**
      * 컨버터 등록
      *
@@ -85,7 +109,7 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
 
-        registry.addInterceptor(new LogInterceptor())
+        registry.addInterceptor(new LogInterceptor(accessLog, latencyMetrics))
                 .order(1)
                 .addPathPatterns("/**")
                 .excludePathPatterns("/css/**", "/*.ico", "/error", "/error-page/**");
@@ -126,15 +150,10 @@ public class WebConfig implements WebMvcConfigurer {
 //                .addPathPatterns("/**") // 인터셉터를 적용할 URL 패턴 지정
 //                .excludePathPatterns("/css/**", "/*.ico", "/error"); // 인터셉터에서 제외할 패턴 지정
 //
-//        registry.addInterceptor(new LoginCheckInterceptor())
+//        // 제외할 URL 은 login.whitelist (loginWhitelist) 로 지정
+//        registry.addInterceptor(new LoginCheckInterceptor(loginWhitelist))
 //                .order(2)
-//                .addPathPatterns("/**")
-//                .excludePathPatterns(
-//                        // 로그인 처리 - 필터, 인터셉터 관련 URL
-//                        "/", "/members/add", "/login", "/logout", "/css/**", "/*.ico", "/error",
-//                        // 예외 처리와 오류 페이지 관련 URL
-//                        "/error-ex", "/error-404", "/error-500", "/error-page/**"
-//                );
+//                .addPathPatterns("/**");
 //    }
 
 //    @Bean
@@ -161,7 +180,7 @@ public class WebConfig implements WebMvcConfigurer {
 //        FilterRegistrationBean<Filter> filterFilterRegistrationBean = new FilterRegistrationBean<>();
 //
 //        // 로그인 필터 등록
-//        filterFilterRegistrationBean.setFilter(new LoginCheckFilter());
+//        filterFilterRegistrationBean.setFilter(new LoginCheckFilter(loginWhitelist));
 //
 //        // 위 로그 필터 다음에 로그인 필터 적용
 //        filterFilterRegistrationBean.setOrder(2);
@@ -0,0 +1,446 @@
+package hello.itemservice.domain.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 컬럼 기반 상품 저장 엔진
+ *
+ * Item 객체를 그대로 보관하지 않고 필드별로 기본형 배열에 나누어 보관한다.
+ * Long 키, Integer 가격/수량, Boolean 판매 여부를 박싱하지 않으므로
+ * 상품 수가 수백만 개일 때 상품 하나당 힙 사용량이 크게 줄어든다.
+ *
+ * - id -> 행 번호 : long 키를 사용하는 open addressing 해시 테이블 (0 은 빈 칸)
+ * - 숫자 필드 : int[], byte[] 컬럼
+ * - 문자열 필드 : String[] 컬럼 (배송 방식, 등록 지역은 intern 해서 공유)
+ *
+ * 조회할 때마다 새 Item 을 만들어 반환하므로 반환된 객체를 변경해도 저장된 값은 바뀌지 않는다.
+ */
+public class ColumnarItemStore implements ItemStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final byte PRICE_NULL = 1;
+    private static final byte QUANTITY_NULL = 1 << 1;
+    private static final byte OPEN_NULL = 1 << 2;
+    private static final byte OPEN_TRUE = 1 << 3;
+    private static final byte VERSION_NULL = 1 << 4;
+
+    private static final byte ITEM_TYPE_NULL = -1;
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // id -> 행 번호
+    private long[] keys;
+    private int[] rows;
+
+    // 컬럼
+    private long[] ids;
+    private int[] prices;
+    private int[] quantities;
+    private int[] versions;
+    private byte[] flags;
+    private byte[] itemTypes;
+    private String[] itemNames;
+    private String[] deliveryCodes;
+    private String[][] regions;
+
+    private int size;
+
+    public ColumnarItemStore() {
+
+        init();
+    }
+
+    @Override
+    public Item get(long id) {
+
+        lock.readLock().lock();
+
+        try {
+
+            int row = findRow(id);
+
+            return row < 0 ? null : materialize(row);
+
+        } finally {
+
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Item item) {
+
+        long id = item.getId();
+
+        lock.writeLock().lock();
+
+        try {
+
+            int row = findRow(id);
+
+            if (row < 0) {
+
+                row = addRow(id);
+            }
+
+            write(row, item);
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 마지막 행을 삭제한 행 자리로 옮기므로 행 번호가 빈틈 없이 유지된다.
+     */
+    @Override
+    public void remove(long id) {
+
+        lock.writeLock().lock();
+
+        try {
+
+            int row = findRow(id);
+
+            if (row < 0) {
+
+                return;
+            }
+
+            removeKey(id);
+
+            int lastRow = --size;
+
+            if (row != lastRow) {
+
+                moveRow(lastRow, row);
+                rows[findSlot(ids[row])] = row;
+            }
+
+            itemNames[lastRow] = null;
+            deliveryCodes[lastRow] = null;
+            regions[lastRow] = null;
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Item> values() {
+
+        lock.readLock().lock();
+
+        try {
+
+            List<Item> result = new ArrayList<>(size);
+
+            for (int row = 0; row < size; row++) {
+
+                result.add(materialize(row));
+            }
+
+            return result;
+
+        } finally {
+
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+
+        lock.readLock().lock();
+
+        try {
+
+            return size;
+
+        } finally {
+
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        lock.writeLock().lock();
+
+        try {
+
+            init();
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 현재 할당된 배열 기준 메모리 사용량 추정치 (byte)
+     *
+     * 문자열 내용은 포함하지 않고, 참조 하나를 4 byte (compressed oops) 로 계산한다.
+     *
+     * @return
+     */
+    public long footprintBytes() {
+
+        lock.readLock().lock();
+
+        try {
+
+            long keyTable = keys.length * (8L + 4L);
+            long perRow = 8L + 4L + 4L + 4L + 1L + 1L + 3 * 4L;
+
+            return keyTable + ids.length * perRow;
+
+        } finally {
+
+            lock.readLock().unlock();
+        }
+    }
+
+    private void init() {
+
+        keys = new long[INITIAL_CAPACITY * 2];
+        rows = new int[INITIAL_CAPACITY * 2];
+
+        ids = new long[INITIAL_CAPACITY];
+        prices = new int[INITIAL_CAPACITY];
+        quantities = new int[INITIAL_CAPACITY];
+        versions = new int[INITIAL_CAPACITY];
+        flags = new byte[INITIAL_CAPACITY];
+        itemTypes = new byte[INITIAL_CAPACITY];
+        itemNames = new String[INITIAL_CAPACITY];
+        deliveryCodes = new String[INITIAL_CAPACITY];
+        regions = new String[INITIAL_CAPACITY][];
+
+        size = 0;
+    }
+
+    private int findRow(long id) {
+
+        int slot = findSlot(id);
+
+        return slot < 0 ? -1 : rows[slot];
+    }
+
+    private int findSlot(long id) {
+
+        int mask = keys.length - 1;
+        int slot = hash(id) & mask;
+
+        while (keys[slot] != 0L) {
+
+            if (keys[slot] == id) {
+
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * 해시 테이블에서 id 를 지우고, 같은 묶음(cluster)의 뒤쪽 키를 다시 넣어 탐색이 끊기지 않게 한다.
+     */
+    private void removeKey(long id) {
+
+        int mask = keys.length - 1;
+        int slot = findSlot(id);
+
+        keys[slot] = 0L;
+
+        for (int next = (slot + 1) & mask; keys[next] != 0L; next = (next + 1) & mask) {
+
+            long key = keys[next];
+            int row = rows[next];
+
+            keys[next] = 0L;
+            insertKey(key, row);
+        }
+    }
+
+    private void moveRow(int from, int to) {
+
+        ids[to] = ids[from];
+        prices[to] = prices[from];
+        quantities[to] = quantities[from];
+        versions[to] = versions[from];
+        flags[to] = flags[from];
+        itemTypes[to] = itemTypes[from];
+        itemNames[to] = itemNames[from];
+        deliveryCodes[to] = deliveryCodes[from];
+        regions[to] = regions[from];
+    }
+
+    private int addRow(long id) {
+
+        if (size == ids.length) {
+
+            growColumns();
+        }
+
+        // 해시 테이블은 절반 이상 채우지 않는다.
+        if ((size + 1) * 2 > keys.length) {
+
+            growKeys();
+        }
+
+        int row = size++;
+
+        ids[row] = id;
+        insertKey(id, row);
+
+        return row;
+    }
+
+    private void insertKey(long id, int row) {
+
+        int mask = keys.length - 1;
+        int slot = hash(id) & mask;
+
+        while (keys[slot] != 0L) {
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = id;
+        rows[slot] = row;
+    }
+
+    private void growKeys() {
+
+        long[] oldKeys = keys;
+        int[] oldRows = rows;
+
+        keys = new long[oldKeys.length * 2];
+        rows = new int[oldRows.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+
+            if (oldKeys[i] != 0L) {
+
+                insertKey(oldKeys[i], oldRows[i]);
+            }
+        }
+    }
+
+    private void growColumns() {
+
+        int capacity = ids.length * 2;
+
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        itemTypes = Arrays.copyOf(itemTypes, capacity);
+        itemNames = Arrays.copyOf(itemNames, capacity);
+        deliveryCodes = Arrays.copyOf(deliveryCodes, capacity);
+        regions = Arrays.copyOf(regions, capacity);
+    }
+
+    private void write(int row, Item item) {
+
+        byte flag = 0;
+
+        if (item.getPrice() == null) {
+
+            flag |= PRICE_NULL;
+        }
+        else {
+
+            prices[row] = item.getPrice();
+        }
+
+        if (item.getQuantity() == null) {
+
+            flag |= QUANTITY_NULL;
+        }
+        else {
+
+            quantities[row] = item.getQuantity();
+        }
+
+        if (item.getOpen() == null) {
+
+            flag |= OPEN_NULL;
+        }
+        else if (item.getOpen()) {
+
+            flag |= OPEN_TRUE;
+        }
+
+        if (item.getVersion() == null) {
+
+            flag |= VERSION_NULL;
+        }
+        else {
+
+            versions[row] = item.getVersion();
+        }
+
+        flags[row] = flag;
+        itemTypes[row] = item.getItemType() == null ? ITEM_TYPE_NULL : (byte) item.getItemType().ordinal();
+        itemNames[row] = item.getItemName();
+        deliveryCodes[row] = item.getDeliveryCode() == null ? null : item.getDeliveryCode().intern();
+        regions[row] = toArray(item.getRegions());
+    }
+
+    private Item materialize(int row) {
+
+        byte flag = flags[row];
+
+        Item item = new Item();
+
+        item.setId(ids[row]);
+        item.setItemName(itemNames[row]);
+        item.setPrice((flag & PRICE_NULL) != 0 ? null : prices[row]);
+        item.setQuantity((flag & QUANTITY_NULL) != 0 ? null : quantities[row]);
+        item.setOpen((flag & OPEN_NULL) != 0 ? null : (flag & OPEN_TRUE) != 0);
+        item.setItemType(itemTypes[row] == ITEM_TYPE_NULL ? null : ITEM_TYPES[itemTypes[row]]);
+        item.setDeliveryCode(deliveryCodes[row]);
+        item.setRegions(regions[row] == null ? null : new ArrayList<>(Arrays.asList(regions[row])));
+        item.setVersion((flag & VERSION_NULL) != 0 ? null : versions[row]);
+
+        return item;
+    }
+
+    private static String[] toArray(List<String> list) {
+
+        if (list == null) {
+
+            return null;
+        }
+
+        String[] result = new String[list.size()];
+
+        for (int i = 0; i < result.length; i++) {
+
+            String region = list.get(i);
+
+            result[i] = region == null ? null : region.intern();
+        }
+
+        return result;
+    }
+
+    private static int hash(long id) {
+
+        long h = id * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+}
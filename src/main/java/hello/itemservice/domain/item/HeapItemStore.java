@@ -0,0 +1,50 @@
+package hello.itemservice.domain.item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Item 객체를 그대로 보관하는 저장 엔진
+ */
+public class HeapItemStore implements ItemStore {
+
+    private final Map<Long, Item> store = new ConcurrentHashMap<>();
+
+    @Override
+    public Item get(long id) {
+
+        return store.get(id);
+    }
+
+    @Override
+    public void put(Item item) {
+
+        store.put(item.getId(), item);
+    }
+
+    @Override
+    public void remove(long id) {
+
+        store.remove(id);
+    }
+
+    @Override
+    public List<Item> values() {
+
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public int size() {
+
+        return store.size();
+    }
+
+    @Override
+    public void clear() {
+
+        store.clear();
+    }
+}
@@ -54,6 +54,8 @@ public class Item {
     private ItemType itemType; // 상품 종류
     private String deliveryCode; // 배송 방식
 
+    private Integer version; // 수정 버전. 저장할 때 1, 수정할 때마다 1 씩 증가
+
     public Item() {
     }
 
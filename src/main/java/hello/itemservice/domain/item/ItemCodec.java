@@ -0,0 +1,272 @@
+package hello.itemservice.domain.item;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 상품 저장소 로그 레코드 변환
+ *
+ * PUT : [1][상품] - 같은 id 의 상품을 통째로 덮어쓴다. (등록, 수정)
+ * CLEAR : [2][sequence] - 모든 상품 삭제, id 발급 번호는 유지
+ * SNAPSHOT_FILE : [3][sequence][파일 이름] - 모든 상품을 스냅샷 파일(ItemSnapshotFile)의 내용으로 교체
+ *
+ * 상품 : id, 플래그(null 여부), 상품명, 가격, 수량, 판매 여부, 상품 종류, 배송 방식, 등록 지역, 수정 버전
+ */
+public class ItemCodec {
+
+    public static final byte PUT = 1;
+    public static final byte CLEAR = 2;
+    public static final byte SNAPSHOT_FILE = 3;
+
+    private static final int ITEM_NAME = 1;
+    private static final int PRICE = 1 << 1;
+    private static final int QUANTITY = 1 << 2;
+    private static final int OPEN = 1 << 3;
+    private static final int ITEM_TYPE = 1 << 4;
+    private static final int DELIVERY_CODE = 1 << 5;
+    private static final int REGIONS = 1 << 6;
+    private static final int VERSION = 1 << 7;
+
+    // writeUTF 로 쓸 수 있는 최대 길이 (modified UTF-8 byte), writeShort 로 쓰는 지역 수의 최대값
+    private static final int MAX_UTF_LENGTH = 0xFFFF;
+    private static final int MAX_REGIONS = 0xFFFF;
+
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private ItemCodec() {
+    }
+
+    public static byte[] put(Item item) {
+
+        return encode(out -> {
+            out.writeByte(PUT);
+            writeItem(out, item);
+        });
+    }
+
+    public static byte[] clear(long sequence) {
+
+        return encode(out -> {
+            out.writeByte(CLEAR);
+            out.writeLong(sequence);
+        });
+    }
+
+    public static byte[] snapshotFile(long sequence, String fileName) {
+
+        return encode(out -> {
+            out.writeByte(SNAPSHOT_FILE);
+            out.writeLong(sequence);
+            out.writeUTF(fileName);
+        });
+    }
+
+    /**
+     * 상품 레코드로 쓸 수 있는지 확인 (문자열 하나가 64KB 를 넘거나 지역이 65535 개를 넘으면 쓸 수 없다.)
+     *
+     * 일괄 등록처럼 한 번에 여러 상품을 저장할 때 미리 걸러내는 용도
+     */
+    public static boolean isWritable(Item item) {
+
+        if (!isWritable(item.getItemName()) || !isWritable(item.getDeliveryCode())) {
+
+            return false;
+        }
+
+        if (item.getRegions() == null) {
+
+            return true;
+        }
+
+        if (item.getRegions().size() > MAX_REGIONS) {
+
+            return false;
+        }
+
+        for (String region : item.getRegions()) {
+
+            if (!isWritable(region)) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static void writeItem(DataOutput out, Item item) throws IOException {
+
+        int flags = 0;
+
+        flags |= item.getItemName() != null ? ITEM_NAME : 0;
+        flags |= item.getPrice() != null ? PRICE : 0;
+        flags |= item.getQuantity() != null ? QUANTITY : 0;
+        flags |= item.getOpen() != null ? OPEN : 0;
+        flags |= item.getItemType() != null ? ITEM_TYPE : 0;
+        flags |= item.getDeliveryCode() != null ? DELIVERY_CODE : 0;
+        flags |= item.getRegions() != null ? REGIONS : 0;
+        flags |= item.getVersion() != null ? VERSION : 0;
+
+        out.writeLong(item.getId());
+        out.writeByte(flags);
+
+        if ((flags & ITEM_NAME) != 0) {
+
+            out.writeUTF(item.getItemName());
+        }
+
+        if ((flags & PRICE) != 0) {
+
+            out.writeInt(item.getPrice());
+        }
+
+        if ((flags & QUANTITY) != 0) {
+
+            out.writeInt(item.getQuantity());
+        }
+
+        if ((flags & OPEN) != 0) {
+
+            out.writeBoolean(item.getOpen());
+        }
+
+        if ((flags & ITEM_TYPE) != 0) {
+
+            out.writeByte(item.getItemType().ordinal());
+        }
+
+        if ((flags & DELIVERY_CODE) != 0) {
+
+            out.writeUTF(item.getDeliveryCode());
+        }
+
+        if ((flags & REGIONS) != 0) {
+
+            if (item.getRegions().size() > MAX_REGIONS) {
+
+                throw new IOException("지역이 너무 많아 상품 레코드로 쓸 수 없습니다. size = " + item.getRegions().size());
+            }
+
+            out.writeShort(item.getRegions().size());
+
+            for (String region : item.getRegions()) {
+
+                out.writeUTF(region);
+            }
+        }
+
+        if ((flags & VERSION) != 0) {
+
+            out.writeInt(item.getVersion());
+        }
+    }
+
+    public static Item readItem(DataInput in) throws IOException {
+
+        Item item = new Item();
+
+        item.setId(in.readLong());
+
+        int flags = in.readUnsignedByte();
+
+        if ((flags & ITEM_NAME) != 0) {
+
+            item.setItemName(in.readUTF());
+        }
+
+        if ((flags & PRICE) != 0) {
+
+            item.setPrice(in.readInt());
+        }
+
+        if ((flags & QUANTITY) != 0) {
+
+            item.setQuantity(in.readInt());
+        }
+
+        if ((flags & OPEN) != 0) {
+
+            item.setOpen(in.readBoolean());
+        }
+
+        if ((flags & ITEM_TYPE) != 0) {
+
+            item.setItemType(ITEM_TYPES[in.readByte()]);
+        }
+
+        if ((flags & DELIVERY_CODE) != 0) {
+
+            item.setDeliveryCode(in.readUTF());
+        }
+
+        if ((flags & REGIONS) != 0) {
+
+            int size = in.readUnsignedShort();
+            List<String> regions = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+
+                regions.add(in.readUTF());
+            }
+
+            item.setRegions(regions);
+        }
+
+        if ((flags & VERSION) != 0) {
+
+            item.setVersion(in.readInt());
+        }
+
+        return item;
+    }
+
+    /**
+     * writeUTF 와 같은 방식으로 센 길이가 최대 길이 이하인지 확인
+     */
+    private static boolean isWritable(String value) {
+
+        if (value == null || value.length() * 3 <= MAX_UTF_LENGTH) {
+
+            return true;
+        }
+
+        long length = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+
+        return length <= MAX_UTF_LENGTH;
+    }
+
+    private static byte[] encode(Encoder encoder) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+            encoder.encode(out);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+
+        void encode(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,435 @@
+package hello.itemservice.domain.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 상품 속성 보조 인덱스
+ *
+ * 값의 종류가 적은 속성은 상품 id 를 비트 위치로 사용하는 비트맵으로 관리한다.
+ * - 상품 종류 : ItemType ordinal 별 비트맵
+ * - 등록 지역, 배송 방식 : 값별 비트맵 (posting list)
+ * - 판매 여부 : 판매 중인 상품 비트맵
+ *
+ * 가격은 값의 종류가 많으므로 가격 -> 정렬된 id 배열 맵(범위 조회)과 id -> 가격 배열로 관리한다.
+ * 가격마다 비트맵을 두면 가격 수 x 최대 id 만큼 메모리를 쓰게 된다.
+ *
+ * 검색은 조건 중 가장 적은 상품을 가리키는 것(비트맵 또는 가격 범위)에서 시작해서
+ * 나머지 조건은 상품 하나씩 확인하므로, 조건에 맞지 않는 많은 상품을 복사하거나 합치지 않는다.
+ */
+public class ItemIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final BitSet all = new BitSet();
+    private final BitSet open = new BitSet();
+    private final BitSet[] byItemType = new BitSet[ItemType.values().length];
+    private final Map<String, BitSet> byRegion = new HashMap<>();
+    private final Map<String, BitSet> byDeliveryCode = new HashMap<>();
+
+    private final NavigableMap<Integer, IdArray> byPrice = new TreeMap<>();
+    private final BitSet priced = new BitSet();
+    private int[] prices = new int[16];
+
+    public ItemIndex() {
+
+        for (int i = 0; i < byItemType.length; i++) {
+
+            byItemType[i] = new BitSet();
+        }
+    }
+
+    /**
+     * 인덱스할 수 있는 상품 id 인지 확인 (저장소를 바꾸기 전에 호출)
+     *
+     * @param id
+     * @throws IllegalStateException 비트 위치로 쓸 수 없는 id 인 경우
+     */
+    public static void checkId(Long id) {
+
+        if (id == null || id < 0 || id > Integer.MAX_VALUE) {
+
+            throw new IllegalStateException("인덱스할 수 없는 상품 id 입니다. id = " + id);
+        }
+    }
+
+    /**
+     * 상품 추가, 교체 또는 삭제
+     *
+     * @param oldItem 이전에 인덱스에 추가했던 상품 (없으면 null)
+     * @param newItem 새 상품 (삭제하면 null)
+     */
+    public void update(Item oldItem, Item newItem) {
+
+        lock.writeLock().lock();
+
+        try {
+
+            if (oldItem != null) {
+
+                remove(oldItem);
+            }
+
+            if (newItem != null) {
+
+                add(newItem);
+            }
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+
+        lock.writeLock().lock();
+
+        try {
+
+            all.clear();
+            open.clear();
+
+            for (BitSet bitSet : byItemType) {
+
+                bitSet.clear();
+            }
+
+            byRegion.clear();
+            byDeliveryCode.clear();
+            byPrice.clear();
+            priced.clear();
+            prices = new int[16];
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 맞는 상품 id 조회 (id 오름차순)
+     *
+     * @param cond
+     * @param limit 최대 개수
+     * @return
+     */
+    public List<Long> search(ItemSearchCond cond, int limit) {
+
+        lock.readLock().lock();
+
+        try {
+
+            List<BitSet> required = new ArrayList<>(4);
+
+            if (cond.getItemType() != null) {
+
+                required.add(byItemType[cond.getItemType().ordinal()]);
+            }
+
+            if (cond.getRegion() != null) {
+
+                required.add(byRegion.get(cond.getRegion()));
+            }
+
+            if (cond.getDeliveryCode() != null) {
+
+                required.add(byDeliveryCode.get(cond.getDeliveryCode()));
+            }
+
+            if (Boolean.TRUE.equals(cond.getOpen())) {
+
+                required.add(open);
+            }
+
+            // 없는 지역, 배송 방식
+            if (required.contains(null)) {
+
+                return new ArrayList<>();
+            }
+
+            boolean notOpen = Boolean.FALSE.equals(cond.getOpen());
+            boolean hasPriceCond = cond.getMinPrice() != null || cond.getMaxPrice() != null;
+            int minPrice = cond.getMinPrice() == null ? Integer.MIN_VALUE : cond.getMinPrice();
+            int maxPrice = cond.getMaxPrice() == null ? Integer.MAX_VALUE : cond.getMaxPrice();
+
+            if (minPrice > maxPrice) {
+
+                return new ArrayList<>();
+            }
+
+            // 가장 적은 상품을 가리키는 비트맵
+            BitSet driver = all;
+            int driverCount = all.cardinality();
+
+            for (BitSet bitSet : required) {
+
+                int count = bitSet.cardinality();
+
+                if (count < driverCount) {
+
+                    driver = bitSet;
+                    driverCount = count;
+                }
+            }
+
+            if (hasPriceCond) {
+
+                NavigableMap<Integer, IdArray> priceRange = byPrice.subMap(minPrice, true, maxPrice, true);
+
+                if (countUpTo(priceRange, driverCount) < driverCount) {
+
+                    return searchByPrice(priceRange, required, notOpen, limit);
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, driverCount));
+
+            for (int id = driver.nextSetBit(0); id >= 0 && ids.size() < limit; id = driver.nextSetBit(id + 1)) {
+
+                if (matches(id, required, notOpen)
+                        && (!hasPriceCond || (priced.get(id) && prices[id] >= minPrice && prices[id] <= maxPrice))) {
+
+                    ids.add((long) id);
+                }
+            }
+
+            return ids;
+
+        } finally {
+
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 가격 범위가 가장 좁은 조건일 때 : 범위 안의 id 만 모아서 정렬한 다음 나머지 조건 확인
+     */
+    private List<Long> searchByPrice(NavigableMap<Integer, IdArray> priceRange, List<BitSet> required, boolean notOpen, int limit) {
+
+        int count = 0;
+
+        for (IdArray idArray : priceRange.values()) {
+
+            count += idArray.size;
+        }
+
+        int[] candidates = new int[count];
+        int position = 0;
+
+        for (IdArray idArray : priceRange.values()) {
+
+            System.arraycopy(idArray.ids, 0, candidates, position, idArray.size);
+            position += idArray.size;
+        }
+
+        Arrays.sort(candidates);
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, count));
+
+        for (int i = 0; i < candidates.length && ids.size() < limit; i++) {
+
+            if (matches(candidates[i], required, notOpen)) {
+
+                ids.add((long) candidates[i]);
+            }
+        }
+
+        return ids;
+    }
+
+    private boolean matches(int id, List<BitSet> required, boolean notOpen) {
+
+        for (BitSet bitSet : required) {
+
+            if (!bitSet.get(id)) {
+
+                return false;
+            }
+        }
+
+        return !notOpen || !open.get(id);
+    }
+
+    /**
+     * 가격 범위 안의 상품 수 (max 를 넘으면 더 세지 않는다)
+     */
+    private static int countUpTo(NavigableMap<Integer, IdArray> priceRange, int max) {
+
+        int count = 0;
+
+        for (IdArray idArray : priceRange.values()) {
+
+            count += idArray.size;
+
+            if (count >= max) {
+
+                return count;
+            }
+        }
+
+        return count;
+    }
+
+    private void add(Item item) {
+
+        int id = item.getId().intValue();
+
+        all.set(id);
+
+        if (Boolean.TRUE.equals(item.getOpen())) {
+
+            open.set(id);
+        }
+
+        if (item.getItemType() != null) {
+
+            byItemType[item.getItemType().ordinal()].set(id);
+        }
+
+        if (item.getRegions() != null) {
+
+            for (String region : item.getRegions()) {
+
+                byRegion.computeIfAbsent(region, key -> new BitSet()).set(id);
+            }
+        }
+
+        if (item.getDeliveryCode() != null) {
+
+            byDeliveryCode.computeIfAbsent(item.getDeliveryCode(), key -> new BitSet()).set(id);
+        }
+
+        if (item.getPrice() != null) {
+
+            byPrice.computeIfAbsent(item.getPrice(), key -> new IdArray()).add(id);
+
+            if (id >= prices.length) {
+
+                prices = Arrays.copyOf(prices, Math.max(prices.length * 2, id + 1));
+            }
+
+            prices[id] = item.getPrice();
+            priced.set(id);
+        }
+    }
+
+    private void remove(Item item) {
+
+        int id = item.getId().intValue();
+
+        all.clear(id);
+        open.clear(id);
+
+        if (item.getItemType() != null) {
+
+            byItemType[item.getItemType().ordinal()].clear(id);
+        }
+
+        if (item.getRegions() != null) {
+
+            for (String region : item.getRegions()) {
+
+                clearBit(byRegion, region, id);
+            }
+        }
+
+        if (item.getDeliveryCode() != null) {
+
+            clearBit(byDeliveryCode, item.getDeliveryCode(), id);
+        }
+
+        if (item.getPrice() != null) {
+
+            IdArray idArray = byPrice.get(item.getPrice());
+
+            if (idArray != null && idArray.remove(id) && idArray.size == 0) {
+
+                byPrice.remove(item.getPrice());
+            }
+
+            priced.clear(id);
+        }
+    }
+
+    /**
+     * 비트를 지우고 비어있는 비트맵은 제거한다.
+     */
+    private static <K> void clearBit(Map<K, BitSet> index, K key, int bit) {
+
+        BitSet bitSet = index.get(key);
+
+        if (bitSet == null) {
+
+            return;
+        }
+
+        bitSet.clear(bit);
+
+        if (bitSet.isEmpty()) {
+
+            index.remove(key);
+        }
+    }
+
+    /**
+     * 오름차순으로 정렬된 id 배열
+     *
+     * id 는 대부분 증가하는 순서로 추가되므로 보통은 끝에 붙이기만 한다.
+     */
+    static class IdArray {
+
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+
+            if (size == ids.length) {
+
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            if (size == 0 || ids[size - 1] < id) {
+
+                ids[size++] = id;
+
+                return;
+            }
+
+            int index = Arrays.binarySearch(ids, 0, size, id);
+
+            if (index >= 0) {
+
+                return;
+            }
+
+            int insertAt = -(index + 1);
+
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+
+            int index = Arrays.binarySearch(ids, 0, size, id);
+
+            if (index < 0) {
+
+                return false;
+            }
+
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package hello.itemservice.domain.item;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 상품명 접두어 검색 인덱스
+ *
+ * 상품명을 공백으로 나눈 단어와 상품명 전체를 정규화해서 정렬된 용어 사전(term -> 상품 id 집합)에 보관한다.
+ * 접두어 검색은 사전에서 prefix 로 시작하는 범위만 읽으므로 O(log n + 결과 수) 이다.
+ *
+ * 한글은 음절을 자모로 분해해서 보관하므로 입력 중인 글자로도 검색된다.
+ * 예) "사" -> "사과", "삭" -> "사과" (ㅅㅏㄱ 은 ㅅㅏㄱㅗㅏ 의 접두어)
+ *
+ * 쓰기는 ItemRepository 에서 순서대로(synchronized) 호출하고, 검색은 잠금 없이 동시에 처리한다.
+ */
+public class ItemNameIndex {
+
+    private static final char HANGUL_BEGIN = '가';
+    private static final char HANGUL_END = '힣';
+
+    private static final String[] CHOSEONG = {
+            "ㄱ", "ㄲ", "ㄴ", "ㄷ", "ㄸ", "ㄹ", "ㅁ", "ㅂ", "ㅃ", "ㅅ",
+            "ㅆ", "ㅇ", "ㅈ", "ㅉ", "ㅊ", "ㅋ", "ㅌ", "ㅍ", "ㅎ"
+    };
+
+    // 이중 모음은 두 모음으로 분해 (ㅘ -> ㅗㅏ)
+    private static final String[] JUNGSEONG = {
+            "ㅏ", "ㅐ", "ㅑ", "ㅒ", "ㅓ", "ㅔ", "ㅕ", "ㅖ", "ㅗ", "ㅗㅏ",
+            "ㅗㅐ", "ㅗㅣ", "ㅛ", "ㅜ", "ㅜㅓ", "ㅜㅔ", "ㅜㅣ", "ㅠ", "ㅡ", "ㅡㅣ",
+            "ㅣ"
+    };
+
+    // 겹받침은 두 자음으로 분해 (ㄺ -> ㄹㄱ)
+    private static final String[] JONGSEONG = {
+            "", "ㄱ", "ㄲ", "ㄱㅅ", "ㄴ", "ㄴㅈ", "ㄴㅎ", "ㄷ", "ㄹ", "ㄹㄱ",
+            "ㄹㅁ", "ㄹㅂ", "ㄹㅅ", "ㄹㅌ", "ㄹㅍ", "ㄹㅎ", "ㅁ", "ㅂ", "ㅂㅅ", "ㅅ",
+            "ㅆ", "ㅇ", "ㅈ", "ㅊ", "ㅋ", "ㅌ", "ㅍ", "ㅎ"
+    };
+
+    private final NavigableMap<String, Set<Long>> terms = new ConcurrentSkipListMap<>();
+
+    /**
+     * 상품 추가, 교체 또는 삭제
+     *
+     * @param oldItem 이전에 인덱스에 추가했던 상품 (없으면 null)
+     * @param newItem 새 상품 (삭제하면 null)
+     */
+    public void update(Item oldItem, Item newItem) {
+
+        if (oldItem != null) {
+
+            for (String term : termsOf(oldItem.getItemName())) {
+
+                Set<Long> ids = terms.get(term);
+
+                if (ids != null) {
+
+                    ids.remove(oldItem.getId());
+
+                    if (ids.isEmpty()) {
+
+                        terms.remove(term);
+                    }
+                }
+            }
+        }
+
+        if (newItem == null) {
+
+            return;
+        }
+
+        for (String term : termsOf(newItem.getItemName())) {
+
+            terms.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(newItem.getId());
+        }
+    }
+
+    public void clear() {
+
+        terms.clear();
+    }
+
+    /**
+     * 접두어로 상품 id 검색
+     *
+     * 공백이 없는 검색어는 상품명의 각 단어와, 공백이 있는 검색어는 상품명 전체와 비교한다.
+     * 결과는 일치한 용어의 사전 순서이다.
+     *
+     * @param query 검색어
+     * @param limit 최대 개수
+     * @return
+     */
+    public List<Long> search(String query, int limit) {
+
+        String prefix = normalize(query);
+
+        if (prefix.isEmpty()) {
+
+            return List.of();
+        }
+
+        Set<Long> result = new LinkedHashSet<>();
+
+        for (Map.Entry<String, Set<Long>> entry : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true).entrySet()) {
+
+            for (Long id : entry.getValue()) {
+
+                result.add(id);
+
+                if (result.size() >= limit) {
+
+                    return new ArrayList<>(result);
+                }
+            }
+        }
+
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * 인덱스에 넣을 용어 목록 (각 단어 + 상품명 전체)
+     */
+    private static Set<String> termsOf(String itemName) {
+
+        Set<String> result = new LinkedHashSet<>();
+
+        if (itemName == null) {
+
+            return result;
+        }
+
+        String name = normalize(itemName);
+
+        if (name.isEmpty()) {
+
+            return result;
+        }
+
+        result.add(name);
+
+        for (String word : name.split(" ")) {
+
+            result.add(word);
+        }
+
+        return result;
+    }
+
+    /**
+     * 소문자로 바꾸고 공백을 하나로 줄인 다음 한글 음절을 자모로 분해
+     *
+     * @param text
+     * @return
+     */
+    static String normalize(String text) {
+
+        String trimmed = text.trim().toLowerCase();
+        StringBuilder sb = new StringBuilder(trimmed.length() * 3);
+
+        boolean space = false;
+
+        for (int i = 0; i < trimmed.length(); i++) {
+
+            char c = trimmed.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+
+                space = true;
+                continue;
+            }
+
+            if (space) {
+
+                sb.append(' ');
+                space = false;
+            }
+
+            if (c >= HANGUL_BEGIN && c <= HANGUL_END) {
+
+                int index = c - HANGUL_BEGIN;
+
+                sb.append(CHOSEONG[index / (21 * 28)]);
+                sb.append(JUNGSEONG[(index % (21 * 28)) / 28]);
+                sb.append(JONGSEONG[index % 28]);
+            }
+            else {
+
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package hello.itemservice.domain.item;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 상품 목록 한 페이지
+ *
+ * page : offset 방식으로 조회한 경우의 페이지 번호 (0 부터 시작), 커서 방식이면 null
+ * previousCursor : 이전 페이지를 커서 방식으로 조회할 때 사용할 id (before 파라미터), 첫 페이지면 null
+ * nextCursor : 다음 페이지를 커서 방식으로 조회할 때 사용할 id (after 파라미터), 마지막 페이지면 null
+ */
+@Getter
+public class ItemPage {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 1000;
+
+    private final List<Item> items;
+    private final Integer page;
+    private final int size;
+    private final int totalCount;
+    private final Long previousCursor;
+    private final Long nextCursor;
+
+    public ItemPage(List<Item> items, Integer page, int size, int totalCount, Long previousCursor, Long nextCursor) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.totalCount = totalCount;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasPrevious() {
+
+        return previousCursor != null;
+    }
+
+    public boolean hasNext() {
+
+        return nextCursor != null;
+    }
+}
@@ -1,20 +1,163 @@
 package hello.itemservice.domain.item;
 
+import hello.itemservice.domain.wal.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PreDestroy;
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * 상품 저장소
+ *
+ * 여러 요청 스레드가 동시에 접근하므로 thread-safe 한 ItemStore 와 AtomicLong 을 사용한다.
+ * 저장 엔진은 item.store.type 속성으로 선택한다. (HEAP, COLUMNAR)
+ *
+ * 상품 목록은 쓰기가 있을 때만 다시 만드는 읽기 전용 스냅샷으로 제공한다.
+ * 쓰기마다 version 을 올리고, findAll 은 스냅샷의 version 이 최신이면 같은 리스트를 그대로 반환한다.
+ * COLUMNAR 저장 엔진은 조회할 때마다 Item 을 새로 만들므로 스냅샷을 보관하지 않는다. (보관하면 메모리 이점이 없어진다)
+ *
+ * 페이지 조회는 쓰기마다 함께 갱신하는 정렬된 id 인덱스(ConcurrentSkipListSet)를 사용하므로 스냅샷을 다시 만들지 않는다.
+ * 상품 객체 대신 id 만 보관하므로 COLUMNAR 저장 엔진의 메모리 이점을 유지한다.
+ * - offset 방식 : 앞에서부터 offset 만큼 건너뛰므로 O(offset + size)
+ * - 커서 방식 : afterId 다음 위치(다음 페이지) 또는 beforeId 앞 위치(이전 페이지)를 바로 찾으므로 O(log n + size)
+ * 목록 화면의 이전/다음 링크는 페이지의 previousCursor, nextCursor 로 커서 방식만 사용한다.
+ *
+ * 상품 종류, 등록 지역, 배송 방식, 판매 여부, 가격으로 검색할 수 있도록 ItemIndex 를,
+ * 상품명 접두어로 검색할 수 있도록 ItemNameIndex 를 함께 관리한다.
+ * 조회는 잠금 없이 처리한다. 쓰기는 잠금 밖에서 준비하고, 짧은 순서 구간(synchronized)에서 반영한다.
+ * - 준비 (잠금 없음) : id 발급(AtomicLong), 수정 전 상품 조회와 수정 버전 확인, 새 상품 만들기, 로그 레코드 만들기
+ * - 반영 (synchronized) : 준비할 때 읽은 상품이 그대로인지 확인하고, 로그 기록 요청을 넣고, 저장소와 인덱스를 바꾼다.
+ *   그 사이 다른 쓰기가 먼저 반영되었으면 준비부터 다시 한다. (update 의 compare-and-set 과 같은 방식)
+ * 로그 기록 순서와 메모리 반영 순서가 같아야 복구 결과가 같으므로 반영은 하나의 잠금으로 순서를 정한다.
+ * 인덱스(ItemIndex, ItemNameIndex)는 쓰는 스레드가 하나라고 가정하므로 반영 구간의 인덱스 갱신은 코어 수만큼 늘어나지 않는다.
+ * 레코드 인코딩과 상품 조회처럼 쓰기마다 드는 나머지 비용은 잠금 밖에서 동시에 처리한다.
+ *
+ * wal.dir 속성이 있으면 모든 쓰기를 WriteAheadLog 에 기록하고 시작할 때 복구한다.
+ * 디스크 기록(그룹 커밋)은 잠금 밖에서 기다린다.
+ * 레코드는 저장소를 바꾸기 전에 만들어 두므로 레코드를 만들 수 없는 상품은 저장소에 반영되지 않는다.
+ * 디스크 기록이 실패하면 기록되지 않은 변경을 저장소와 인덱스에서 되돌린다. (PendingPut)
+ *
+ * 로그 압축 시 전체 상품은 메모리 매핑 스냅샷 파일(ItemSnapshotFile)로 저장한다.
+ * 목록을 만들지 않고 id 인덱스를 SNAPSHOT_CHUNK 개씩 잘라 읽으면서 바로 파일에 쓴다.
+ * 복구할 때는 스냅샷 파일을 매핑만 하고 바로 서비스를 시작하며, 백그라운드 스레드가 저장소와 인덱스로 옮긴다.
+ * - findById : 옮기는 중에도 저장소에 없으면 스냅샷 파일에서 바로 조회
+ * - 목록, 페이지, 검색 : 인덱스가 필요하므로 옮기기가 끝날 때까지 대기
  */
+@Slf4j
 @Repository
 public class ItemRepository {
 
-    private static final Map<Long, Item> store = new HashMap<>();
-    private static long sequence = 0L;
+    private final ItemStore store;
+
+    // 목록 스냅샷 보관 여부 (HEAP 은 저장된 객체를 공유하므로 리스트만 추가로 든다)
+    private final boolean cacheSnapshot;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ItemIndex itemIndex = new ItemIndex();
+    private final ItemNameIndex itemNameIndex = new ItemNameIndex();
+
+    // id 오름차순 (페이지 조회용)
+    private final ConcurrentSkipListSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    // 로그 기록을 기다리는 중인 가장 최근 변경 (id -> 변경), synchronized 안에서만 사용
+    private final Map<Long, PendingPut> pendingPuts = new HashMap<>();
+
+    private static final CompletableFuture<Void> LOGGED = CompletableFuture.completedFuture(null);
+
+    private static final int WARM_UP_BATCH = 1024;
+    private static final int SNAPSHOT_CHUNK = 1024;
+    private static final String SNAPSHOT_FILE_PREFIX = "items-";
+    private static final String SNAPSHOT_FILE_SUFFIX = ".columns";
+
+    private final WriteAheadLog writeAheadLog;
+    private final Path walDir;
+    private boolean recovered;
+
+    // 아직 저장소로 옮기지 않은 스냅샷 파일 (없으면 null)
+    private volatile ItemSnapshotFile baseSnapshot;
+    private final CountDownLatch warmedUp = new CountDownLatch(1);
+
+    // 마지막으로 기록한 스냅샷 파일 이름
+    private String snapshotFileName;
+
+    public ItemRepository() {
+
+        this.store = ItemStoreType.HEAP.create();
+        this.cacheSnapshot = true;
+        this.writeAheadLog = null;
+        this.walDir = null;
+    }
+
+    /**
+     * 테스트에서 로그를 바꿔서 기록 실패를 재현할 때 사용 (복구, 압축 없음)
+     */
+    ItemRepository(ItemStoreType storeType, WriteAheadLog writeAheadLog) {
+
+        this(storeType, writeAheadLog, null);
+    }
+
+    /**
+     * 테스트에서 스냅샷 파일을 옮기는 중인 상태를 재현할 때 사용 (옮기기는 warmUp 을 직접 호출)
+     */
+    ItemRepository(ItemStoreType storeType, WriteAheadLog writeAheadLog, ItemSnapshotFile baseSnapshot) {
+
+        this.store = storeType.create();
+        this.cacheSnapshot = storeType == ItemStoreType.HEAP;
+        this.writeAheadLog = writeAheadLog;
+        this.walDir = null;
+        this.baseSnapshot = baseSnapshot;
+    }
+
+    @Autowired
+    public ItemRepository(
+            @Value("${item.store.type:HEAP}") ItemStoreType storeType,
+            @Value("${wal.dir:}") String walDir,
+            @Value("${wal.compaction-interval-seconds:600}") long compactionIntervalSeconds
+    ) throws IOException {
+
+        this.store = storeType.create();
+        this.cacheSnapshot = storeType == ItemStoreType.HEAP;
+        this.walDir = walDir.isBlank() ? null : Paths.get(walDir);
+        this.writeAheadLog = this.walDir == null ? null : new WriteAheadLog(this.walDir, "items");
+
+        if (writeAheadLog != null) {
+
+            recovered = writeAheadLog.open(this::replay) > 0;
+            deleteSnapshotFiles(snapshotFileName);
+            writeAheadLog.scheduleCompaction(this::writeSnapshot, compactionIntervalSeconds);
+
+            if (baseSnapshot != null) {
+
+                startWarmUp();
+            }
+        }
+    }
 
     /**
      * 상품 등록
@@ -24,13 +167,62 @@ public class ItemRepository {
      */
     public Item save(Item item) {
 
-        item.setId(++sequence);
+        item.setId(sequence.incrementAndGet());
+        item.setVersion(1);
+
+        byte[] record = record(item);
+        PendingPut pendingPut;
 
-        store.put(item.getId(), item);
+        // 새 id 는 아직 아무도 쓰지 않으므로 확인할 것이 없다.
+        synchronized (this) {
+
+            pendingPut = write(item, record);
+        }
+
+        awaitLogged(Collections.singletonList(pendingPut));
 
         return item;
     }
 
+    /**
+     * 상품 일괄 등록
+     *
+     * items 수만큼의 id 범위를 한 번에 발급하고, 잠금 밖에서 모든 상품의 레코드를 먼저 만든다.
+     * 레코드를 만들 수 없는 상품이 있으면 아무것도 저장하지 않는다.
+     * 반영은 잠금을 한 번만 잡고 하므로 로그 기록도 한 번에 요청되어 그룹 커밋 몇 번으로 모두 기록된다.
+     *
+     * @param items
+     * @return
+     */
+    public List<Item> saveAll(List<Item> items) {
+
+        List<PendingPut> pendingPuts = new ArrayList<>(items.size());
+        long firstId = sequence.getAndAdd(items.size()) + 1;
+        List<byte[]> records = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+
+            Item item = items.get(i);
+
+            item.setId(firstId + i);
+            item.setVersion(1);
+
+            records.add(record(item));
+        }
+
+        synchronized (this) {
+
+            for (int i = 0; i < items.size(); i++) {
+
+                pendingPuts.add(write(items.get(i), records.get(i)));
+            }
+        }
+
+        awaitLogged(pendingPuts);
+
+        return items;
+    }
+
     /**
      * 상품 상세 조회
      *
@@ -38,42 +230,833 @@ public class ItemRepository {
      * @return
      */
     public Item findById(Long id) {
-        return store.get(id);
+
+        Item item = store.get(id);
+
+        if (item == null) {
+
+            ItemSnapshotFile base = baseSnapshot;
+
+            if (base != null) {
+
+                return base.get(id);
+            }
+        }
+
+        return item;
     }
 
     /**
      * 상품 목록 조회
      *
+     * 마지막 쓰기 이후 처음 호출될 때만 id 순으로 정렬된 스냅샷을 새로 만들고,
+     * 그 다음 호출부터는 같은 리스트를 공유한다. (COLUMNAR 는 호출마다 새로 만든다) 반환된 리스트는 변경할 수 없다.
+     *
      * @return
      */
     public List<Item> findAll() {
-        return new ArrayList<>(store.values());
+        return currentSnapshot().items;
+    }
+
+    /**
+     * 조건으로 상품 검색
+     *
+     * 예) 제주에 등록된 판매 중인 음식 중 20,000 원 이하
+     *
+     * @param cond 검색 조건
+     * @param limit 최대 개수
+     * @return id 순으로 정렬된 상품 목록
+     */
+    public List<Item> findByCond(ItemSearchCond cond, int limit) {
+
+        awaitWarmUp();
+
+        return findAllById(itemIndex.search(cond, limit));
+    }
+
+    /**
+     * 상품명 접두어로 상품 검색
+     *
+     * 한글은 자모 단위로 비교하므로 입력 중인 글자로도 검색된다.
+     *
+     * @param query 검색어
+     * @param limit 최대 개수
+     * @return
+     */
+    public List<Item> findByNamePrefix(String query, int limit) {
+
+        awaitWarmUp();
+
+        return findAllById(itemNameIndex.search(query, limit));
+    }
+
+    private List<Item> findAllById(List<Long> ids) {
+
+        List<Item> result = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+
+            Item item = store.get(id);
+
+            // 인덱스 조회 직후 리셋된 경우
+            if (item != null) {
+
+                result.add(item);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 상품 목록 페이지 조회 (offset 방식)
+     *
+     * @param page 0 부터 시작하는 페이지 번호
+     * @param size 페이지 크기
+     * @return
+     */
+    public ItemPage findPage(int page, int size) {
+
+        awaitWarmUp();
+
+        int pageNumber = Math.max(page, 0);
+        int pageSize = pageSize(size);
+        long offset = (long) pageNumber * pageSize;
+
+        Iterator<Long> ids = orderedIds.iterator();
+
+        for (long i = 0; i < offset && ids.hasNext(); i++) {
+
+            ids.next();
+        }
+
+        return toPage(ids, pageNumber, pageSize);
+    }
+
+    /**
+     * 상품 목록 페이지 조회 (커서 방식)
+     *
+     * 앞 페이지가 몇 개였는지와 무관하게 afterId 다음 상품부터 조회하므로
+     * 목록이 길어져도 뒤쪽 페이지 조회 비용이 늘어나지 않는다.
+     *
+     * @param afterId 이전 페이지의 마지막 상품 id
+     * @param size 페이지 크기
+     * @return
+     */
+    public ItemPage findAfter(long afterId, int size) {
+
+        awaitWarmUp();
+
+        return toPage(orderedIds.tailSet(afterId, false).iterator(), null, pageSize(size));
+    }
+
+    /**
+     * 상품 목록 이전 페이지 조회 (커서 방식)
+     *
+     * beforeId 앞의 상품을 뒤에서부터 size 개 찾으므로 findAfter 와 같이 O(log n + size) 이다.
+     *
+     * @param beforeId 다음 페이지의 첫 상품 id
+     * @param size 페이지 크기
+     * @return
+     */
+    public ItemPage findBefore(long beforeId, int size) {
+
+        awaitWarmUp();
+
+        int pageSize = pageSize(size);
+        List<Item> items = readItems(orderedIds.headSet(beforeId, false).descendingIterator(), pageSize);
+
+        Collections.reverse(items);
+
+        return toPage(items, null, pageSize);
+    }
+
+    /**
+     * @param ids 페이지 첫 상품 위치의 id 반복자
+     */
+    private ItemPage toPage(Iterator<Long> ids, Integer page, int size) {
+
+        return toPage(readItems(ids, size), page, size);
+    }
+
+    /**
+     * @param items id 오름차순으로 정렬된 페이지 상품
+     */
+    private ItemPage toPage(List<Item> items, Integer page, int size) {
+
+        Long previousCursor = null;
+        Long nextCursor = null;
+
+        if (!items.isEmpty()) {
+
+            Long firstId = items.get(0).getId();
+            Long lastId = items.get(items.size() - 1).getId();
+
+            previousCursor = orderedIds.lower(firstId) == null ? null : firstId;
+            nextCursor = orderedIds.higher(lastId) == null ? null : lastId;
+        }
+
+        return new ItemPage(Collections.unmodifiableList(items), page, size, store.size(), previousCursor, nextCursor);
+    }
+
+    private List<Item> readItems(Iterator<Long> ids, int size) {
+
+        List<Item> items = new ArrayList<>(size);
+
+        while (items.size() < size && ids.hasNext()) {
+
+            Item item = store.get(ids.next());
+
+            // 인덱스 조회 직후 리셋된 경우
+            if (item != null) {
+
+                items.add(item);
+            }
+        }
+
+        return items;
+    }
+
+    private int pageSize(int size) {
+
+        if (size <= 0) {
+
+            return ItemPage.DEFAULT_SIZE;
+        }
+
+        return Math.min(size, ItemPage.MAX_SIZE);
     }
 
     /**
      * 상품 수정
      *
+     * 저장된 객체를 직접 바꾸지 않고 수정된 복사본으로 교체한다.
+     * 동시에 조회하는 스레드가 일부 필드만 바뀐 상품을 보지 않는다.
+     *
+     * updateParam 에 수정 버전이 있으면 저장된 버전과 같을 때만 수정한다. (compare-and-set)
+     * 수정 버전을 보내지 않는 화면은 이전처럼 항상 덮어쓴다.
+     *
      * @param itemId
      * @param updateParam
+     * @throws IllegalArgumentException 상품이 없는 경우
+     * @throws ItemVersionConflictException 수정 버전이 저장된 버전과 다른 경우
      */
     public void update(Long itemId, Item updateParam) {
 
-        Item findItem = findById(itemId);
+        awaitLogged(Collections.singletonList(writeUpdate(itemId, updateParam)));
+    }
+
+    /**
+     * 상품 일괄 수정
+     *
+     * 각 상품은 update 와 같은 규칙으로 수정하고, 수정할 수 없는 상품은 건너뛴다.
+     *
+     * @param updateParams id 가 채워진 수정 내용
+     * @return 수정하지 못한 상품의 순번 -> 원인 (IllegalArgumentException, ItemVersionConflictException,
+     *         로그 레코드를 만들 수 없는 경우 UncheckedIOException)
+     */
+    public Map<Integer, RuntimeException> updateAll(List<Item> updateParams) {
+
+        Map<Integer, RuntimeException> failures = new LinkedHashMap<>();
+        List<PendingPut> pendingPuts = new ArrayList<>(updateParams.size());
+
+        for (int i = 0; i < updateParams.size(); i++) {
 
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
+            Item updateParam = updateParams.get(i);
 
-        findItem.setOpen(updateParam.getOpen());
-        findItem.setRegions(updateParam.getRegions());
-        findItem.setItemType(updateParam.getItemType());
-        findItem.setDeliveryCode(updateParam.getDeliveryCode());
+            try {
+
+                pendingPuts.add(writeUpdate(updateParam.getId(), updateParam));
+
+            } catch (IllegalArgumentException | ItemVersionConflictException | UncheckedIOException e) {
+
+                failures.put(i, e);
+            }
+        }
+
+        awaitLogged(pendingPuts);
+
+        return failures;
+    }
+
+    /**
+     * 수정한 상품을 반영하고 로그 기록 요청 (기록은 기다리지 않는다)
+     *
+     * 잠금 밖에서 수정할 상품을 읽고 새 상품과 레코드를 만든 다음, 반영할 때 저장된 상품이 그대로인지 확인한다.
+     * 그 사이 다른 쓰기(수정, 되돌리기, 리셋)가 먼저 반영되었으면 다시 읽고 처음부터 다시 만든다.
+     * 다시 읽은 상품의 버전이 수정 버전과 다르면 ItemVersionConflictException 이다.
+     */
+    private PendingPut writeUpdate(Long itemId, Item updateParam) {
+
+        while (true) {
+
+            Item findItem = itemId == null ? null : findById(itemId);
+
+            if (findItem == null) {
+
+                throw new IllegalArgumentException("상품이 없습니다. itemId = " + itemId);
+            }
+
+            Item updateItem = updatedItem(findItem, updateParam);
+            byte[] record = record(updateItem);
+
+            synchronized (this) {
+
+                if (findItem.equals(findById(itemId))) {
+
+                    return write(updateItem, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * 저장된 상품에 수정 내용을 반영한 새 상품
+     */
+    private Item updatedItem(Item findItem, Item updateParam) {
+
+        if (updateParam.getVersion() != null && !updateParam.getVersion().equals(findItem.getVersion())) {
+
+            throw new ItemVersionConflictException(findItem, updateParam.getVersion());
+        }
+
+        Item updateItem = new Item();
+
+        updateItem.setId(findItem.getId());
+        updateItem.setVersion(findItem.getVersion() == null ? 1 : findItem.getVersion() + 1);
+        updateItem.setItemName(updateParam.getItemName());
+        updateItem.setPrice(updateParam.getPrice());
+        updateItem.setQuantity(updateParam.getQuantity());
+
+        updateItem.setOpen(updateParam.getOpen());
+        updateItem.setRegions(updateParam.getRegions());
+        updateItem.setItemType(updateParam.getItemType());
+        updateItem.setDeliveryCode(updateParam.getDeliveryCode());
+
+        return updateItem;
     }
 
     /**
      * 상품 리셋
+     *
+     * 되돌리려면 모든 상품을 보관해야 하므로 put 과 달리 로그 기록이 끝난 다음에 비운다.
+     * 기다리는 동안 다른 쓰기가 CLEAR 레코드 뒤에 기록되었다가 함께 지워지지 않도록 잠금을 잡은 채로 기다린다.
+     * 기록에 실패하면 아무것도 지우지 않고 예외를 던진다.
      */
     public void clearStore() {
+
+        synchronized (this) {
+
+            if (writeAheadLog != null) {
+
+                WriteAheadLog.await(writeAheadLog.append(ItemCodec.clear(sequence.get())));
+            }
+
+            clear();
+        }
+    }
+
+    /**
+     * 로그에서 복구한 데이터가 있는지 여부
+     *
+     * @return
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+
+        if (writeAheadLog != null) {
+
+            writeAheadLog.close();
+        }
+    }
+
+    /**
+     * 저장할 상품의 로그 레코드 (로그를 쓰지 않으면 null)
+     *
+     * @throws UncheckedIOException 레코드로 만들 수 없는 경우 (예: 64KB 를 넘는 문자열)
+     */
+    private byte[] record(Item item) {
+
+        return writeAheadLog == null ? null : ItemCodec.put(item);
+    }
+
+    /**
+     * 로그 기록을 요청하고 저장소와 인덱스에 상품 반영 (synchronized 안에서 호출)
+     *
+     * @param record 미리 만든 로그 레코드 (로그를 쓰지 않으면 null)
+     */
+    private PendingPut write(Item item, byte[] record) {
+
+        // 인덱스할 수 없는 id 면 로그와 저장소를 바꾸기 전에 실패
+        ItemIndex.checkId(item.getId());
+
+        if (record == null) {
+
+            put(item);
+
+            return new PendingPut(item, null, null, LOGGED);
+        }
+
+        // 아직 저장소로 옮기지 않은 상품이면 스냅샷 파일의 상품이 변경 전 상품이다.
+        // (저장소에 들어간 뒤에는 옮기기가 이 id 를 건너뛰므로, 되돌릴 때 지우면 상품이 사라진다.)
+        Item previous = findById(item.getId());
+
+        CompletableFuture<Void> logged = writeAheadLog.append(record);
+        PendingPut pendingPut = new PendingPut(item, previous, pendingPuts.get(item.getId()), logged);
+
+        put(item);
+
+        pendingPuts.put(item.getId(), pendingPut);
+
+        return pendingPut;
+    }
+
+    /**
+     * 로그 기록을 기다리고, 기록하지 못한 변경은 되돌린 다음 첫 번째 실패를 던진다.
+     */
+    private void awaitLogged(List<PendingPut> writes) {
+
+        if (writeAheadLog == null) {
+
+            return;
+        }
+
+        RuntimeException failure = null;
+
+        for (PendingPut pendingPut : writes) {
+
+            try {
+
+                WriteAheadLog.await(pendingPut.logged);
+
+            } catch (RuntimeException e) {
+
+                if (failure == null) {
+
+                    failure = e;
+                }
+            }
+        }
+
+        synchronized (this) {
+
+            for (PendingPut pendingPut : writes) {
+
+                if (pendingPut.logged.isCompletedExceptionally()) {
+
+                    undo(pendingPut);
+                }
+                else if (pendingPuts.get(pendingPut.item.getId()) == pendingPut) {
+
+                    pendingPuts.remove(pendingPut.item.getId());
+                }
+            }
+        }
+
+        if (failure != null) {
+
+            throw failure;
+        }
+    }
+
+    /**
+     * 기록하지 못한 변경 되돌리기 (synchronized 안에서 호출)
+     *
+     * 저장소의 상품이 이 변경으로 저장한 상품일 때만 되돌린다. 그 사이 다른 변경이 있었다면 그 변경이 최신이다.
+     * 바로 앞의 변경도 기록하지 못했다면 그 이전 상태로 되돌린다.
+     */
+    private void undo(PendingPut pendingPut) {
+
+        Long id = pendingPut.item.getId();
+        PendingPut target = pendingPut;
+
+        while (target.previousPut != null && target.previousPut.logged.isCompletedExceptionally()) {
+
+            target = target.previousPut;
+        }
+
+        if (pendingPut.item.equals(store.get(id))) {
+
+            if (target.previous == null) {
+
+                remove(id);
+            }
+            else {
+
+                put(target.previous);
+            }
+
+            log.warn("로그 기록 실패로 상품 변경을 되돌림 : id = {}", id);
+        }
+
+        if (pendingPuts.get(id) == pendingPut) {
+
+            PendingPut live = target.previousPut;
+
+            if (live == null || live.logged.isDone()) {
+
+                pendingPuts.remove(id);
+            }
+            else {
+
+                pendingPuts.put(id, live);
+            }
+        }
+    }
+
+    /**
+     * 저장소와 인덱스에 상품 반영 (같은 id 가 있으면 교체)
+     *
+     * @return 교체한 상품 (없으면 null)
+     */
+    private Item put(Item item) {
+
+        ItemIndex.checkId(item.getId());
+
+        Item oldItem = store.get(item.getId());
+
+        store.put(item);
+        orderedIds.add(item.getId());
+        itemIndex.update(oldItem, item);
+        itemNameIndex.update(oldItem, item);
+        version.incrementAndGet();
+
+        return oldItem;
+    }
+
+    private void remove(Long id) {
+
+        Item oldItem = store.get(id);
+
+        if (oldItem == null) {
+
+            return;
+        }
+
+        store.remove(id);
+        orderedIds.remove(id);
+        itemIndex.update(oldItem, null);
+        itemNameIndex.update(oldItem, null);
+        version.incrementAndGet();
+    }
+
+    private void clear() {
+
+        baseSnapshot = null;
+        pendingPuts.clear();
         store.clear();
+        orderedIds.clear();
+        itemIndex.clear();
+        itemNameIndex.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * 로그 레코드 복구
+     *
+     * @param in
+     * @throws IOException
+     */
+    private void replay(DataInput in) throws IOException {
+
+        byte type = in.readByte();
+
+        if (type == ItemCodec.PUT) {
+
+            Item item = ItemCodec.readItem(in);
+
+            put(item);
+            sequence.accumulateAndGet(item.getId(), Math::max);
+        }
+        else if (type == ItemCodec.CLEAR) {
+
+            clear();
+            sequence.accumulateAndGet(in.readLong(), Math::max);
+        }
+        else if (type == ItemCodec.SNAPSHOT_FILE) {
+
+            clear();
+            sequence.accumulateAndGet(in.readLong(), Math::max);
+
+            snapshotFileName = in.readUTF();
+            baseSnapshot = ItemSnapshotFile.open(walDir.resolve(snapshotFileName));
+        }
+        else {
+
+            throw new IOException("알 수 없는 상품 로그 레코드입니다. type = " + type);
+        }
+    }
+
+    /**
+     * 즉시 로그 압축
+     */
+    void compact() throws IOException {
+
+        writeAheadLog.compact(this::writeSnapshot);
+    }
+
+    /**
+     * 로그 압축 시 현재 상품 전체를 새 스냅샷 파일로 저장하고, 파일 이름만 로그 스냅샷에 기록
+     *
+     * 이전 스냅샷 파일은 로그 스냅샷 교체가 끝나기 전까지 필요하므로 다음 압축 때 삭제한다.
+     * 로그가 새 세대로 넘어간 뒤에 읽으므로, 쓰는 동안 바뀐 상품은 어느 쪽 값을 쓰더라도 새 세대 로그로 다시 적용된다.
+     */
+    private void writeSnapshot(WriteAheadLog.RecordSink sink) throws IOException {
+
+        long currentSequence = sequence.get();
+        String fileName = SNAPSHOT_FILE_PREFIX + System.currentTimeMillis() + SNAPSHOT_FILE_SUFFIX;
+
+        awaitWarmUp();
+
+        ItemSnapshotFile.write(walDir.resolve(fileName), new ChunkedItemIterator());
+
+        deleteSnapshotFiles(snapshotFileName, fileName);
+        sink.accept(ItemCodec.snapshotFile(currentSequence, fileName));
+
+        snapshotFileName = fileName;
+    }
+
+    private void deleteSnapshotFiles(String... keep) throws IOException {
+
+        List<String> keepNames = Arrays.asList(keep);
+
+        try (Stream<Path> files = Files.list(walDir)) {
+
+            for (Path file : (Iterable<Path>) files::iterator) {
+
+                String fileName = file.getFileName().toString();
+
+                if (fileName.startsWith(SNAPSHOT_FILE_PREFIX) && fileName.endsWith(SNAPSHOT_FILE_SUFFIX)
+                        && !keepNames.contains(fileName)) {
+
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 스냅샷 파일의 상품을 백그라운드에서 저장소와 인덱스로 옮긴다.
+     *
+     * 잠금을 작은 단위로 나누어 잡으므로 옮기는 동안에도 쓰기 요청을 처리할 수 있다.
+     * 그 사이 저장되거나 수정된 상품이 더 최신이므로 저장소에 이미 있는 id 는 건너뛴다.
+     */
+    private void startWarmUp() {
+
+        Thread thread = new Thread(this::warmUp, "item-warm-up");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void warmUp() {
+
+        int total = baseSnapshot == null ? 0 : baseSnapshot.size();
+        long start = System.nanoTime();
+        int row = 0;
+
+        try {
+
+            while (warmUpBatch(row)) {
+
+                row += WARM_UP_BATCH;
+            }
+
+            log.info("상품 스냅샷 불러오기 완료 : items = {}, {}ms", total, (System.nanoTime() - start) / 1_000_000);
+
+        } catch (RuntimeException e) {
+
+            log.error("상품 스냅샷 불러오기 실패", e);
+
+        } finally {
+
+            warmedUp.countDown();
+        }
+    }
+
+    /**
+     * @return 더 옮길 상품이 남아 있으면 true
+     */
+    private synchronized boolean warmUpBatch(int from) {
+
+        ItemSnapshotFile base = baseSnapshot;
+
+        // 그 사이 리셋된 경우
+        if (base == null) {
+
+            return false;
+        }
+
+        int to = Math.min(from + WARM_UP_BATCH, base.size());
+
+        for (int row = from; row < to; row++) {
+
+            if (store.get(base.id(row)) == null) {
+
+                put(base.item(row));
+            }
+        }
+
+        if (to == base.size()) {
+
+            baseSnapshot = null;
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private void awaitWarmUp() {
+
+        if (baseSnapshot == null) {
+
+            return;
+        }
+
+        try {
+
+            warmedUp.await();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("상품 스냅샷을 불러오는 중 중단되었습니다.", e);
+        }
+    }
+
+    /**
+     * 최신 스냅샷 조회
+     *
+     * version 을 먼저 읽고 나서 저장소를 복사하므로, 복사 도중에 쓰기가 일어나면
+     * 만들어진 스냅샷의 version 이 이미 낡은 값이 되어 다음 호출에서 다시 만들어진다.
+     * cacheSnapshot 이 false 면 만든 스냅샷을 보관하지 않는다.
+     *
+     * @return
+     */
+    private Snapshot currentSnapshot() {
+
+        awaitWarmUp();
+
+        Snapshot current = snapshot.get();
+        long currentVersion = version.get();
+
+        if (current.version == currentVersion) {
+
+            return current;
+        }
+
+        List<Item> items = store.values();
+        items.sort(Comparator.comparing(Item::getId));
+
+        Snapshot next = new Snapshot(currentVersion, Collections.unmodifiableList(items));
+
+        if (cacheSnapshot) {
+
+            snapshot.compareAndSet(current, next);
+        }
+
+        return next;
+    }
+
+    /**
+     * 정렬된 id 인덱스를 SNAPSHOT_CHUNK 개씩 잘라 읽는 상품 반복자 (스냅샷 파일 쓰기용)
+     *
+     * 묶음마다 잠금을 잡고 읽으므로 묶음 안의 상품은 같은 시점의 값이다.
+     * 묶음 사이에 바뀐 상품은 바뀐 값이, 지워진 상품은 빠진 채로 나온다.
+     */
+    private class ChunkedItemIterator implements Iterator<Item> {
+
+        private final List<Item> chunk = new ArrayList<>(SNAPSHOT_CHUNK);
+        private int next;
+        private long lastId;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+
+            if (next == chunk.size() && !done) {
+
+                readChunk();
+            }
+
+            return next < chunk.size();
+        }
+
+        @Override
+        public Item next() {
+
+            if (!hasNext()) {
+
+                throw new NoSuchElementException();
+            }
+
+            return chunk.get(next++);
+        }
+
+        private void readChunk() {
+
+            chunk.clear();
+            next = 0;
+
+            synchronized (ItemRepository.this) {
+
+                Iterator<Long> ids = orderedIds.tailSet(lastId, false).iterator();
+
+                while (chunk.size() < SNAPSHOT_CHUNK && ids.hasNext()) {
+
+                    Long id = ids.next();
+                    Item item = store.get(id);
+
+                    if (item != null) {
+
+                        chunk.add(item);
+                    }
+
+                    lastId = id;
+                }
+
+                done = !ids.hasNext();
+            }
+        }
+    }
+
+    /**
+     * 로그 기록 결과를 기다리는 상품 변경
+     */
+    private static class PendingPut {
+
+        final Item item;
+        final Item previous; // 변경 전 상품 (없으면 null)
+        final PendingPut previousPut; // previous 를 저장한 변경 (이미 기록되었으면 null)
+        final CompletableFuture<Void> logged;
+
+        PendingPut(Item item, Item previous, PendingPut previousPut, CompletableFuture<Void> logged) {
+            this.item = item;
+            this.previous = previous;
+            this.previousPut = previousPut;
+            this.logged = logged;
+        }
+    }
+
+    /**
+     * 특정 version 시점의 상품 목록 (id 오름차순)
+     */
+    private static class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(0L, Collections.emptyList());
+
+        final long version;
+        final List<Item> items;
+
+        Snapshot(long version, List<Item> items) {
+            this.version = version;
+            this.items = items;
+        }
     }
 }
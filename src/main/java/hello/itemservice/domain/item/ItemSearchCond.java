@@ -0,0 +1,19 @@
+package hello.itemservice.domain.item;
+
+import lombok.Data;
+
+/**
+ * 상품 검색 조건
+ *
+ * null 인 조건은 사용하지 않는다. 모든 조건은 AND 로 결합한다.
+ */
+@Data
+public class ItemSearchCond {
+
+    private ItemType itemType; // 상품 종류
+    private String region; // 등록 지역
+    private String deliveryCode; // 배송 방식
+    private Boolean open; // 판매 여부
+    private Integer minPrice; // 최소 가격 (포함)
+    private Integer maxPrice; // 최대 가격 (포함)
+}
@@ -0,0 +1,571 @@
+package hello.itemservice.domain.item;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메모리 매핑 상품 스냅샷 파일
+ *
+ * 상품 목록을 컬럼 형식으로 파일에 쓰고, 읽을 때는 FileChannel.map 으로 매핑만 한다.
+ * 파일 전체를 역직렬화하지 않으므로 상품 수와 무관하게 바로 findById 를 처리할 수 있고,
+ * 실제로 읽은 페이지만 OS 가 디스크에서 불러온다.
+ *
+ * 파일 형식 (id 오름차순, n = 상품 수)
+ * - 헤더 : magic int, format int, n int, 고정 길이 컬럼 시작 위치 int
+ * - 문자열 힙 : 문자열은 [길이 int][UTF-8], 등록 지역은 [개수 int][문자열 위치 int...]
+ * - 고정 길이 컬럼 : id long[n], 가격 int[n], 수량 int[n], 수정 버전 int[n], 플래그 byte[n], 상품 종류 byte[n],
+ *                   상품명 int[n], 배송 방식 int[n], 등록 지역 int[n]
+ *
+ * 이전 형식(format 1)은 헤더 바로 뒤에 고정 길이 컬럼, 그 뒤에 문자열 힙이 있다. 읽기만 지원한다.
+ *
+ * 문자열 컬럼 값은 힙 안의 위치이며 null 은 -1 이다. 같은 배송 방식, 등록 지역 문자열은 힙에 한 번만 쓴다.
+ * 매핑 하나로 읽으므로 파일 크기는 2GB 를 넘을 수 없다. 넘으면 write 가 파일을 만들지 않고 실패하므로
+ * 로그 압축도 실패하고 이전 로그가 그대로 남는다.
+ */
+public class ItemSnapshotFile {
+
+    private static final int MAGIC = 0x4954454D;
+    private static final int FORMAT = 2;
+    private static final int COLUMNS_FIRST_FORMAT = 1;
+    private static final int HEADER_SIZE = 16;
+
+    // 고정 길이 컬럼 : 행마다 8 + 4 + 4 + 4 + 1 + 1 + 4 + 4 + 4 byte
+    private static final int ROW_SIZE = 34;
+
+    private static final byte PRICE_NULL = 1;
+    private static final byte QUANTITY_NULL = 1 << 1;
+    private static final byte OPEN_NULL = 1 << 2;
+    private static final byte OPEN_TRUE = 1 << 3;
+    private static final byte VERSION_NULL = 1 << 4;
+
+    private static final byte ITEM_TYPE_NULL = -1;
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private static final int NULL = -1;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private final int idColumn;
+    private final int priceColumn;
+    private final int quantityColumn;
+    private final int versionColumn;
+    private final int flagColumn;
+    private final int itemTypeColumn;
+    private final int itemNameColumn;
+    private final int deliveryCodeColumn;
+    private final int regionsColumn;
+    private final int heapStart;
+
+    private ItemSnapshotFile(Path file, ByteBuffer buffer, int size, int columnStart, int heapStart) {
+
+        this.file = file;
+        this.buffer = buffer;
+        this.size = size;
+
+        this.idColumn = columnStart;
+        this.priceColumn = columnStart + size * 8;
+        this.quantityColumn = priceColumn + size * 4;
+        this.versionColumn = quantityColumn + size * 4;
+        this.flagColumn = versionColumn + size * 4;
+        this.itemTypeColumn = flagColumn + size;
+        this.itemNameColumn = itemTypeColumn + size;
+        this.deliveryCodeColumn = itemNameColumn + size * 4;
+        this.regionsColumn = deliveryCodeColumn + size * 4;
+        this.heapStart = heapStart;
+    }
+
+    /**
+     * 스냅샷 파일 쓰기
+     *
+     * 임시 파일에 쓰고 fsync 한 다음 이름을 바꾸므로, 중간에 실패해도 일부만 쓰인 파일이 남지 않는다.
+     * 상품을 한 번만 순회하면서 문자열 힙은 바로 파일에 흘려 쓰고, 고정 길이 컬럼은 기본형 배열(행당 34 byte)에 모았다가
+     * 마지막에 힙 뒤에 쓴다. 상품 목록 전체를 메모리에 올리지 않아도 된다.
+     *
+     * @param file
+     * @param items id 오름차순으로 정렬된 상품 (한 번만 순회)
+     * @throws IOException 파일이 2GB 를 넘어서 다시 열 수 없는 경우 포함 (이름을 바꾸기 전에 실패)
+     */
+    public static void write(Path file, Iterator<Item> items) throws IOException {
+
+        write(file, items, Integer.MAX_VALUE);
+    }
+
+    public static void write(Path file, List<Item> items) throws IOException {
+
+        write(file, items.iterator(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxLength 최대 파일 크기 (테스트에서 크기 제한을 확인할 때 줄여서 사용)
+     */
+    static void write(Path file, List<Item> items, long maxLength) throws IOException {
+
+        write(file, items.iterator(), maxLength);
+    }
+
+    private static void write(Path file, Iterator<Item> items, long maxLength) throws IOException {
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // 문자열 힙
+            channel.position(HEADER_SIZE);
+
+            HeapWriter heap = new HeapWriter(newOutput(channel), maxLength - HEADER_SIZE);
+            Map<String, Integer> shared = new HashMap<>();
+            Columns columns = new Columns();
+
+            while (items.hasNext()) {
+
+                Item item = items.next();
+
+                columns.add(item,
+                        heap.writeString(item.getItemName()),
+                        heap.writeSharedString(shared, item.getDeliveryCode()),
+                        heap.writeRegions(shared, item.getRegions()));
+            }
+
+            heap.out.flush();
+
+            // 고정 길이 컬럼
+            long columnStart = HEADER_SIZE + heap.position;
+            int size = columns.size;
+
+            if (columnStart + (long) size * ROW_SIZE > maxLength) {
+
+                throw new IOException("상품 스냅샷 파일이 최대 크기를 넘습니다. items = " + size + ", maxLength = " + maxLength);
+            }
+
+            DataOutputStream out = newOutput(channel);
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeLong(columns.ids[row]);
+            }
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeInt(columns.prices[row]);
+            }
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeInt(columns.quantities[row]);
+            }
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeInt(columns.versions[row]);
+            }
+
+            out.write(columns.flags, 0, size);
+            out.write(columns.itemTypes, 0, size);
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeInt(columns.itemNameOffsets[row]);
+            }
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeInt(columns.deliveryCodeOffsets[row]);
+            }
+
+            for (int row = 0; row < size; row++) {
+
+                out.writeInt(columns.regionsOffsets[row]);
+            }
+
+            out.flush();
+
+            // 헤더는 상품 수와 컬럼 위치를 안 다음에 쓴다.
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT)
+                    .putInt(size)
+                    .putInt((int) columnStart)
+                    .flip();
+
+            while (header.hasRemaining()) {
+
+                channel.write(header, header.position());
+            }
+
+            channel.force(true);
+
+        } catch (IOException | RuntimeException e) {
+
+            Files.deleteIfExists(tempFile);
+
+            throw e;
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 채널의 현재 위치부터 쓰는 스트림 (채널은 닫지 않는다)
+     */
+    private static DataOutputStream newOutput(FileChannel channel) {
+
+        return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+
+    /**
+     * 스냅샷 파일 매핑
+     *
+     * 헤더와 파일 크기만 확인하고 내용은 읽지 않는다.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static ItemSnapshotFile open(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            long length = channel.size();
+
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+
+                throw new IOException("상품 스냅샷 파일 크기가 올바르지 않습니다. file = " + file + ", size = " + length);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+            int format = buffer.getInt(4);
+
+            if (buffer.getInt(0) != MAGIC || (format != FORMAT && format != COLUMNS_FIRST_FORMAT)) {
+
+                throw new IOException("상품 스냅샷 파일 형식이 아닙니다. file = " + file);
+            }
+
+            int size = buffer.getInt(8);
+            int columnStart = format == FORMAT ? buffer.getInt(12) : HEADER_SIZE;
+
+            if (size < 0 || columnStart < HEADER_SIZE || columnStart + (long) size * ROW_SIZE > length) {
+
+                throw new IOException("상품 스냅샷 파일이 잘렸습니다. file = " + file);
+            }
+
+            int heapStart = format == FORMAT ? HEADER_SIZE : columnStart + size * ROW_SIZE;
+
+            return new ItemSnapshotFile(file, buffer, size, columnStart, heapStart);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * row 번째 상품 id
+     *
+     * @param row
+     * @return
+     */
+    public long id(int row) {
+
+        return buffer.getLong(idColumn + row * 8);
+    }
+
+    /**
+     * id 로 상품 조회 (id 컬럼 이진 탐색)
+     *
+     * @param id
+     * @return 없으면 null
+     */
+    public Item get(long id) {
+
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+
+            int mid = (low + high) >>> 1;
+            long midId = id(mid);
+
+            if (midId < id) {
+
+                low = mid + 1;
+            }
+            else if (midId > id) {
+
+                high = mid - 1;
+            }
+            else {
+
+                return item(mid);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * row 번째 상품을 새 Item 으로 만들어 반환
+     *
+     * @param row
+     * @return
+     */
+    public Item item(int row) {
+
+        byte flag = buffer.get(flagColumn + row);
+        byte itemType = buffer.get(itemTypeColumn + row);
+
+        Item item = new Item();
+
+        item.setId(id(row));
+        item.setItemName(readString(buffer.getInt(itemNameColumn + row * 4)));
+        item.setPrice((flag & PRICE_NULL) != 0 ? null : buffer.getInt(priceColumn + row * 4));
+        item.setQuantity((flag & QUANTITY_NULL) != 0 ? null : buffer.getInt(quantityColumn + row * 4));
+        item.setOpen((flag & OPEN_NULL) != 0 ? null : (flag & OPEN_TRUE) != 0);
+        item.setItemType(itemType == ITEM_TYPE_NULL ? null : ITEM_TYPES[itemType]);
+        item.setDeliveryCode(readString(buffer.getInt(deliveryCodeColumn + row * 4)));
+        item.setRegions(readRegions(buffer.getInt(regionsColumn + row * 4)));
+        item.setVersion((flag & VERSION_NULL) != 0 ? null : buffer.getInt(versionColumn + row * 4));
+
+        return item;
+    }
+
+    private String readString(int offset) {
+
+        if (offset == NULL) {
+
+            return null;
+        }
+
+        int position = heapStart + offset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+
+        // 절대 위치로 읽어야 여러 스레드가 같은 버퍼를 공유할 수 있다.
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 4);
+        view.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<String> readRegions(int offset) {
+
+        if (offset == NULL) {
+
+            return null;
+        }
+
+        int position = heapStart + offset;
+        int count = buffer.getInt(position);
+
+        List<String> result = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+
+            result.add(readString(buffer.getInt(position + 4 + i * 4)));
+        }
+
+        return result;
+    }
+
+    private static byte flagsOf(Item item) {
+
+        byte flag = 0;
+
+        if (item.getPrice() == null) {
+
+            flag |= PRICE_NULL;
+        }
+
+        if (item.getQuantity() == null) {
+
+            flag |= QUANTITY_NULL;
+        }
+
+        if (item.getOpen() == null) {
+
+            flag |= OPEN_NULL;
+        }
+        else if (item.getOpen()) {
+
+            flag |= OPEN_TRUE;
+        }
+
+        if (item.getVersion() == null) {
+
+            flag |= VERSION_NULL;
+        }
+
+        return flag;
+    }
+
+    /**
+     * 쓰는 중인 고정 길이 컬럼 (상품 수를 모르므로 두 배씩 늘린다.)
+     */
+    private static class Columns {
+
+        int size;
+
+        long[] ids = new long[1024];
+        int[] prices = new int[1024];
+        int[] quantities = new int[1024];
+        int[] versions = new int[1024];
+        byte[] flags = new byte[1024];
+        byte[] itemTypes = new byte[1024];
+        int[] itemNameOffsets = new int[1024];
+        int[] deliveryCodeOffsets = new int[1024];
+        int[] regionsOffsets = new int[1024];
+
+        void add(Item item, int itemNameOffset, int deliveryCodeOffset, int regionsOffset) {
+
+            if (size == ids.length) {
+
+                grow();
+            }
+
+            ids[size] = item.getId();
+            prices[size] = item.getPrice() == null ? 0 : item.getPrice();
+            quantities[size] = item.getQuantity() == null ? 0 : item.getQuantity();
+            versions[size] = item.getVersion() == null ? 0 : item.getVersion();
+            flags[size] = flagsOf(item);
+            itemTypes[size] = item.getItemType() == null ? ITEM_TYPE_NULL : (byte) item.getItemType().ordinal();
+            itemNameOffsets[size] = itemNameOffset;
+            deliveryCodeOffsets[size] = deliveryCodeOffset;
+            regionsOffsets[size] = regionsOffset;
+
+            size++;
+        }
+
+        private void grow() {
+
+            int capacity = ids.length * 2;
+
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            itemTypes = Arrays.copyOf(itemTypes, capacity);
+            itemNameOffsets = Arrays.copyOf(itemNameOffsets, capacity);
+            deliveryCodeOffsets = Arrays.copyOf(deliveryCodeOffsets, capacity);
+            regionsOffsets = Arrays.copyOf(regionsOffsets, capacity);
+        }
+    }
+
+    /**
+     * 문자열 힙 쓰기
+     *
+     * 위치를 long 으로 세고, 매핑할 수 있는 크기(int 위치)를 넘기 전에 실패한다.
+     */
+    private static class HeapWriter {
+
+        final DataOutputStream out;
+        final long maxSize;
+
+        long position;
+
+        HeapWriter(DataOutputStream out, long maxSize) {
+            this.out = out;
+            this.maxSize = maxSize;
+        }
+
+        int writeString(String value) throws IOException {
+
+            if (value == null) {
+
+                return NULL;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int offset = reserve(4L + bytes.length);
+
+            out.writeInt(bytes.length);
+            out.write(bytes);
+
+            return offset;
+        }
+
+        int writeSharedString(Map<String, Integer> shared, String value) throws IOException {
+
+            if (value == null) {
+
+                return NULL;
+            }
+
+            Integer offset = shared.get(value);
+
+            if (offset == null) {
+
+                offset = writeString(value);
+                shared.put(value, offset);
+            }
+
+            return offset;
+        }
+
+        int writeRegions(Map<String, Integer> shared, List<String> regions) throws IOException {
+
+            if (regions == null) {
+
+                return NULL;
+            }
+
+            int[] offsets = new int[regions.size()];
+
+            for (int i = 0; i < offsets.length; i++) {
+
+                offsets[i] = writeSharedString(shared, regions.get(i));
+            }
+
+            int offset = reserve(4L + offsets.length * 4L);
+
+            out.writeInt(offsets.length);
+
+            for (int regionOffset : offsets) {
+
+                out.writeInt(regionOffset);
+            }
+
+            return offset;
+        }
+
+        /**
+         * @return 쓰기 시작할 힙 안의 위치
+         */
+        private int reserve(long length) throws IOException {
+
+            if (position + length > maxSize) {
+
+                throw new IOException("상품 스냅샷 파일이 최대 크기를 넘습니다. heap = " + (position + length) + ", maxSize = " + maxSize);
+            }
+
+            int offset = (int) position;
+
+            position += length;
+
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package hello.itemservice.domain.item;
+
+import java.util.List;
+
+/**
+ * 상품 데이터를 실제로 보관하는 저장 엔진
+ *
+ * ItemRepository 는 id 발급과 조회/수정 규칙을 담당하고,
+ * 데이터를 어떤 구조로 메모리에 보관할지는 ItemStore 구현체가 결정한다.
+ *
+ * 저장된 Item 은 변경하지 않는다. 수정이 필요하면 새 Item 을 만들어 put 으로 교체한다.
+ */
+public interface ItemStore {
+
+    /**
+     * id 로 상품 조회
+     *
+     * @param id
+     * @return 없으면 null
+     */
+    Item get(long id);
+
+    /**
+     * 상품 저장 (같은 id 가 있으면 교체)
+     *
+     * @param item id 가 채워진 상품
+     */
+    void put(Item item);
+
+    /**
+     * 상품 삭제
+     *
+     * @param id
+     */
+    void remove(long id);
+
+    /**
+     * 저장된 모든 상품
+     *
+     * @return
+     */
+    List<Item> values();
+
+    int size();
+
+    void clear();
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.domain.item;
+
+/**
+ * 상품 저장 엔진 종류
+ *
+ * HEAP : Item 객체를 그대로 ConcurrentHashMap 에 보관 (기본값)
+ * COLUMNAR : 숫자 필드를 기본형 배열에 나누어 보관. 상품 수가 많을 때 메모리 사용량이 적다.
+ */
+public enum ItemStoreType {
+
+    HEAP, COLUMNAR;
+
+    public ItemStore create() {
+
+        if (this == COLUMNAR) {
+
+            return new ColumnarItemStore();
+        }
+
+        return new HeapItemStore();
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.domain.item;
+
+import lombok.Getter;
+
+/**
+ * 상품 수정 충돌
+ *
+ * 수정 폼을 연 다음 다른 사용자가 먼저 같은 상품을 수정해서, 폼이 가지고 있는 수정 버전이 낡은 경우 발생한다.
+ */
+@Getter
+public class ItemVersionConflictException extends RuntimeException {
+
+    private final Item currentItem;
+
+    public ItemVersionConflictException(Item currentItem, Integer expectedVersion) {
+
+        super("다른 사용자가 먼저 상품을 수정했습니다. itemId = " + currentItem.getId()
+                + ", version = " + expectedVersion + ", currentVersion = " + currentItem.getVersion());
+
+        this.currentItem = currentItem;
+    }
+}
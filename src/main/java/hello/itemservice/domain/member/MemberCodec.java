@@ -0,0 +1,94 @@
+package hello.itemservice.domain.member;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 회원 저장소 로그 레코드 변환
+ *
+ * PUT : [1][회원] - 회원 가입
+ * CLEAR : [2][sequence] - 모든 회원 삭제, id 발급 번호는 유지
+ *
+ * 회원 : id, 로그인 아이디, 이름, 비밀번호
+ */
+public class MemberCodec {
+
+    public static final byte PUT = 1;
+    public static final byte CLEAR = 2;
+
+    private MemberCodec() {
+    }
+
+    public static byte[] put(Member member) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+            out.writeByte(PUT);
+            writeMember(out, member);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static byte[] clear(long sequence) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+            out.writeByte(CLEAR);
+            out.writeLong(sequence);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static void writeMember(DataOutput out, Member member) throws IOException {
+
+        out.writeLong(member.getId());
+        writeNullableUTF(out, member.getLoginId());
+        writeNullableUTF(out, member.getName());
+        writeNullableUTF(out, member.getPassword());
+    }
+
+    public static Member readMember(DataInput in) throws IOException {
+
+        Member member = new Member();
+
+        member.setId(in.readLong());
+        member.setLoginId(readNullableUTF(in));
+        member.setName(readNullableUTF(in));
+        member.setPassword(readNullableUTF(in));
+
+        return member;
+    }
+
+    private static void writeNullableUTF(DataOutput out, String value) throws IOException {
+
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInput in) throws IOException {
+
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -1,30 +1,125 @@
 package hello.itemservice.domain.member;
 
+import hello.itemservice.domain.wal.WriteAheadLog;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PreDestroy;
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 회원 저장소
+ *
+ * 회원 목록은 쓰기가 있을 때만 다시 만드는 읽기 전용 스냅샷으로 제공한다. (ItemRepository 와 같은 방식)
+ *
+ * 로그인 아이디로 바로 찾을 수 있도록 loginId -> Member 인덱스를 함께 관리한다.
+ * 쓰기(save, clearStore)는 synchronized 로 저장소와 인덱스를 함께 바꾸고, 조회는 잠금 없이 처리한다.
+ *
+ * wal.dir 속성이 있으면 ItemRepository 와 같은 방식으로 WriteAheadLog 에 기록하고 시작할 때 복구한다.
+ * 레코드를 먼저 만든 다음 저장소를 바꾸고, 디스크 기록이 실패하면 가입한 회원을 다시 삭제한다.
+ */
 @Slf4j
 @Repository
 public class MemberRepository {
 
-    private static Map<Long, Member> store = new HashMap<>();
-    private static long sequence = 0L;
+    private final Map<Long, Member> store = new ConcurrentHashMap<>();
+    private final Map<String, Member> loginIdIndex = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    private static final CompletableFuture<Void> LOGGED = CompletableFuture.completedFuture(null);
+
+    private final WriteAheadLog writeAheadLog;
+    private boolean recovered;
+
+    public MemberRepository() {
+
+        this.writeAheadLog = null;
+    }
+
+    /**
+     * 테스트에서 로그를 바꿔서 기록 실패를 재현할 때 사용 (복구, 압축 없음)
+     */
+    MemberRepository(WriteAheadLog writeAheadLog) {
+
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    @Autowired
+    public MemberRepository(
+            @Value("${wal.dir:}") String walDir,
+            @Value("${wal.compaction-interval-seconds:600}") long compactionIntervalSeconds
+    ) throws IOException {
+
+        this.writeAheadLog = walDir.isBlank() ? null : new WriteAheadLog(Paths.get(walDir), "members");
+
+        if (writeAheadLog != null) {
+
+            recovered = writeAheadLog.open(this::replay) > 0;
+            writeAheadLog.scheduleCompaction(sink -> {
+
+                sink.accept(MemberCodec.clear(sequence.get()));
+
+                for (Member member : findAll()) {
+
+                    sink.accept(MemberCodec.put(member));
+                }
+            }, compactionIntervalSeconds);
+        }
+    }
 
     /**
      * 회원 가입
      *
      * @param member
      * @return
+     * @throws IllegalStateException 이미 같은 로그인 아이디로 가입한 회원이 있는 경우
      */
     public Member save(Member member) {
 
-        member.setId(++sequence);
+        CompletableFuture<Void> logged;
 
-        log.info("save : member = {}", member);
+        synchronized (this) {
 
-        store.put(member.getId(), member);
+            if (loginIdIndex.containsKey(member.getLoginId())) {
+
+                throw new IllegalStateException("이미 존재하는 로그인 아이디입니다. loginId = " + member.getLoginId());
+            }
+
+            member.setId(sequence.incrementAndGet());
+
+            log.info("save : member = {}", member);
+
+            byte[] record = writeAheadLog == null ? null : MemberCodec.put(member);
+
+            logged = record == null ? LOGGED : writeAheadLog.append(record);
+            put(member);
+        }
+
+        try {
+
+            WriteAheadLog.await(logged);
+
+        } catch (RuntimeException e) {
+
+            synchronized (this) {
+
+                remove(member);
+            }
+
+            throw e;
+        }
 
         return member;
     }
@@ -48,32 +143,39 @@ public class MemberRepository {
      */
     public Optional<Member> findByLoginId(String loginId) {
 
-//        List<Member> all = findAll();
-//
-//        for (Member m : all) {
-//
-//            if (m.getLoginId().equals(loginId)) {
-//
-//                return Optional.of(m);
-//            }
-//        }
-//
-//        return Optional.empty();
-
-        // 위 코드를 해당 코드로 축약 가능
-        return findAll().stream()
-                .filter(m -> m.getLoginId().equals(loginId))
-                .findFirst();
+        if (loginId == null) {
+
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(loginIdIndex.get(loginId));
     }
 
     /**
      * 회원 리스트 조회
      *
+     * 반환된 리스트는 변경할 수 없다.
+     *
      * @return
      */
     public List<Member> findAll() {
 
-        return new ArrayList<>(store.values());
+        Snapshot current = snapshot.get();
+        long currentVersion = version.get();
+
+        if (current.version == currentVersion) {
+
+            return current.members;
+        }
+
+        List<Member> members = new ArrayList<>(store.values());
+        members.sort(Comparator.comparing(Member::getId));
+
+        Snapshot next = new Snapshot(currentVersion, Collections.unmodifiableList(members));
+
+        snapshot.compareAndSet(current, next);
+
+        return next.members;
     }
 
     /**
@@ -81,6 +183,104 @@ public class MemberRepository {
      */
     public void clearStore() {
 
+        CompletableFuture<Void> logged;
+
+        synchronized (this) {
+
+            byte[] record = writeAheadLog == null ? null : MemberCodec.clear(sequence.get());
+
+            clear();
+            logged = record == null ? LOGGED : writeAheadLog.append(record);
+        }
+
+        WriteAheadLog.await(logged);
+    }
+
+    /**
+     * 로그에서 복구한 데이터가 있는지 여부
+     *
+     * @return
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+
+        if (writeAheadLog != null) {
+
+            writeAheadLog.close();
+        }
+    }
+
+    private void put(Member member) {
+
+        store.put(member.getId(), member);
+        loginIdIndex.put(member.getLoginId(), member);
+        version.incrementAndGet();
+    }
+
+    /**
+     * 기록하지 못한 회원 삭제 (그 사이 리셋되었으면 그대로 둔다)
+     */
+    private void remove(Member member) {
+
+        if (store.remove(member.getId(), member)) {
+
+            loginIdIndex.remove(member.getLoginId(), member);
+            version.incrementAndGet();
+        }
+    }
+
+    private void clear() {
+
         store.clear();
+        loginIdIndex.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * 로그 레코드 복구
+     *
+     * @param in
+     * @throws IOException
+     */
+    private void replay(DataInput in) throws IOException {
+
+        byte type = in.readByte();
+
+        if (type == MemberCodec.PUT) {
+
+            Member member = MemberCodec.readMember(in);
+
+            put(member);
+            sequence.accumulateAndGet(member.getId(), Math::max);
+        }
+        else if (type == MemberCodec.CLEAR) {
+
+            clear();
+            sequence.accumulateAndGet(in.readLong(), Math::max);
+        }
+        else {
+
+            throw new IOException("알 수 없는 회원 로그 레코드입니다. type = " + type);
+        }
+    }
+
+    /**
+     * 특정 version 시점의 회원 목록
+     */
+    private static class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(0L, Collections.emptyList());
+
+        final long version;
+        final List<Member> members;
+
+        Snapshot(long version, List<Member> members) {
+            this.version = version;
+            this.members = members;
+        }
     }
 }
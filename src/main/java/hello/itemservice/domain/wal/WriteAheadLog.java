@@ -0,0 +1,600 @@
+package hello.itemservice.domain.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 쓰기 전 로그 (Write-Ahead Log)
+ *
+ * 저장소의 변경 내용을 레코드(byte[])로 파일 끝에 이어서 기록한다.
+ *
+ * - 그룹 커밋 : append 는 레코드를 큐에 넣기만 하고, 전용 스레드가 큐에 쌓인 레코드를 한 번에 쓰고 fsync 한다.
+ *              fsync 하는 동안 들어온 요청은 다음 배치에 함께 기록되므로 요청마다 fsync 하지 않는다.
+ * - 세대(generation) : 로그 파일은 {name}-{generation}.log 로 나누어 기록한다.
+ * - 압축(compact) : 새 세대로 넘어간 뒤 현재 상태 전체를 스냅샷 파일에 쓰고, 이전 세대 로그를 삭제한다.
+ * - 복구(open) : 스냅샷을 먼저 읽고 스냅샷 이후 세대의 로그를 순서대로 다시 적용한다.
+ *
+ * 레코드 형식 : [길이 int][CRC32 int][데이터]
+ * 마지막 레코드가 중간에 잘렸거나 CRC 가 맞지 않으면 그 이후는 무시한다.
+ * 그래서 쓰기가 실패하면 다음 레코드를 받기 전에 실패한 배치가 남긴 바이트를 잘라내고,
+ * 자를 수 없으면 새 세대로 넘어간다. (잘린 바이트 뒤에 이어 쓴 레코드는 복구할 수 없다)
+ *
+ * 복구와 압축이 올바르려면 레코드를 다시 적용해도 같은 결과가 나와야 한다. (같은 id 를 통째로 덮어쓰는 형태)
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    private static final int MAX_BATCH = 1024;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final int SNAPSHOT_MAGIC = 0x57414C53;
+
+    private final Path dir;
+    private final String name;
+    private final Pattern logFilePattern;
+    private final LogChannelOpener opener;
+
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Object channelLock = new Object();
+
+    private FileChannel channel;
+    private long generation;
+    private long writtenSize; // 현재 세대 로그에서 마지막으로 기록(fsync)에 성공한 끝 위치
+    private boolean damaged; // 쓰기 실패로 writtenSize 뒤에 잘못된 바이트가 남았을 수 있음
+
+    private Thread flusher;
+    private ScheduledExecutorService compactor;
+    private volatile boolean closed;
+
+    public WriteAheadLog(Path dir, String name) {
+        this(dir, name, WriteAheadLog::openLogChannel);
+    }
+
+    /**
+     * 테스트에서 로그 파일 채널을 바꿔서 쓰기 실패를 재현할 때 사용
+     */
+    WriteAheadLog(Path dir, String name, LogChannelOpener opener) {
+        this.dir = dir;
+        this.name = name;
+        this.logFilePattern = Pattern.compile(Pattern.quote(name) + "-(\\d+)\\.log");
+        this.opener = opener;
+    }
+
+    /**
+     * 스냅샷과 로그를 읽어서 복구한 다음 새 세대 로그를 열고 기록을 시작한다.
+     *
+     * @param handler 복구할 레코드를 순서대로 받는다.
+     * @return 복구한 레코드 수
+     * @throws IOException
+     */
+    public long open(RecordHandler handler) throws IOException {
+
+        Files.createDirectories(dir);
+
+        long count = 0;
+        long fromGeneration = 0;
+
+        Path snapshotFile = snapshotFile();
+
+        if (Files.exists(snapshotFile)) {
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+
+                    throw new IOException("스냅샷 파일 형식이 아닙니다. file = " + snapshotFile);
+                }
+
+                fromGeneration = in.readLong();
+                count += readRecords(in, handler);
+            }
+        }
+
+        long lastGeneration = fromGeneration - 1;
+
+        for (long logGeneration : logGenerations()) {
+
+            if (logGeneration >= fromGeneration) {
+
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile(logGeneration)))) {
+
+                    count += readRecords(in, handler);
+                }
+            }
+
+            lastGeneration = Math.max(lastGeneration, logGeneration);
+        }
+
+        // 마지막 로그 끝이 잘렸을 수 있으므로 이어 쓰지 않고 새 세대로 시작
+        generation = lastGeneration + 1;
+        channel = opener.open(logFile(generation));
+        writtenSize = channel.size();
+
+        flusher = new Thread(this::flushLoop, "wal-" + name);
+        flusher.setDaemon(true);
+        flusher.start();
+
+        log.info("WAL open : name = {}, records = {}, generation = {}", name, count, generation);
+
+        return count;
+    }
+
+    /**
+     * 레코드 기록 요청
+     *
+     * @param record
+     * @return 레코드가 디스크에 기록(fsync)되면 완료된다.
+     */
+    public CompletableFuture<Void> append(byte[] record) {
+
+        if (closed) {
+
+            throw new IllegalStateException("WAL 이 닫혔습니다. name = " + name);
+        }
+
+        PendingRecord pending = new PendingRecord(record);
+
+        queue.add(pending);
+
+        return pending.done;
+    }
+
+    /**
+     * 레코드가 디스크에 기록될 때까지 대기
+     *
+     * @param logged append 의 반환 값
+     */
+    public static void await(CompletableFuture<Void> logged) {
+
+        try {
+
+            logged.join();
+
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof IOException) {
+
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * 현재 상태를 스냅샷으로 저장하고 이전 로그를 삭제
+     *
+     * 새 세대로 먼저 넘어간 다음 상태를 읽으므로, 스냅샷을 쓰는 동안 들어온 변경은 새 세대 로그에 남는다.
+     *
+     * @param writer 현재 상태를 레코드로 기록
+     * @throws IOException
+     */
+    public synchronized void compact(SnapshotWriter writer) throws IOException {
+
+        long snapshotGeneration = rotate();
+
+        Path tempFile = dir.resolve(name + ".snapshot.tmp");
+
+        try (FileChannel tempChannel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(tempChannel)))) {
+
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+
+            writer.write(record -> writeRecord(out, record));
+
+            out.flush();
+            tempChannel.force(true);
+        }
+
+        Files.move(tempFile, snapshotFile(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long logGeneration : logGenerations()) {
+
+            if (logGeneration < snapshotGeneration) {
+
+                Files.deleteIfExists(logFile(logGeneration));
+            }
+        }
+
+        log.info("WAL compact : name = {}, generation = {}", name, snapshotGeneration);
+    }
+
+    /**
+     * 주기적으로 압축
+     *
+     * @param writer
+     * @param intervalSeconds
+     */
+    public void scheduleCompaction(SnapshotWriter writer, long intervalSeconds) {
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            Thread thread = new Thread(runnable, "wal-compact-" + name);
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        compactor.scheduleWithFixedDelay(() -> {
+
+            try {
+
+                compact(writer);
+
+            } catch (Exception e) {
+
+                log.error("WAL compact error : name = {}", name, e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        closed = true;
+
+        if (compactor != null) {
+
+            compactor.shutdownNow();
+        }
+
+        if (flusher != null) {
+
+            try {
+
+                flusher.join();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // 닫히는 중에 들어온 요청
+        List<PendingRecord> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        failAll(remaining, new IllegalStateException("WAL 이 닫혔습니다. name = " + name));
+
+        synchronized (channelLock) {
+
+            if (channel != null) {
+
+                channel.close();
+            }
+        }
+    }
+
+    private void flushLoop() {
+
+        List<PendingRecord> batch = new ArrayList<>(MAX_BATCH);
+
+        while (!closed || !queue.isEmpty()) {
+
+            try {
+
+                PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                writeBatch(batch);
+
+                for (PendingRecord pending : batch) {
+
+                    pending.done.complete(null);
+                }
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                failAll(batch, e);
+
+                return;
+
+            } catch (Exception e) {
+
+                log.error("WAL write error : name = {}", name, e);
+                failAll(batch, e);
+            }
+
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingRecord> batch) throws IOException {
+
+        int size = 0;
+
+        for (PendingRecord pending : batch) {
+
+            size += 8 + pending.record.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        for (PendingRecord pending : batch) {
+
+            buffer.putInt(pending.record.length);
+            buffer.putInt(crc(pending.record));
+            buffer.put(pending.record);
+        }
+
+        buffer.flip();
+
+        synchronized (channelLock) {
+
+            if (damaged) {
+
+                repair();
+            }
+
+            try {
+
+                while (buffer.hasRemaining()) {
+
+                    channel.write(buffer);
+                }
+
+                channel.force(false);
+
+            } catch (IOException e) {
+
+                damaged = true;
+
+                try {
+
+                    repair();
+
+                } catch (IOException repairError) {
+
+                    // 다음 배치를 쓰기 전에 다시 시도
+                    e.addSuppressed(repairError);
+                }
+
+                throw e;
+            }
+
+            writtenSize += size;
+        }
+    }
+
+    /**
+     * 실패한 쓰기가 남긴 바이트를 잘라낸다. 자를 수 없으면 새 세대로 넘어간다.
+     *
+     * fsync 가 실패한 배치도 실패로 알렸으므로 함께 잘라낸다.
+     */
+    private void repair() throws IOException {
+
+        try {
+
+            channel.truncate(writtenSize);
+            channel.force(false);
+
+            log.warn("WAL 쓰기 실패, 마지막 기록 위치로 잘라냄 : name = {}, generation = {}, size = {}", name, generation, writtenSize);
+
+        } catch (IOException e) {
+
+            log.warn("WAL 쓰기 실패, 잘라낼 수 없어 새 세대로 넘어감 : name = {}, generation = {}", name, generation, e);
+
+            closeQuietly(channel);
+
+            generation++;
+            channel = opener.open(logFile(generation));
+            writtenSize = channel.size();
+        }
+
+        damaged = false;
+    }
+
+    private void closeQuietly(FileChannel fileChannel) {
+
+        try {
+
+            fileChannel.close();
+
+        } catch (IOException e) {
+
+            log.warn("WAL 로그 닫기 실패 : name = {}", name, e);
+        }
+    }
+
+    private long rotate() throws IOException {
+
+        synchronized (channelLock) {
+
+            if (damaged) {
+
+                repair();
+            }
+
+            channel.force(false);
+            channel.close();
+
+            generation++;
+            channel = opener.open(logFile(generation));
+            writtenSize = channel.size();
+
+            return generation;
+        }
+    }
+
+    private static void failAll(List<PendingRecord> batch, Exception e) {
+
+        for (PendingRecord pending : batch) {
+
+            pending.done.completeExceptionally(e);
+        }
+    }
+
+    private long readRecords(InputStream input, RecordHandler handler) throws IOException {
+
+        DataInputStream in = input instanceof DataInputStream ? (DataInputStream) input : new DataInputStream(input);
+
+        long count = 0;
+
+        while (true) {
+
+            byte[] record;
+
+            try {
+
+                int length = in.readInt();
+                int crc = in.readInt();
+
+                if (length < 0 || length > MAX_RECORD_SIZE) {
+
+                    log.warn("WAL 레코드 길이 오류, 이후 레코드 무시 : name = {}, length = {}", name, length);
+                    return count;
+                }
+
+                record = new byte[length];
+                in.readFully(record);
+
+                if (crc(record) != crc) {
+
+                    log.warn("WAL 레코드 CRC 오류, 이후 레코드 무시 : name = {}", name);
+                    return count;
+                }
+
+            } catch (EOFException e) {
+
+                return count;
+            }
+
+            handler.handle(new DataInputStream(new ByteArrayInputStream(record)));
+            count++;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+
+        out.writeInt(record.length);
+        out.writeInt(crc(record));
+        out.write(record);
+    }
+
+    private static int crc(byte[] record) {
+
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        return (int) crc.getValue();
+    }
+
+    private List<Long> logGenerations() throws IOException {
+
+        List<Long> generations = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(dir)) {
+
+            files.forEach(file -> {
+
+                Matcher matcher = logFilePattern.matcher(file.getFileName().toString());
+
+                if (matcher.matches()) {
+
+                    generations.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+
+        generations.sort(null);
+
+        return generations;
+    }
+
+    private static FileChannel openLogChannel(Path file) throws IOException {
+
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path logFile(long logGeneration) {
+
+        return dir.resolve(name + "-" + logGeneration + ".log");
+    }
+
+    private Path snapshotFile() {
+
+        return dir.resolve(name + ".snapshot");
+    }
+
+    /**
+     * 복구할 레코드 처리
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        void handle(DataInput in) throws IOException;
+    }
+
+    /**
+     * 스냅샷에 현재 상태 기록
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+
+        void write(RecordSink sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RecordSink {
+
+        void accept(byte[] record) throws IOException;
+    }
+
+    /**
+     * 로그 파일 채널 열기
+     */
+    @FunctionalInterface
+    interface LogChannelOpener {
+
+        FileChannel open(Path file) throws IOException;
+    }
+
+    private static class PendingRecord {
+
+        final byte[] record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingRecord(byte[] record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package hello.itemservice.upload.controller;
+
+import hello.itemservice.upload.file.ImageCache;
+import hello.itemservice.upload.file.ImageCacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 내부 확인용 이미지 캐시 지표 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class ImageCacheController {
+
+    private final ImageCache imageCache;
+
+    /**
+     * 이미지 캐시 크기와 적중률
+     *
+     * @return
+     */
+    @GetMapping("/internal/image-cache")
+    public ImageCacheStats imageCache() {
+
+        return imageCache.getStats();
+    }
+}
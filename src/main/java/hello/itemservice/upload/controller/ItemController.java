@@ -3,23 +3,23 @@ package hello.itemservice.upload.controller;
 import hello.itemservice.upload.domain.Item;
 import hello.itemservice.upload.domain.UploadFile;
 import hello.itemservice.upload.domain.UploadItemRepository;
+import hello.itemservice.upload.file.FileSender;
 import hello.itemservice.upload.file.FileStore;
+import hello.itemservice.upload.file.MultipartUpload;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.util.UriUtils;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.nio.file.Path;
 
 @Slf4j
 @Controller
@@ -28,6 +28,7 @@ public class ItemController {
 
     private final UploadItemRepository uploadItemRepository;
     private final FileStore fileStore;
+    private final FileSender fileSender;
 
     /**
      * 등록 폼 출력
@@ -44,23 +45,24 @@ public class ItemController {
     /**
      * 폼의 데이터를 저장하고 보여주는 화면으로 리다이렉트
      *
-     * @param form
+     * 요청 본문을 직접 스트리밍으로 읽어서 파일을 file.dir 에 바로 저장한다. (FileStore.storeMultipart)
+     * spring.servlet.multipart.resolve-lazily=true 이므로 파라미터를 조회하지 않는 한 컨테이너가 본문을 먼저 읽지 않는다.
+     *
+     * @param request
      * @param redirectAttributes
      * @return
      * @throws IOException
      */
     @PostMapping("/items/new")
-    public String saveItem(@ModelAttribute ItemForm form, RedirectAttributes redirectAttributes) throws IOException {
-
-        UploadFile attachFile = fileStore.storeFile(form.getAttachFile());
+    public String saveItem(HttpServletRequest request, RedirectAttributes redirectAttributes) throws IOException {
 
-        List<UploadFile> storeImageFiles = fileStore.storeFiles(form.getImageFiles());
+        MultipartUpload upload = fileStore.storeMultipart(request.getInputStream(), request.getContentType());
 
         Item item = new Item();
 
-        item.setItemName(form.getItemName());
-        item.setAttachFile(attachFile);
-        item.setImageFiles(storeImageFiles);
+        item.setItemName(upload.getParameter("itemName"));
+        item.setAttachFile(upload.getFile("attachFile"));
+        item.setImageFiles(upload.getFiles("imageFiles"));
 
         uploadItemRepository.save(item);
 
@@ -69,6 +71,23 @@ public class ItemController {
         return "redirect:/items/{itemId}";
     }
 
+    /**
+     * 스트리밍 업로드에서 파일, 요청 또는 일반 필드가 최대 크기를 넘은 경우 413 으로 응답
+     *
+     * 컨테이너의 multipart 처리를 거치지 않으므로 컨트롤러 안에서 던진 예외를 직접 상태 코드로 바꾼다.
+     *
+     * @param e
+     * @param response
+     * @throws IOException
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public void uploadSizeExceeded(MaxUploadSizeExceededException e, HttpServletResponse response) throws IOException {
+
+        log.info("업로드 최대 크기 초과 : {}", e.getMessage());
+
+        response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    }
+
     /**
      * 상품 출력
      *
@@ -86,40 +105,83 @@ public class ItemController {
         return "item/view";
     }
 
+    /**
+     * 상품 삭제
+     *
+     * 첨부 파일과 이미지 파일의 참조를 해제한다. 내용 주소 방식(file.store.type=CONTENT)이면 다른 상품이 같은 파일을 쓰는 동안은 지우지 않는다.
+     *
+     * @param id
+     * @return
+     * @throws IOException
+     */
+    @PostMapping("/items/{id}/delete")
+    public String deleteItem(@PathVariable Long id) throws IOException {
+
+        Item item = uploadItemRepository.delete(id);
+
+        if (item != null) {
+
+            fileStore.release(item.getAttachFile());
+
+            for (UploadFile imageFile : item.getImageFiles()) {
+
+                fileStore.release(imageFile);
+            }
+        }
+
+        return "redirect:/items/new";
+    }
+
     /**
      * <img> 태그로 이미지를 조회할 때 사용
      *
+     * ETag, Last-Modified 로 브라우저 캐시가 맞으면 304 로 응답한다. 작은 이미지는 메모리 캐시(ImageCache)에서 보낸다.
+     *
      * @param filename
-     * @return
-     * @throws MalformedURLException
+     * @param request
+     * @param response
+     * @throws IOException
      */
-    @ResponseBody
     @GetMapping("/images/{filename}")
-    public Resource downloadImage(@PathVariable String filename) throws MalformedURLException {
+    public void downloadImage(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        Path path = fileStore.findPath(filename);
 
-        // UrlResource 로 이미지 파일을 읽어서 @ResponseBody 로 이미지 바이너리를 반환
-        return new UrlResource("file:" + fileStore.getFullPath(filename));
+        if (path == null) {
+
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+
+            return;
+        }
+
+        fileSender.sendImage(request, response, path);
     }
 
     /**
      * 파일을 다운로드할 때 실행
      *
+     * Range 요청을 지원하므로 큰 첨부 파일은 이어 받을 수 있다.
+     *
      * @param itemId
-     * @return
-     * @throws MalformedURLException
+     * @param request
+     * @param response
+     * @throws IOException
      */
     @GetMapping("/attach/{itemId}")
-    public ResponseEntity<Resource> downloadAttach(
-            @PathVariable Long itemId
-    ) throws MalformedURLException {
+    public void downloadAttach(@PathVariable Long itemId, HttpServletRequest request, HttpServletResponse response) throws IOException {
 
         Item item = uploadItemRepository.findById(itemId);
 
+        if (item == null || item.getAttachFile() == null) {
+
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+
+            return;
+        }
+
         String storeFileName = item.getAttachFile().getStoreFileName();
         String uploadFileName = item.getAttachFile().getUploadFileName();
 
-        UrlResource resource = new UrlResource("file:" + fileStore.getFullPath(storeFileName));
-
         log.info("uploadFileName = {}", uploadFileName);
 
         // 한글파일명 깨짐 방지
@@ -128,9 +190,6 @@ public class ItemController {
         // 파일이 다운로드될 수 있도록 헤더 추가
         String contentDisposition = "attachment; filename=\"" + encodedUploadFileName + "\"";
 
-        return ResponseEntity
-                .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                .body(resource);
+        fileSender.send(request, response, fileStore.findPath(storeFileName), contentDisposition);
     }
 }
@@ -27,4 +27,13 @@ public class UploadItemRepository {
 
         return store.get(id);
     }
+
+    /**
+     * @param id
+     * @return 삭제한 상품, 없으면 null
+     */
+    public Item delete(Long id) {
+
+        return store.remove(id);
+    }
 }
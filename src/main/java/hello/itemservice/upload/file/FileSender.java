@@ -0,0 +1,378 @@
+package hello.itemservice.upload.file;
+
+import hello.itemservice.upload.file.ImageCache.CachedFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+/**
+ * 저장 파일을 응답으로 보내기
+ *
+ * - 조건부 요청 : If-None-Match, If-Modified-Since 가 맞으면 파일을 읽지 않고 304
+ * - 범위 요청 : Range (범위 하나만, If-Range 포함) 는 206, 범위가 파일 밖이면 416. 범위가 여러 개면 전체를 보낸다.
+ * - 본문 : Tomcat 이 sendfile 을 지원하면 요청 속성으로 파일과 범위만 넘겨서 커널이 바로 소켓으로 보내게 하고,
+ *          아니면 FileChannel.transferTo 로 보낸다.
+ *
+ * 저장 파일은 한 번 쓰면 바뀌지 않으므로 강한 ETag 를 쓸 수 있다.
+ * 내용 주소 방식(FileStoreType.CONTENT) 파일은 파일명의 SHA-256, 그 외에는 크기와 수정 시각으로 만든다.
+ *
+ * sendImage 는 작은 이미지를 ImageCache 에서 보내므로 캐시에 있으면 파일 시스템에 접근하지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileSender {
+
+    // Tomcat DefaultServlet 과 같은 기준. 작은 파일은 sendfile 준비 비용이 더 크다.
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+
+    // 요청한 범위가 파일 밖
+    private static final long[] NOT_SATISFIABLE = new long[0];
+
+    private final ImageCache imageCache;
+
+    /**
+     * 이미지 보내기 (작은 파일은 캐시에서)
+     *
+     * @param request
+     * @param response
+     * @param path 저장 파일
+     * @throws IOException
+     */
+    public void sendImage(HttpServletRequest request, HttpServletResponse response, Path path) throws IOException {
+
+        CachedFile cachedFile;
+
+        try {
+
+            cachedFile = imageCache.get(path.getFileName().toString(), path);
+
+        } catch (NoSuchFileException e) {
+
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+
+            return;
+        }
+
+        if (cachedFile == null) {
+
+            // 캐시하기에는 큰 파일
+            send(request, response, path, null);
+
+            return;
+        }
+
+        send(request, response, path, cachedFile.getSize(), cachedFile.getLastModified(), null, cachedFile);
+    }
+
+    /**
+     * @param request
+     * @param response
+     * @param path 저장 파일
+     * @param contentDisposition null 이면 보내지 않음
+     * @throws IOException
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, Path path, String contentDisposition) throws IOException {
+
+        BasicFileAttributes attributes;
+
+        try {
+
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        } catch (NoSuchFileException e) {
+
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+
+            return;
+        }
+
+        send(request, response, path, attributes.size(), attributes.lastModifiedTime().toMillis(), contentDisposition, null);
+    }
+
+    /**
+     * @param cachedFile null 이면 파일에서 보낸다.
+     */
+    private void send(HttpServletRequest request, HttpServletResponse response, Path path, long size, long lastModifiedMillis,
+                      String contentDisposition, CachedFile cachedFile) throws IOException {
+
+        // HTTP 날짜는 초 단위
+        long lastModified = lastModifiedMillis / 1000 * 1000;
+        String eTag = eTag(path, size, lastModified);
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, eTag, lastModified)) {
+
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+            return;
+        }
+
+        long start = 0;
+        long length = size;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+
+        if (rangeHeader != null && ifRangeMatches(request, eTag, lastModified)) {
+
+            long[] range = parseRange(rangeHeader, size);
+
+            if (range == NOT_SATISFIABLE) {
+
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+
+                return;
+            }
+
+            if (range != null) {
+
+                start = range[0];
+                length = range[1] - range[0] + 1;
+
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+            }
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(length);
+
+        if (contentDisposition != null) {
+
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+
+            return;
+        }
+
+        if (cachedFile != null) {
+
+            ByteBuffer content = cachedFile.getContent();
+            content.position((int) start).limit((int) (start + length));
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+
+            while (content.hasRemaining()) {
+
+                out.write(content);
+            }
+
+            return;
+        }
+
+        if (length >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+
+            // 응답을 마칠 때 Tomcat 이 파일을 소켓으로 바로 보낸다. (사용자 영역 복사 없음)
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+
+            long position = start;
+            long end = start + length;
+
+            while (position < end) {
+
+                long transferred = channel.transferTo(position, end - position, out);
+
+                if (transferred <= 0) {
+
+                    throw new IOException("파일이 보내는 중에 줄어들었습니다. path = " + path);
+                }
+
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * 강한 ETag
+     */
+    static String eTag(Path path, long size, long lastModified) {
+
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot < 0 ? fileName : fileName.substring(0, dot);
+
+        if (SHA_256.matcher(baseName).matches()) {
+
+            return "\"" + baseName + "\"";
+        }
+
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * If-None-Match 가 있으면 그것만 보고 (약한 비교), 없으면 If-Modified-Since 로 판단
+     */
+    private static boolean notModified(HttpServletRequest request, String eTag, long lastModified) {
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        if (ifNoneMatch != null) {
+
+            for (String candidate : ifNoneMatch.split(",")) {
+
+                candidate = candidate.trim();
+
+                if (candidate.startsWith("W/")) {
+
+                    candidate = candidate.substring(2);
+                }
+
+                if (candidate.equals("*") || candidate.equals(eTag)) {
+
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 가 없거나 현재 파일과 같으면 true (ETag 는 강한 비교, 날짜는 Last-Modified 와 정확히 같아야 한다)
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String eTag, long lastModified) {
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+        if (ifRange == null) {
+
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+
+            return ifRange.equals(eTag);
+        }
+
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    /**
+     * @return 형식이 잘못된 경우 -1
+     */
+    private static long dateHeader(HttpServletRequest request, String name) {
+
+        try {
+
+            return request.getDateHeader(name);
+
+        } catch (IllegalArgumentException e) {
+
+            log.debug("날짜 형식이 아닌 {} 헤더 무시", name);
+
+            return -1;
+        }
+    }
+
+    /**
+     * Range 헤더 해석 (bytes=시작-끝, bytes=시작-, bytes=-마지막 길이)
+     *
+     * @param rangeHeader
+     * @param size 파일 크기
+     * @return {시작, 끝(포함)}. 무시하고 전체를 보내야 하면 null, 파일 밖이면 NOT_SATISFIABLE
+     */
+    static long[] parseRange(String rangeHeader, long size) {
+
+        if (!rangeHeader.startsWith("bytes=")) {
+
+            return null;
+        }
+
+        String spec = rangeHeader.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+
+        // 여러 범위는 지원하지 않는다. (multipart/byteranges)
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+
+            return null;
+        }
+
+        try {
+
+            long start;
+            long end;
+
+            if (dash == 0) {
+
+                long suffixLength = Long.parseLong(spec.substring(1));
+
+                if (suffixLength <= 0 || size == 0) {
+
+                    return NOT_SATISFIABLE;
+                }
+
+                start = Math.max(0, size - suffixLength);
+                end = size - 1;
+            }
+            else {
+
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+
+                if (start < 0 || end < start) {
+
+                    return null;
+                }
+
+                if (start >= size) {
+
+                    return NOT_SATISFIABLE;
+                }
+
+                end = Math.min(end, size - 1);
+            }
+
+            return new long[]{start, end};
+
+        } catch (NumberFormatException e) {
+
+            return null;
+        }
+    }
+}
@@ -1,40 +1,145 @@
 package hello.itemservice.upload.file;
 
 import hello.itemservice.upload.domain.UploadFile;
+import hello.itemservice.util.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 파일 저장과 관련된 업무 처리
+ *
+ * 상품 등록 화면(ItemController.saveItem)이 쓰는 storeMultipart 는 요청 본문 하나를 앞에서부터 읽으면서
+ * 파트를 요청 스레드에서 차례대로 바로 쓴다. 파트를 동시에 쓰려면 파트 내용을 메모리에 모아야 해서 스트리밍의 이점이 없어지므로
+ * 파일을 동시에 저장하지 않는다.
+ *
+ * file.store.type=CONTENT 이면 내용 주소 방식으로 저장한다.
+ * 쓰면서 SHA-256 을 계산해 임시 파일에 쓰고, 다 쓰면 "SHA-256.확장자" 이름으로 옮긴다. 같은 파일이 이미 있으면 임시 파일만 지운다.
+ * 저장 파일 하나를 여러 UploadFile 이 공유하므로, 지울 때는 release 로 참조 수를 줄이고 0 이 되면 파일을 지운다.
+ * 참조 수는 메모리에만 보관한다. (상품 저장소도 메모리에만 있다)
  */
 @Component
 public class FileStore {
 
-    @Value("${file.dir}")
-    private String fileDir;
+    // 스트리밍 업로드에서 일반 필드 값 최대 크기, 요청 하나의 일반 필드 개수와 이름 + 값 합계 최대 크기
+    private static final long MAX_PARAMETER_SIZE = 64 * 1024;
+    private static final int MAX_PARAMETER_COUNT = 1000;
+    private static final long MAX_TOTAL_PARAMETER_SIZE = 1024 * 1024;
+
+    // CONTENT 방식에서 내용을 다 쓰기 전 임시 파일명 앞부분
+    private static final String TEMP_FILE_PREFIX = ".upload-";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String fileDir;
+    private final FileStoreType storeType;
+
+    // 스트리밍 업로드는 컨테이너의 multipart 처리를 거치지 않으므로 크기 제한을 따로 둔다.
+    private final DataSize maxFileSize;
+    private final DataSize maxRequestSize;
+
+    // 파일을 지울 때 캐시에서도 제거
+    private final ImageCache imageCache;
+
+    // CONTENT 방식 저장 파일명 -> 참조하는 UploadFile 수
+    private final ConcurrentHashMap<String, Integer> references = new ConcurrentHashMap<>();
+
+    /**
+     * @param fileDir 파일 저장 경로
+     * @param storeType 저장 파일명 방식
+     * @param maxFileSize 스트리밍 업로드 파일 하나의 최대 크기
+     * @param maxRequestSize 스트리밍 업로드 요청 하나의 최대 크기
+     * @param imageCache
+     */
+    @Autowired
+    public FileStore(
+            @Value("${file.dir}") String fileDir,
+            @Value("${file.store.type:RANDOM}") FileStoreType storeType,
+            @Value("${file.upload.max-file-size:1GB}") DataSize maxFileSize,
+            @Value("${file.upload.max-request-size:2GB}") DataSize maxRequestSize,
+            ImageCache imageCache
+    ) {
+
+        this.fileDir = fileDir;
+        this.storeType = storeType;
+        this.maxFileSize = maxFileSize;
+        this.maxRequestSize = maxRequestSize;
+        this.imageCache = imageCache;
+    }
 
     public String getFullPath(String fileName) {
 
         return fileDir + fileName;
     }
 
+    /**
+     * 요청으로 받은 저장 파일명의 경로
+     *
+     * @param storeFileName
+     * @return 저장 파일명 형식이 아니면 (경로 구분자가 있거나 . 으로 시작) null
+     */
+    public Path findPath(String storeFileName) {
+
+        if (storeFileName == null || storeFileName.isEmpty() || storeFileName.startsWith(".")
+                || storeFileName.indexOf('/') >= 0 || storeFileName.indexOf('\\') >= 0) {
+
+            return null;
+        }
+
+        return Paths.get(getFullPath(storeFileName));
+    }
+
+    /**
+     * 여러 파일 저장
+     *
+     * 하나라도 실패하면 이번에 저장한 파일을 모두 release 하고 예외를 던진다.
+     *
+     * @param multipartFiles
+     * @return 빈 파일을 제외하고 multipartFiles 순서대로 저장한 파일
+     * @throws IOException
+     */
     public List<UploadFile> storeFiles(List<MultipartFile> multipartFiles) throws IOException {
 
-        List<UploadFile> storeFileResult = new ArrayList<>();
+        List<UploadFile> storeFileResult = new ArrayList<>(multipartFiles.size());
 
-        for (MultipartFile multipartFile : multipartFiles) {
+        try {
 
-            if (!multipartFile.isEmpty()) {
+            for (MultipartFile multipartFile : multipartFiles) {
 
-                storeFileResult.add(storeFile(multipartFile));
+                if (!multipartFile.isEmpty()) {
+
+                    storeFileResult.add(storeFile(multipartFile));
+                }
             }
+
+        } catch (IOException | RuntimeException e) {
+
+            releaseQuietly(storeFileResult, e);
+
+            throw e;
         }
 
         return storeFileResult;
@@ -48,15 +153,321 @@ public class FileStore {
         }
 
         String originalFilename = multipartFile.getOriginalFilename();
-        String storeFileName = createStoreFileName(originalFilename);
 
-        multipartFile.transferTo(new File(getFullPath(storeFileName)));
+        if (storeType == FileStoreType.RANDOM) {
+
+            String storeFileName = createStoreFileName(originalFilename);
+            File file = new File(getFullPath(storeFileName));
+
+            try {
+
+                // 컨테이너 임시 파일이면 복사하지 않고 이름만 바꾼다.
+                multipartFile.transferTo(file);
+
+            } catch (IOException | RuntimeException e) {
+
+                // 일부만 쓰인 파일을 남기지 않는다.
+                Files.deleteIfExists(file.toPath());
+
+                throw e;
+            }
+
+            return new UploadFile(originalFilename, storeFileName);
+        }
+
+        try (ReadableByteChannel in = Channels.newChannel(multipartFile.getInputStream())) {
+
+            return storeContent(originalFilename, out -> copy(in, out));
+        }
+    }
+
+    /**
+     * 저장 파일 참조 해제
+     *
+     * RANDOM 방식은 바로 지우고, CONTENT 방식은 참조 수를 줄여서 0 이 되면 지운다.
+     *
+     * @param uploadFile null 이면 무시
+     * @throws IOException
+     */
+    public void release(UploadFile uploadFile) throws IOException {
+
+        if (uploadFile == null) {
+
+            return;
+        }
+
+        Path path = Paths.get(getFullPath(uploadFile.getStoreFileName()));
+
+        if (storeType == FileStoreType.RANDOM) {
+
+            Files.deleteIfExists(path);
+            imageCache.invalidate(uploadFile.getStoreFileName());
+
+            return;
+        }
+
+        try {
+
+            references.compute(uploadFile.getStoreFileName(), (storeFileName, count) -> {
+
+                if (count != null && count > 1) {
+
+                    return count - 1;
+                }
+
+                try {
+
+                    Files.deleteIfExists(path);
+                    imageCache.invalidate(storeFileName);
+
+                } catch (IOException e) {
+
+                    throw new UncheckedIOException(e);
+                }
+
+                return null;
+            });
+
+        } catch (UncheckedIOException e) {
+
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * CONTENT 방식에서 저장 파일을 참조하는 UploadFile 수
+     *
+     * @param storeFileName
+     * @return
+     */
+    public int getReferenceCount(String storeFileName) {
+
+        return references.getOrDefault(storeFileName, 0);
+    }
+
+    private void releaseQuietly(List<UploadFile> uploadFiles, Throwable failure) {
+
+        for (UploadFile uploadFile : uploadFiles) {
+
+            try {
+
+                release(uploadFile);
+
+            } catch (IOException e) {
+
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * multipart 요청 본문을 스트리밍으로 읽으면서 파일 파트를 file.dir 의 최종 위치에 바로 저장
+     *
+     * 서블릿 컨테이너의 임시 파일이나 메모리 버퍼를 거치지 않으므로 본문은 한 번 읽고 한 번 쓴다.
+     * 파트는 본문 순서대로 요청 스레드에서 저장한다. (저장 스레드 풀을 사용하지 않는다)
+     * 중간에 실패하면 이 요청에서 저장한 파일은 모두 release 한다.
+     * 일반 필드 값은 메모리에 보관하므로 값 하나(MAX_PARAMETER_SIZE)뿐 아니라 개수와 합계 크기도 제한한다.
+     *
+     * @param body 요청 본문 (아직 읽지 않은 상태여야 한다)
+     * @param contentType 요청 Content-Type
+     * @return
+     * @throws IOException
+     * @throws IllegalArgumentException multipart/form-data 요청이 아닌 경우
+     * @throws org.springframework.web.multipart.MaxUploadSizeExceededException 파일, 요청 또는 일반 필드가 최대 크기나 개수를 넘은 경우
+     */
+    public MultipartUpload storeMultipart(InputStream body, String contentType) throws IOException {
+
+        MultipartStreamParser parser = new MultipartStreamParser(body, MultipartStreamParser.boundaryOf(contentType), maxRequestSize.toBytes());
+        MultipartUpload upload = new MultipartUpload();
+        List<UploadFile> storedFiles = new ArrayList<>();
+        int parameterCount = 0;
+        long parameterSize = 0;
+
+        try {
+
+            while (parser.nextPart()) {
+
+                String originalFilename = parser.getFilename();
+
+                if (originalFilename == null) {
+
+                    String name = parser.getName();
+                    String value = parser.readString(Math.min(MAX_PARAMETER_SIZE, MAX_TOTAL_PARAMETER_SIZE - parameterSize));
+
+                    parameterSize += (name == null ? 0 : name.length()) + value.length();
+
+                    if (++parameterCount > MAX_PARAMETER_COUNT || parameterSize > MAX_TOTAL_PARAMETER_SIZE) {
+
+                        throw new MaxUploadSizeExceededException(MAX_TOTAL_PARAMETER_SIZE);
+                    }
+
+                    upload.addParameter(name, value);
+
+                    continue;
+                }
+
+                // 파일을 선택하지 않은 파일 입력
+                if (originalFilename.isEmpty()) {
+
+                    continue;
+                }
+
+                UploadFile uploadFile = storeContent(originalFilename, out -> parser.transferTo(out, maxFileSize.toBytes()));
+
+                if (uploadFile != null) {
+
+                    storedFiles.add(uploadFile);
+                    upload.addFile(parser.getName(), uploadFile);
+                }
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            releaseQuietly(storedFiles, e);
+
+            throw e;
+        }
+
+        return upload;
+    }
+
+    /**
+     * 내용을 채널로 받아서 저장
+     *
+     * @param originalFilename
+     * @param writer 저장 파일 채널에 내용을 쓰고 쓴 크기를 반환
+     * @return 내용이 없으면 저장하지 않고 null
+     * @throws IOException
+     */
+    private UploadFile storeContent(String originalFilename, ContentWriter writer) throws IOException {
+
+        boolean contentAddressed = storeType == FileStoreType.CONTENT;
+
+        String fileName = contentAddressed ? TEMP_FILE_PREFIX + IdGenerator.secureId() : createStoreFileName(originalFilename);
+        Path path = Paths.get(getFullPath(fileName));
+        MessageDigest digest = contentAddressed ? sha256() : null;
+        long size;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+
+            size = writer.write(contentAddressed ? new DigestChannel(channel, digest) : channel);
+
+        } catch (IOException | RuntimeException e) {
+
+            // 일부만 쓰인 파일을 남기지 않는다.
+            Files.deleteIfExists(path);
+
+            throw e;
+        }
+
+        if (size == 0) {
+
+            Files.delete(path);
+
+            return null;
+        }
+
+        if (!contentAddressed) {
+
+            return new UploadFile(originalFilename, fileName);
+        }
+
+        String storeFileName = hex(digest.digest()) + "." + extractExt(originalFilename);
+
+        retain(storeFileName, path);
 
         return new UploadFile(originalFilename, storeFileName);
     }
 
     /**
-     * 서버 내부에서 관리하는 파일명은 유일한 이름을 생성하는 UUID 를 사용해서 충돌하지 않도록 한다.
+     * 저장 파일 참조 수를 늘리고, 처음 저장하는 내용이면 임시 파일을 저장 파일명으로 옮긴다.
+     *
+     * release 와 같은 키로 compute 하므로, 마지막 참조를 해제하면서 지우는 파일에 새 참조가 붙지 않는다.
+     */
+    private void retain(String storeFileName, Path tempFile) throws IOException {
+
+        Path path = Paths.get(getFullPath(storeFileName));
+
+        try {
+
+            references.compute(storeFileName, (key, count) -> {
+
+                try {
+
+                    if (Files.exists(path)) {
+
+                        // 이미 같은 내용이 있다.
+                        Files.delete(tempFile);
+                    }
+                    else {
+
+                        Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+                    }
+
+                } catch (IOException e) {
+
+                    throw new UncheckedIOException(e);
+                }
+
+                return count == null ? 1 : count + 1;
+            });
+
+        } catch (UncheckedIOException e) {
+
+            Files.deleteIfExists(tempFile);
+
+            throw e.getCause();
+        }
+    }
+
+    private static long copy(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long size = 0;
+
+        while (in.read(buffer) >= 0) {
+
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+
+                size += out.write(buffer);
+            }
+
+            buffer.clear();
+        }
+
+        return size;
+    }
+
+    private static MessageDigest sha256() {
+
+        try {
+
+            return MessageDigest.getInstance("SHA-256");
+
+        } catch (NoSuchAlgorithmException e) {
+
+            // 모든 자바 플랫폼은 SHA-256 을 지원해야 한다.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * 서버 내부에서 관리하는 파일명은 추측할 수 없는 임의의 값(IdGenerator.secureId)을 사용해서 충돌하지 않도록 한다.
      *
      * @param originalFilename
      * @return
@@ -66,7 +477,7 @@ public class FileStore {
         String ext = extractExt(originalFilename);
 
         // 서버에 저장하는 파일명
-        String uuid = UUID.randomUUID().toString();
+        String uuid = IdGenerator.secureId();
 
         // 추출한 확장자를 서버 내부에서 관리하는 파일명에도 붙여준다.
         return uuid + "." + ext;
@@ -84,4 +495,47 @@ public class FileStore {
 
         return originalFilename.substring(pos + 1);
     }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+
+        long write(WritableByteChannel out) throws IOException;
+    }
+
+    /**
+     * 쓰는 내용으로 해시를 함께 계산하는 채널 (내용을 다시 읽지 않는다)
+     */
+    private static class DigestChannel implements WritableByteChannel {
+
+        private final WritableByteChannel channel;
+        private final MessageDigest digest;
+
+        DigestChannel(WritableByteChannel channel, MessageDigest digest) {
+
+            this.channel = channel;
+            this.digest = digest;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+
+            ByteBuffer written = src.duplicate();
+            int length = channel.write(src);
+
+            written.limit(written.position() + length);
+            digest.update(written);
+
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package hello.itemservice.upload.file;
+
+/**
+ * 저장 파일명 방식
+ *
+ * RANDOM : 업로드할 때마다 임의의 파일명으로 새로 저장 (기본값)
+ * CONTENT : 내용의 SHA-256 값을 파일명으로 사용. 같은 내용은 한 번만 저장하고, 참조하는 UploadFile 수를 센다.
+ */
+public enum FileStoreType {
+
+    RANDOM, CONTENT
+}
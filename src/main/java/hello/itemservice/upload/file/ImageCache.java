@@ -0,0 +1,321 @@
+package hello.itemservice.upload.file;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 자주 조회하는 작은 이미지 파일 캐시
+ *
+ * 파일 내용을 direct ByteBuffer 에 보관하고, 크기와 수정 시각도 함께 보관하므로 캐시에 있으면 파일 시스템에 접근하지 않는다.
+ * 저장 파일은 한 번 쓰면 바뀌지 않으므로, 파일을 지울 때만 invalidate 하면 된다.
+ *
+ * 세그먼트 LRU 로 교체한다.
+ * - 처음 읽은 파일은 probation 구간에 들어가고, 캐시에 있을 때 다시 조회되면 protected 구간으로 올라간다.
+ * - protected 구간이 최대 크기의 80% 를 넘으면 가장 오래된 파일을 probation 으로 내린다.
+ * - 전체 크기를 넘으면 probation 에서 가장 오래된 파일부터 제거한다.
+ * 한 번만 조회되는 이미지가 많이 지나가도 자주 조회되는 이미지는 protected 구간에 남는다.
+ */
+@Component
+public class ImageCache {
+
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final long maxBytes;
+    private final long maxFileSize;
+    private final long protectedMaxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 접근 순서 (가장 오래된 것이 앞)
+    private final LinkedHashMap<String, CachedFile> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, CachedFile> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long probationBytes;
+    private long protectedBytes;
+    private long evictions;
+
+    // 파일을 읽는 동안 invalidate 되었으면 읽은 내용을 넣지 않는다.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxBytes 캐시 최대 크기. 0 이면 캐시하지 않음
+     * @param maxFileSize 이보다 큰 파일은 캐시하지 않음
+     */
+    @Autowired
+    public ImageCache(
+            @Value("${image-cache.max-size:64MB}") DataSize maxBytes,
+            @Value("${image-cache.max-file-size:256KB}") DataSize maxFileSize
+    ) {
+
+        this(maxBytes.toBytes(), maxFileSize.toBytes());
+    }
+
+    ImageCache(long maxBytes, long maxFileSize) {
+
+        this.maxBytes = maxBytes;
+        this.maxFileSize = Math.min(maxFileSize, maxBytes);
+        this.protectedMaxBytes = maxBytes * PROTECTED_PERCENT / 100;
+    }
+
+    /**
+     * 캐시된 파일 조회, 없으면 파일을 읽어서 캐시
+     *
+     * @param storeFileName 캐시 키
+     * @param path 저장 파일
+     * @return 파일이 너무 크면 null
+     * @throws java.nio.file.NoSuchFileException 파일이 없는 경우
+     * @throws IOException
+     */
+    public CachedFile get(String storeFileName, Path path) throws IOException {
+
+        CachedFile cachedFile = find(storeFileName);
+
+        if (cachedFile != null) {
+
+            hits.increment();
+
+            return cachedFile;
+        }
+
+        misses.increment();
+
+        long invalidationsBeforeRead = invalidations.get();
+
+        cachedFile = read(path);
+
+        if (cachedFile != null) {
+
+            put(storeFileName, cachedFile, invalidationsBeforeRead);
+        }
+
+        return cachedFile;
+    }
+
+    /**
+     * 캐시에서 제거 (파일을 지울 때)
+     *
+     * @param storeFileName
+     */
+    public void invalidate(String storeFileName) {
+
+        lock.lock();
+
+        try {
+
+            invalidations.incrementAndGet();
+
+            CachedFile cachedFile = probation.remove(storeFileName);
+
+            if (cachedFile != null) {
+
+                probationBytes -= cachedFile.getSize();
+            }
+
+            cachedFile = protectedSegment.remove(storeFileName);
+
+            if (cachedFile != null) {
+
+                protectedBytes -= cachedFile.getSize();
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ImageCacheStats getStats() {
+
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        lock.lock();
+
+        try {
+
+            return new ImageCacheStats(probation.size() + protectedSegment.size(), probationBytes + protectedBytes, maxBytes,
+                    hitCount, missCount, evictions, total == 0 ? 0 : (double) hitCount / total);
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedFile find(String storeFileName) {
+
+        lock.lock();
+
+        try {
+
+            CachedFile cachedFile = protectedSegment.get(storeFileName);
+
+            if (cachedFile != null) {
+
+                return cachedFile;
+            }
+
+            cachedFile = probation.remove(storeFileName);
+
+            if (cachedFile == null) {
+
+                return null;
+            }
+
+            // 두 번째 조회 : protected 로 올린다.
+            probationBytes -= cachedFile.getSize();
+            protectedSegment.put(storeFileName, cachedFile);
+            protectedBytes += cachedFile.getSize();
+
+            demote();
+
+            return cachedFile;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String storeFileName, CachedFile cachedFile, long invalidationsBeforeRead) {
+
+        lock.lock();
+
+        try {
+
+            if (invalidations.get() != invalidationsBeforeRead
+                    || probation.containsKey(storeFileName) || protectedSegment.containsKey(storeFileName)) {
+
+                return;
+            }
+
+            probation.put(storeFileName, cachedFile);
+            probationBytes += cachedFile.getSize();
+
+            evict();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * protected 구간이 넘치면 오래된 것부터 probation 의 최근 위치로 내린다.
+     */
+    private void demote() {
+
+        Iterator<Map.Entry<String, CachedFile>> iterator = protectedSegment.entrySet().iterator();
+
+        while (protectedBytes > protectedMaxBytes && iterator.hasNext()) {
+
+            Map.Entry<String, CachedFile> eldest = iterator.next();
+
+            iterator.remove();
+            protectedBytes -= eldest.getValue().getSize();
+
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationBytes += eldest.getValue().getSize();
+        }
+
+        evict();
+    }
+
+    /**
+     * 전체 크기가 넘치면 probation 에서 오래된 것부터 제거 (probation 이 비면 protected 에서)
+     */
+    private void evict() {
+
+        while (probationBytes + protectedBytes > maxBytes) {
+
+            LinkedHashMap<String, CachedFile> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<CachedFile> iterator = segment.values().iterator();
+            CachedFile eldest = iterator.next();
+
+            iterator.remove();
+            evictions++;
+
+            if (segment == probation) {
+
+                probationBytes -= eldest.getSize();
+            }
+            else {
+
+                protectedBytes -= eldest.getSize();
+            }
+        }
+    }
+
+    private CachedFile read(Path path) throws IOException {
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        if (maxBytes <= 0 || attributes.size() > maxFileSize) {
+
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            ByteBuffer content = ByteBuffer.allocateDirect((int) attributes.size());
+
+            while (content.hasRemaining()) {
+
+                if (channel.read(content) < 0) {
+
+                    throw new IOException("파일이 읽는 중에 줄어들었습니다. path = " + path);
+                }
+            }
+
+            content.flip();
+
+            return new CachedFile(content.asReadOnlyBuffer(), attributes.lastModifiedTime().toMillis());
+        }
+    }
+
+    /**
+     * 캐시된 파일 내용과 속성
+     */
+    public static class CachedFile {
+
+        private final ByteBuffer content;
+        private final long lastModified;
+
+        CachedFile(ByteBuffer content, long lastModified) {
+
+            this.content = content;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return 여러 스레드가 함께 쓸 수 있도록 위치가 따로인 읽기 전용 버퍼
+         */
+        public ByteBuffer getContent() {
+            return content.duplicate();
+        }
+
+        public long getSize() {
+            return content.capacity();
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
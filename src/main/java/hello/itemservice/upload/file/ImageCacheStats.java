@@ -0,0 +1,20 @@
+package hello.itemservice.upload.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 이미지 캐시 지표
+ */
+@Getter
+@AllArgsConstructor
+public class ImageCacheStats {
+
+    private final int entries;       // 캐시된 파일 수
+    private final long bytes;        // 캐시된 파일 크기 합
+    private final long maxBytes;     // 최대 크기
+    private final long hits;         // 캐시에서 보낸 횟수
+    private final long misses;       // 파일을 읽은 횟수
+    private final long evictions;    // 크기를 넘어 제거된 파일 수
+    private final double hitRatio;   // hits / (hits + misses)
+}
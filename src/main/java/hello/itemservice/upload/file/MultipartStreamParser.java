@@ -0,0 +1,448 @@
+package hello.itemservice.upload.file;
+
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * multipart/form-data 본문을 앞에서부터 한 번만 읽는 파서
+ *
+ * 파트를 임시 파일이나 메모리에 모으지 않고, 읽은 만큼 바로 대상 채널에 쓴다.
+ * 구분자(\r\n--boundary)는 Boyer-Moore-Horspool 방식으로 찾고, 버퍼 끝에 걸친 구분자를 놓치지 않도록
+ * 구분자 길이 - 1 만큼은 다음 읽기까지 남겨둔다.
+ *
+ * 사용 방법
+ * <pre>
+ * while (parser.nextPart()) {
+ *     parser.getName(), parser.getFilename() 확인
+ *     parser.transferTo(channel, maxSize) 또는 parser.readString(maxSize) 또는 아무것도 하지 않음(건너뜀)
+ * }
+ * </pre>
+ */
+class MultipartStreamParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+
+    private final InputStream in;
+    private final long maxRequestSize;
+
+    // \r\n--boundary
+    private final byte[] delimiter;
+    private final int[] shift = new int[256];
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(buffer);
+    private int start;
+    private int end;
+    private long requestSize;
+
+    private boolean bodyPending;
+    private boolean finished;
+
+    private String name;
+    private String filename;
+    private String contentType;
+
+    /**
+     * @param in 요청 본문
+     * @param boundary Content-Type 의 boundary
+     * @param maxRequestSize 요청 본문 최대 크기 (byte)
+     */
+    MultipartStreamParser(InputStream in, String boundary, long maxRequestSize) {
+
+        this.in = in;
+        this.maxRequestSize = maxRequestSize;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+
+        for (int i = 0; i < shift.length; i++) {
+
+            shift[i] = delimiter.length;
+        }
+
+        for (int i = 0; i < delimiter.length - 1; i++) {
+
+            shift[delimiter[i] & 0xff] = delimiter.length - 1 - i;
+        }
+
+        // 첫 구분자는 본문 맨 앞에 \r\n 없이 오므로, 앞에 \r\n 이 있는 것처럼 시작한다. (그 앞의 내용은 버림)
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        end = 2;
+        bodyPending = true;
+    }
+
+    /**
+     * Content-Type 에서 boundary 추출
+     *
+     * @param contentType
+     * @return
+     * @throws IllegalArgumentException multipart/form-data 가 아니거나 boundary 가 없는 경우
+     */
+    static String boundaryOf(String contentType) {
+
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+
+            throw new IllegalArgumentException("multipart/form-data 요청이 아닙니다. contentType = " + contentType);
+        }
+
+        String boundary = parameter(contentType, "boundary");
+
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+
+            throw new IllegalArgumentException("multipart boundary 가 올바르지 않습니다. contentType = " + contentType);
+        }
+
+        return boundary;
+    }
+
+    /**
+     * 다음 파트로 이동해서 파트 헤더 읽기
+     *
+     * 이전 파트 본문을 읽지 않았으면 건너뛴다.
+     *
+     * @return 더 이상 파트가 없으면 false
+     * @throws IOException
+     */
+    boolean nextPart() throws IOException {
+
+        if (finished) {
+
+            return false;
+        }
+
+        if (bodyPending) {
+
+            transferTo(null, Long.MAX_VALUE);
+        }
+
+        // 구분자 바로 뒤 -- 는 마지막 구분자
+        ensure(2);
+
+        if (buffer[start] == '-' && buffer[start + 1] == '-') {
+
+            finished = true;
+
+            return false;
+        }
+
+        // 구분자 줄의 나머지 (\r\n)
+        readLine();
+        readHeaders();
+
+        bodyPending = true;
+
+        return true;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return 파일 파트가 아니면 null, 파일을 선택하지 않은 파일 파트는 빈 문자열. 경로는 제외한 파일명
+     */
+    String getFilename() {
+        return filename;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 현재 파트 본문을 채널에 쓰기
+     *
+     * @param out null 이면 버림
+     * @param maxSize 파트 최대 크기 (byte)
+     * @return 쓴 크기
+     * @throws IOException 본문이 중간에 끝난 경우
+     * @throws MaxUploadSizeExceededException 파트 또는 요청이 최대 크기를 넘은 경우
+     */
+    long transferTo(WritableByteChannel out, long maxSize) throws IOException {
+
+        if (!bodyPending) {
+
+            return 0;
+        }
+
+        long written = 0;
+
+        while (true) {
+
+            int found = indexOfDelimiter();
+
+            if (found >= 0) {
+
+                written = write(out, found, written, maxSize);
+                start = found + delimiter.length;
+                bodyPending = false;
+
+                return written;
+            }
+
+            // 버퍼 끝에 걸쳐 있을 수 있는 구분자 앞부분은 남긴다.
+            int safe = Math.max(start, end - delimiter.length + 1);
+
+            written = write(out, safe, written, maxSize);
+
+            if (!fill()) {
+
+                throw new IOException("multipart 요청 본문이 중간에 끝났습니다.");
+            }
+        }
+    }
+
+    /**
+     * 현재 파트 본문을 UTF-8 문자열로 읽기
+     *
+     * @param maxSize
+     * @return
+     * @throws IOException
+     */
+    String readString(long maxSize) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        transferTo(Channels.newChannel(bytes), maxSize);
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private long write(WritableByteChannel out, int to, long written, long maxSize) throws IOException {
+
+        int length = to - start;
+
+        if (written + length > maxSize) {
+
+            throw new MaxUploadSizeExceededException(maxSize);
+        }
+
+        if (out != null && length > 0) {
+
+            view.limit(to).position(start);
+
+            while (view.hasRemaining()) {
+
+                out.write(view);
+            }
+        }
+
+        start = to;
+
+        return written + length;
+    }
+
+    private int indexOfDelimiter() {
+
+        int last = delimiter.length - 1;
+        int i = start;
+
+        while (i + last < end) {
+
+            int j = last;
+
+            while (buffer[i + j] == delimiter[j]) {
+
+                if (j == 0) {
+
+                    return i;
+                }
+
+                j--;
+            }
+
+            i += shift[buffer[i + last] & 0xff];
+        }
+
+        return -1;
+    }
+
+    /**
+     * 남은 내용을 버퍼 앞으로 옮기고 더 읽기
+     *
+     * @return 본문 끝이면 false
+     */
+    private boolean fill() throws IOException {
+
+        if (start > 0) {
+
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+
+        if (end == buffer.length) {
+
+            throw new IOException("multipart 헤더가 너무 깁니다.");
+        }
+
+        int read = in.read(buffer, end, buffer.length - end);
+
+        if (read < 0) {
+
+            return false;
+        }
+
+        requestSize += read;
+
+        if (requestSize > maxRequestSize) {
+
+            throw new MaxUploadSizeExceededException(maxRequestSize);
+        }
+
+        end += read;
+
+        return true;
+    }
+
+    private void ensure(int length) throws IOException {
+
+        while (end - start < length) {
+
+            if (!fill()) {
+
+                throw new IOException("multipart 요청 본문이 중간에 끝났습니다.");
+            }
+        }
+    }
+
+    private String readLine() throws IOException {
+
+        int from = start;
+
+        while (true) {
+
+            for (int i = from; i + 1 < end; i++) {
+
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+
+                    String line = new String(buffer, start, i - start, StandardCharsets.UTF_8);
+                    start = i + 2;
+
+                    return line;
+                }
+            }
+
+            if (end - start > MAX_HEADER_LINE) {
+
+                throw new IOException("multipart 헤더가 너무 깁니다.");
+            }
+
+            from = Math.max(start, end - 1) - start;
+
+            if (!fill()) {
+
+                throw new IOException("multipart 요청 본문이 중간에 끝났습니다.");
+            }
+
+            from += start;
+        }
+    }
+
+    private void readHeaders() throws IOException {
+
+        name = null;
+        filename = null;
+        contentType = null;
+
+        String line;
+
+        while (!(line = readLine()).isEmpty()) {
+
+            int colon = line.indexOf(':');
+
+            if (colon < 0) {
+
+                continue;
+            }
+
+            String headerName = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+
+            if (headerName.equalsIgnoreCase("Content-Disposition")) {
+
+                name = parameter(value, "name");
+                filename = parameter(value, "filename");
+
+                if (filename != null) {
+
+                    // 일부 브라우저는 전체 경로를 보낸다.
+                    filename = filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1);
+                }
+            }
+            else if (headerName.equalsIgnoreCase("Content-Type")) {
+
+                contentType = value;
+            }
+        }
+
+        if (name == null) {
+
+            throw new IOException("multipart 파트에 name 이 없습니다.");
+        }
+    }
+
+    /**
+     * 헤더 값에서 파라미터 추출 (예: form-data; name="file"; filename="a;b.png")
+     */
+    private static String parameter(String header, String parameterName) {
+
+        int i = header.indexOf(';');
+
+        while (i >= 0 && i < header.length()) {
+
+            i++;
+
+            while (i < header.length() && header.charAt(i) == ' ') {
+
+                i++;
+            }
+
+            int equals = header.indexOf('=', i);
+
+            if (equals < 0) {
+
+                return null;
+            }
+
+            String key = header.substring(i, equals).trim();
+            StringBuilder value = new StringBuilder();
+            int j = equals + 1;
+
+            if (j < header.length() && header.charAt(j) == '"') {
+
+                // 따옴표 안의 ; 는 구분자가 아니다.
+                // 브라우저는 " 를 %22 로 보내고 \ 는 그대로 보내므로 (Windows 경로) \ 를 escape 로 보지 않는다.
+                for (j++; j < header.length() && header.charAt(j) != '"'; j++) {
+
+                    value.append(header.charAt(j));
+                }
+
+                j = header.indexOf(';', j);
+            }
+            else {
+
+                int semicolon = header.indexOf(';', j);
+
+                value.append(header, j, semicolon < 0 ? header.length() : semicolon);
+                j = semicolon;
+            }
+
+            if (key.equalsIgnoreCase(parameterName)) {
+
+                return value.toString().trim();
+            }
+
+            i = j;
+        }
+
+        return null;
+    }
+}
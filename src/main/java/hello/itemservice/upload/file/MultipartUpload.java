@@ -0,0 +1,61 @@
+package hello.itemservice.upload.file;
+
+import hello.itemservice.upload.domain.UploadFile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 스트리밍으로 읽은 multipart 요청 결과
+ *
+ * 일반 필드 값과, file.dir 에 이미 저장된 파일 정보를 파트 이름별로 가진다.
+ */
+public class MultipartUpload {
+
+    private final Map<String, List<String>> parameters = new LinkedHashMap<>();
+    private final Map<String, List<UploadFile>> files = new LinkedHashMap<>();
+
+    void addParameter(String name, String value) {
+
+        parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+    }
+
+    void addFile(String name, UploadFile uploadFile) {
+
+        files.computeIfAbsent(name, key -> new ArrayList<>()).add(uploadFile);
+    }
+
+    /**
+     * @param name
+     * @return 없으면 null
+     */
+    public String getParameter(String name) {
+
+        List<String> values = parameters.get(name);
+
+        return values == null ? null : values.get(0);
+    }
+
+    /**
+     * @param name
+     * @return 없으면 null
+     */
+    public UploadFile getFile(String name) {
+
+        List<UploadFile> uploadFiles = files.get(name);
+
+        return uploadFiles == null ? null : uploadFiles.get(0);
+    }
+
+    /**
+     * @param name
+     * @return 없으면 빈 목록
+     */
+    public List<UploadFile> getFiles(String name) {
+
+        return files.getOrDefault(name, Collections.emptyList());
+    }
+}
@@ -0,0 +1,140 @@
+package hello.itemservice.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 식별자 생성
+ *
+ * UUID.randomUUID() 는 모든 스레드가 SecureRandom 하나를 함께 쓰고, 16 byte 를 얻을 때마다 난수 생성기를 호출한다.
+ * 여기서는 용도에 따라 두 가지를 제공한다.
+ *
+ * - secureId : 추측할 수 없어야 하는 값 (세션 id, 저장 파일명)
+ *              스레드마다 SecureRandom 을 따로 두고, 난수를 한 번에 BATCH_IDS 개 분량씩 받아 나누어 쓴다.
+ *              128 bit 난수를 URL 에 쓸 수 있는 base64 22자로 표현한다. (문자 : A-Z a-z 0-9 - _)
+ * - uniqueId : 겹치지만 않으면 되는 값 (요청 로그 id)
+ *              서버 시작 시 정한 난수 + 순번이다. 순번은 스레드마다 BLOCK_SIZE 개씩 미리 받아서 쓴다. (16진수 20자)
+ */
+public class IdGenerator {
+
+    private static final int SECURE_ID_BYTES = 16;
+    private static final int BATCH_IDS = 64;
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final char[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<SecureIdState> SECURE_ID_STATE = ThreadLocal.withInitial(SecureIdState::new);
+    private static final ThreadLocal<long[]> SEQUENCE_BLOCK = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+    // 서버마다 다른 값. 여러 서버의 로그를 모아도 uniqueId 가 겹치지 않도록 한다.
+    private static final int NODE = ThreadLocalRandom.current().nextInt();
+    private static final AtomicLong NEXT_BLOCK = new AtomicLong();
+
+    private IdGenerator() {
+    }
+
+    /**
+     * 추측할 수 없는 식별자
+     *
+     * @return 128 bit 난수, base64 URL 22자
+     */
+    public static String secureId() {
+
+        SecureIdState state = SECURE_ID_STATE.get();
+
+        if (state.position == state.bytes.length) {
+
+            state.random.nextBytes(state.bytes);
+            state.position = 0;
+        }
+
+        byte[] bytes = state.bytes;
+        int p = state.position;
+        char[] chars = new char[22];
+
+        // 3 byte -> 4 문자, 마지막 1 byte -> 2 문자
+        for (int i = 0; i < 5; i++) {
+
+            int bits = (bytes[p++] & 0xff) << 16 | (bytes[p++] & 0xff) << 8 | (bytes[p++] & 0xff);
+
+            chars[i * 4] = BASE64_URL[bits >>> 18];
+            chars[i * 4 + 1] = BASE64_URL[(bits >>> 12) & 0x3f];
+            chars[i * 4 + 2] = BASE64_URL[(bits >>> 6) & 0x3f];
+            chars[i * 4 + 3] = BASE64_URL[bits & 0x3f];
+        }
+
+        int last = bytes[p++] & 0xff;
+
+        chars[20] = BASE64_URL[last >>> 2];
+        chars[21] = BASE64_URL[(last & 0x3) << 4];
+
+        // 한 번 쓴 난수는 다시 쓰지 않는다.
+        for (int i = state.position; i < p; i++) {
+
+            bytes[i] = 0;
+        }
+
+        state.position = p;
+
+        return new String(chars);
+    }
+
+    /**
+     * 서버 안에서 겹치지 않는 식별자 (추측 가능)
+     *
+     * @return 16진수 20자 (서버 8자 + 순번 12자)
+     */
+    public static String uniqueId() {
+
+        long[] block = SEQUENCE_BLOCK.get();
+
+        // [다음 순번, 블록 끝]
+        if (block[0] == block[1]) {
+
+            block[0] = NEXT_BLOCK.getAndIncrement() * BLOCK_SIZE;
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+
+        long sequence = block[0]++;
+        char[] chars = new char[20];
+
+        for (int i = 7; i >= 0; i--) {
+
+            chars[7 - i] = HEX[(NODE >>> (i * 4)) & 0xf];
+        }
+
+        for (int i = 11; i >= 0; i--) {
+
+            chars[19 - i] = HEX[(int) (sequence >>> (i * 4)) & 0xf];
+        }
+
+        return new String(chars);
+    }
+
+    private static class SecureIdState {
+
+        final SecureRandom random = createSecureRandom();
+        final byte[] bytes = new byte[SECURE_ID_BYTES * BATCH_IDS];
+        int position = bytes.length;
+    }
+
+    /**
+     * DRBG 는 인스턴스마다 상태를 따로 가지므로 스레드끼리 잠금을 다투지 않는다.
+     * (기본 NativePRNG 는 모든 인스턴스가 내부 상태 하나를 공유)
+     */
+    private static SecureRandom createSecureRandom() {
+
+        try {
+
+            return SecureRandom.getInstance("DRBG");
+
+        } catch (NoSuchAlgorithmException e) {
+
+            return new SecureRandom();
+        }
+    }
+}
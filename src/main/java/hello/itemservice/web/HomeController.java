@@ -59,7 +59,7 @@ public class HomeController {
     ) {
         
         // 세션 관리자에 저장된 회원 정보 조회
-        Member member = (Member) sessionManager.getSessionV2(request);
+        Member member = (Member) sessionManager.getSessionV3(request);
 
         // 로그인
         if (member == null) {
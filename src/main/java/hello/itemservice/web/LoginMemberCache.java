@@ -0,0 +1,60 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.member.Member;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * 요청 단위 로그인 회원 조회
+ *
+ * LoginCheckFilter, LoginCheckInterceptor, LoginMemberArgumentResolver 가 같은 요청에서 각각 세션을 조회하지 않도록
+ * 처음 조회한 결과(로그인하지 않은 경우 포함)를 요청 속성에 보관한다. 요청 하나에서 세션 접근은 한 번이다.
+ *
+ * 같은 요청에서 로그인, 로그아웃으로 세션의 로그인 회원을 바꾸면 evict 를 호출한다.
+ */
+public class LoginMemberCache {
+
+    static final String ATTRIBUTE = LoginMemberCache.class.getName() + ".MEMBER";
+
+    // 로그인하지 않았다는 조회 결과도 보관하기 위한 값
+    private static final Object NO_MEMBER = new Object();
+
+    private LoginMemberCache() {
+    }
+
+    /**
+     * 로그인 회원 조회
+     *
+     * 세션이 없으면 만들지 않는다.
+     *
+     * @param request
+     * @return 로그인하지 않았으면 null
+     */
+    public static Member get(HttpServletRequest request) {
+
+        Object cached = request.getAttribute(ATTRIBUTE);
+
+        if (cached != null) {
+
+            return cached == NO_MEMBER ? null : (Member) cached;
+        }
+
+        HttpSession session = request.getSession(false);
+        Member member = session == null ? null : (Member) session.getAttribute(SessionConst.LOGIN_MEMBER);
+
+        request.setAttribute(ATTRIBUTE, member == null ? NO_MEMBER : member);
+
+        return member;
+    }
+
+    /**
+     * 보관한 조회 결과 삭제
+     *
+     * @param request
+     */
+    public static void evict(HttpServletRequest request) {
+
+        request.removeAttribute(ATTRIBUTE);
+    }
+}
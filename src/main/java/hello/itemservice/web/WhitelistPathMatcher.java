@@ -0,0 +1,223 @@
+package hello.itemservice.web;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 화이트 리스트 경로 매처
+ *
+ * 로그인 체크 필터와 인터셉터가 같은 화이트 리스트를 쓰도록 한 번만 만들어서 공유한다. (login.whitelist)
+ * 패턴은 만들 때 한 번 해석해서, 요청마다 패턴 목록을 훑지 않는다.
+ *
+ * 지원하는 패턴
+ * - /login : 정확히 같은 경로. HashSet 조회 (O(1))
+ * - /css/** : /css 와 그 아래 모든 경로
+ * - /css/* : /css 바로 아래 경로 하나
+ * - /*.ico, /images/*.png : 해당 디렉토리 바로 아래에서 확장자가 같은 경로
+ *
+ * 와일드카드 패턴은 경로 구분(/) 단위 트리로 만들고, 요청 경로의 구분마다 자식 노드를 따라 내려간다. (경로 깊이에 비례)
+ */
+public class WhitelistPathMatcher {
+
+    private final Set<String> exactPaths = new HashSet<>();
+    private final Node root = new Node(null);
+    private final List<String> patterns;
+
+    public WhitelistPathMatcher(List<String> patterns) {
+
+        this.patterns = List.copyOf(patterns);
+
+        for (String pattern : this.patterns) {
+
+            add(pattern.trim());
+        }
+    }
+
+    public static WhitelistPathMatcher of(String... patterns) {
+
+        return new WhitelistPathMatcher(Arrays.asList(patterns));
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * 화이트 리스트에 포함된 경로인지 확인
+     *
+     * @param path 요청 URI (쿼리 스트링 제외)
+     * @return
+     */
+    public boolean matches(String path) {
+
+        if (exactPaths.contains(path)) {
+
+            return true;
+        }
+
+        if (path.isEmpty() || path.charAt(0) != '/') {
+
+            return false;
+        }
+
+        Node node = root;
+        int start = 1;
+
+        while (true) {
+
+            if (node.all) {
+
+                return true;
+            }
+
+            int end = path.indexOf('/', start);
+
+            if (end < 0) {
+
+                end = path.length();
+            }
+
+            // 마지막 구분
+            if (end == path.length()) {
+
+                if (node.anySegment && end > start) {
+
+                    return true;
+                }
+
+                if (node.extensions != null && matchesExtension(node.extensions, path, start)) {
+
+                    return true;
+                }
+            }
+
+            Node child = node.child(path, start, end);
+
+            if (child == null) {
+
+                return false;
+            }
+
+            if (end == path.length()) {
+
+                // /css/** 는 /css 도 포함
+                return child.all;
+            }
+
+            node = child;
+            start = end + 1;
+        }
+    }
+
+    private void add(String pattern) {
+
+        if (pattern.isEmpty() || pattern.charAt(0) != '/') {
+
+            throw new IllegalArgumentException("화이트 리스트 패턴은 / 로 시작해야 합니다. pattern = " + pattern);
+        }
+
+        int wildcard = pattern.indexOf('*');
+
+        if (wildcard < 0) {
+
+            exactPaths.add(pattern);
+
+            return;
+        }
+
+        int lastSlash = pattern.lastIndexOf('/');
+        String last = pattern.substring(lastSlash + 1);
+
+        if (wildcard < lastSlash || pattern.indexOf('?') >= 0) {
+
+            throw new IllegalArgumentException("와일드카드는 마지막 구분에만 쓸 수 있습니다. pattern = " + pattern);
+        }
+
+        Node node = root;
+
+        for (String segment : pattern.substring(1, lastSlash + 1).split("/")) {
+
+            if (!segment.isEmpty()) {
+
+                node = node.addChild(segment);
+            }
+        }
+
+        if (last.equals("**")) {
+
+            node.all = true;
+        }
+        else if (last.equals("*")) {
+
+            node.anySegment = true;
+        }
+        else if (last.startsWith("*.") && last.indexOf('*', 1) < 0) {
+
+            if (node.extensions == null) {
+
+                node.extensions = new HashSet<>();
+            }
+
+            node.extensions.add(last.substring(1));
+        }
+        else {
+
+            throw new IllegalArgumentException("지원하지 않는 화이트 리스트 패턴입니다. pattern = " + pattern);
+        }
+    }
+
+    private static boolean matchesExtension(Set<String> extensions, String path, int start) {
+
+        int dot = path.lastIndexOf('.');
+
+        // 확장자 앞에 파일명이 있어야 한다.
+        return dot > start && extensions.contains(path.substring(dot));
+    }
+
+    private static class Node {
+
+        final String segment;
+
+        // 자식 수가 적으므로 배열을 순서대로 비교한다. (요청 경로를 잘라 새 문자열을 만들지 않음)
+        Node[] children = new Node[0];
+
+        boolean all;              // /**
+        boolean anySegment;       // /*
+        Set<String> extensions;   // /*.ext
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        Node child(String path, int start, int end) {
+
+            int length = end - start;
+
+            for (Node child : children) {
+
+                if (child.segment.length() == length && path.regionMatches(start, child.segment, 0, length)) {
+
+                    return child;
+                }
+            }
+
+            return null;
+        }
+
+        Node addChild(String segment) {
+
+            Node child = child(segment, 0, segment.length());
+
+            if (child == null) {
+
+                child = new Node(segment);
+                children = Arrays.copyOf(children, children.length + 1);
+                children[children.length - 1] = child;
+            }
+
+            return child;
+        }
+    }
+}
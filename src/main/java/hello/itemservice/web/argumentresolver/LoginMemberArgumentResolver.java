@@ -1,7 +1,7 @@
 package hello.itemservice.web.argumentresolver;
 
 import hello.itemservice.domain.member.Member;
-import hello.itemservice.web.SessionConst;
+import hello.itemservice.web.LoginMemberCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.MethodParameter;
 import org.springframework.web.bind.support.WebDataBinderFactory;
@@ -10,7 +10,6 @@ import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
 
 @Slf4j
 public class LoginMemberArgumentResolver implements HandlerMethodArgumentResolver {
@@ -18,13 +17,15 @@ public class LoginMemberArgumentResolver implements HandlerMethodArgumentResolve
     /**
      * @Login 애노테이션이 있으면서 Member 타입이면 해당 ArgumentResolver 가 사용된다.
      *
+     * 스프링 MVC 가 파라미터별 결과를 캐시하므로 요청마다 호출되지는 않는다.
+     *
      * @param parameter
      * @return
      */
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
 
-        log.info("supportsParameter 실행");
+        log.trace("supportsParameter 실행");
 
         boolean hasLoginAnnotaion = parameter.hasParameterAnnotation(Login.class);
         boolean hasMemberType = Member.class.isAssignableFrom(parameter.getParameterType());
@@ -37,6 +38,8 @@ public class LoginMemberArgumentResolver implements HandlerMethodArgumentResolve
      *
      * 스프링 MVC 는 컨트롤러의 메서드를 호출하면서 여기에서 반환된 member 객체를 파라미터에 전달해준다.
      *
+     * 로그인 체크 필터, 인터셉터가 이미 조회했으면 세션을 다시 조회하지 않는다. (LoginMemberCache)
+     *
      * @param parameter
      * @param mavContainer
      * @param webRequest
@@ -52,17 +55,11 @@ public class LoginMemberArgumentResolver implements HandlerMethodArgumentResolve
             WebDataBinderFactory binderFactory
     ) throws Exception {
 
-        log.info("resolveArgument 실행");
+        log.trace("resolveArgument 실행");
 
         HttpServletRequest request = (HttpServletRequest) webRequest.getNativeRequest();
-        HttpSession session = request.getSession(false);
-
-        if (session == null) {
-
-            return null;
-        }
 
         // 세션에 있는 로그인 회원 정보인 member 객체를 찾아서 반환
-        return session.getAttribute(SessionConst.LOGIN_MEMBER);
+        return LoginMemberCache.get(request);
     }
 }
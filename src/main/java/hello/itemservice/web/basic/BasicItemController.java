@@ -2,6 +2,7 @@ package hello.itemservice.web.basic;
 
 import hello.itemservice.domain.item.DeliveryCode;
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
 import hello.itemservice.domain.item.ItemType;
 import lombok.RequiredArgsConstructor;
@@ -94,17 +95,41 @@ public class BasicItemController {
     /**
      * 상품 목록 조회
      *
+     * after 가 있으면 커서 방식, 없으면 offset 방식으로 한 페이지만 조회한다.
+     *
+     * @param page 0 부터 시작하는 페이지 번호
+     * @param size 페이지 크기
+     * @param after 이전 페이지의 마지막 상품 id
+     * @param before 다음 페이지의 첫 상품 id
      * @param model
      * @return
      */
     @GetMapping
-    public String items(Model model) {
+    public String items(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            Model model
+    ) {
+
+        // itemRepository 에서 한 페이지만 조회
+        ItemPage itemPage;
+
+        if (after != null) {
+
+            itemPage = itemRepository.findAfter(after, size);
+        } else if (before != null) {
 
-        // itemRepository 에서 모든 상품을 조회
-        List<Item> items = itemRepository.findAll();
+            itemPage = itemRepository.findBefore(before, size);
+        } else {
+
+            itemPage = itemRepository.findPage(page, size);
+        }
 
         // 모델에 담는다.
-        model.addAttribute("items", items);
+        model.addAttribute("items", itemPage.getItems());
+        model.addAttribute("itemPage", itemPage);
 
         // 뷰 템플릿 호출
         return "basic/items";
@@ -727,7 +752,12 @@ public class BasicItemController {
      */
     @PostConstruct
     public void init() {
-        
+
+        if (itemRepository.isRecovered()) {
+
+            return;
+        }
+
         itemRepository.save(new Item("itemA", 10000, 10));
         itemRepository.save(new Item("itemB", 20000, 20));
     }
@@ -75,17 +75,41 @@ public class BasicItemControllerV2 {
     /**
      * 상품 목록 조회
      *
+     * after 가 있으면 커서 방식, 없으면 offset 방식으로 한 페이지만 조회한다.
+     *
+     * @param page 0 부터 시작하는 페이지 번호
+     * @param size 페이지 크기
+     * @param after 이전 페이지의 마지막 상품 id
+     * @param before 다음 페이지의 첫 상품 id
      * @param model
      * @return
      */
     @GetMapping
-    public String items(Model model) {
+    public String items(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            Model model
+    ) {
+
+        // itemRepository 에서 한 페이지만 조회
+        ItemPage itemPage;
+
+        if (after != null) {
+
+            itemPage = itemRepository.findAfter(after, size);
+        } else if (before != null) {
 
-        // itemRepository 에서 모든 상품을 조회
-        List<Item> items = itemRepository.findAll();
+            itemPage = itemRepository.findBefore(before, size);
+        } else {
+
+            itemPage = itemRepository.findPage(page, size);
+        }
 
         // 모델에 담는다.
-        model.addAttribute("items", items);
+        model.addAttribute("items", itemPage.getItems());
+        model.addAttribute("itemPage", itemPage);
 
         // 뷰 템플릿 호출
         return "basicV2/items";
@@ -302,6 +326,9 @@ public class BasicItemControllerV2 {
      *
      * Form 전송 객체 분리 - 개발
      *
+     * 폼을 연 다음 다른 사용자가 먼저 수정했으면 입력 값을 유지한 채 수정 폼으로 돌아간다.
+     * 이때 폼의 수정 버전을 최신으로 바꾸므로, 내용을 확인하고 다시 저장하면 덮어쓴다.
+     *
      * @param itemId
      * @param form
      * @param bindingResult
@@ -326,7 +353,23 @@ public class BasicItemControllerV2 {
         item.setPrice(form.getPrice());
         item.setQuantity(form.getQuantity());
 
-        itemRepository.update(itemId, item);
+        item.setOpen(form.getOpen());
+        item.setRegions(form.getRegions());
+        item.setItemType(form.getItemType());
+        item.setDeliveryCode(form.getDeliveryCode());
+        item.setVersion(form.getVersion());
+
+        try {
+
+            itemRepository.update(itemId, item);
+
+        } catch (ItemVersionConflictException e) {
+
+            form.setVersion(e.getCurrentItem().getVersion());
+            bindingResult.reject("conflict.item");
+
+            return "basicV2/editForm";
+        }
 
         // 뷰 템플릿을 호출하는 대신에 상품 상세 화면으로 이동하도록 리다이렉트를 호출
         return "redirect:/basic/v2/items/{itemId}";
@@ -337,7 +380,12 @@ public class BasicItemControllerV2 {
      */
     @PostConstruct
     public void init() {
-        
+
+        if (itemRepository.isRecovered()) {
+
+            return;
+        }
+
         itemRepository.save(new Item("itemA", 10000, 10));
         itemRepository.save(new Item("itemB", 20000, 20));
     }
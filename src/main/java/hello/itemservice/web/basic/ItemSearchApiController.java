@@ -0,0 +1,42 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 상품 검색 API
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/basic/api/items")
+public class ItemSearchApiController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final ItemRepository itemRepository;
+
+    /**
+     * 상품명 접두어 검색
+     *
+     * 예) /basic/api/items/search?q=사
+     *
+     * @param q 검색어
+     * @param limit 최대 개수
+     * @return
+     */
+    @GetMapping("/search")
+    public List<Item> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+
+        return itemRepository.findByNamePrefix(q, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
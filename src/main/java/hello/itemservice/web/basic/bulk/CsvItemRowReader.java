@@ -0,0 +1,271 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemType;
+import org.springframework.validation.FieldError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV 행 읽기
+ *
+ * 첫 줄은 컬럼 이름이며 순서는 자유롭다. 없는 컬럼은 null 로 읽는다.
+ * - 컬럼 : id, itemName, price, quantity, open, regions, itemType, deliveryCode, version
+ * - 등록 지역은 ; 로 구분한다. 예) SEOUL;BUSAN
+ * - 값에 , 나 " 가 있으면 " 로 감싸고, " 는 "" 로 쓴다.
+ *
+ * id 가 있는 행은 수정, 없는 행은 등록으로 처리한다. 빈 줄은 건너뛴다.
+ */
+public class CsvItemRowReader implements ItemRowReader {
+
+    static final List<String> COLUMNS = Arrays.asList(
+            "id", "itemName", "price", "quantity", "open", "regions", "itemType", "deliveryCode", "version");
+
+    private final BufferedReader reader;
+    private final String[] header;
+
+    private long line;
+
+    /**
+     * @param reader
+     * @throws IOException
+     * @throws IllegalArgumentException 컬럼 이름 줄이 없거나 알 수 없는 컬럼이 있는 경우
+     */
+    public CsvItemRowReader(BufferedReader reader) throws IOException {
+
+        this.reader = reader;
+
+        List<String> columns = readRecord();
+
+        if (columns == null) {
+
+            throw new IllegalArgumentException("CSV 컬럼 이름 줄이 없습니다.");
+        }
+
+        for (String column : columns) {
+
+            if (!COLUMNS.contains(column)) {
+
+                throw new IllegalArgumentException("알 수 없는 CSV 컬럼입니다. column = " + column + ", 사용 가능 = " + COLUMNS);
+            }
+        }
+
+        this.header = columns.toArray(new String[0]);
+    }
+
+    @Override
+    public ItemRow next() throws IOException {
+
+        List<String> values;
+        long rowLine;
+
+        do {
+
+            rowLine = line + 1;
+            values = readRecord();
+
+            if (values == null) {
+
+                return null;
+            }
+
+        } while (values.size() == 1 && values.get(0).isEmpty());
+
+        ItemRow row = new ItemRow(rowLine, new Item());
+
+        for (int i = 0; i < header.length && i < values.size(); i++) {
+
+            set(row, header[i], values.get(i).trim());
+        }
+
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void set(ItemRow row, String column, String value) {
+
+        if (value.isEmpty()) {
+
+            return;
+        }
+
+        Item item = row.getItem();
+
+        switch (column) {
+
+            case "id":
+                item.setId(parseLong(row, column, value));
+                break;
+
+            case "itemName":
+                item.setItemName(value);
+                break;
+
+            case "price":
+                item.setPrice(parseInteger(row, column, value));
+                break;
+
+            case "quantity":
+                item.setQuantity(parseInteger(row, column, value));
+                break;
+
+            case "open":
+                item.setOpen(Boolean.parseBoolean(value));
+                break;
+
+            case "regions":
+                item.setRegions(new ArrayList<>(Arrays.asList(value.split(";"))));
+                break;
+
+            case "itemType":
+                try {
+
+                    item.setItemType(ItemType.valueOf(value));
+
+                } catch (IllegalArgumentException e) {
+
+                    typeMismatch(row, column, value, ItemType.class);
+                }
+                break;
+
+            case "deliveryCode":
+                item.setDeliveryCode(value);
+                break;
+
+            case "version":
+                item.setVersion(parseInteger(row, column, value));
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private static Integer parseInteger(ItemRow row, String column, String value) {
+
+        try {
+
+            return Integer.valueOf(value);
+
+        } catch (NumberFormatException e) {
+
+            typeMismatch(row, column, value, Integer.class);
+
+            return null;
+        }
+    }
+
+    private static Long parseLong(ItemRow row, String column, String value) {
+
+        try {
+
+            return Long.valueOf(value);
+
+        } catch (NumberFormatException e) {
+
+            typeMismatch(row, column, value, Long.class);
+
+            return null;
+        }
+    }
+
+    private static void typeMismatch(ItemRow row, String column, String value, Class<?> type) {
+
+        String[] codes = {"typeMismatch.item." + column, "typeMismatch." + column, "typeMismatch." + type.getName(), "typeMismatch"};
+
+        row.getErrors().add(new FieldError("item", column, value, true, codes, null, null));
+    }
+
+    /**
+     * 한 레코드 읽기 (" 로 감싼 값 안의 줄바꿈 포함)
+     *
+     * @return 더 이상 없으면 null
+     */
+    private List<String> readRecord() throws IOException {
+
+        String text = reader.readLine();
+
+        if (text == null) {
+
+            return null;
+        }
+
+        line++;
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+
+        boolean quoted = false;
+        int i = 0;
+
+        while (true) {
+
+            if (i == text.length()) {
+
+                if (!quoted) {
+
+                    break;
+                }
+
+                // 따옴표 안의 줄바꿈
+                String nextText = reader.readLine();
+
+                if (nextText == null) {
+
+                    break;
+                }
+
+                line++;
+                value.append('\n');
+                text = nextText;
+                i = 0;
+
+                continue;
+            }
+
+            char c = text.charAt(i++);
+
+            if (quoted) {
+
+                if (c == '"' && i < text.length() && text.charAt(i) == '"') {
+
+                    value.append('"');
+                    i++;
+                }
+                else if (c == '"') {
+
+                    quoted = false;
+                }
+                else {
+
+                    value.append(c);
+                }
+            }
+            else if (c == '"') {
+
+                quoted = true;
+            }
+            else if (c == ',') {
+
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else {
+
+                value.append(c);
+            }
+        }
+
+        values.add(value.toString());
+
+        return values;
+    }
+}
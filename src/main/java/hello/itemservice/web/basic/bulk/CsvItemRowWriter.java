@@ -0,0 +1,74 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * CSV 행 쓰기
+ *
+ * 첫 줄에 CsvItemRowReader 의 컬럼 이름을 모두 쓰고, 등록 지역은 ; 로 이어 쓴다.
+ */
+public class CsvItemRowWriter implements ItemRowWriter {
+
+    private final Writer writer;
+
+    public CsvItemRowWriter(Writer writer) throws IOException {
+
+        this.writer = writer;
+
+        writer.write(String.join(",", CsvItemRowReader.COLUMNS));
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(Item item) throws IOException {
+
+        writeValue(item.getId());
+        writer.write(',');
+        writeValue(item.getItemName());
+        writer.write(',');
+        writeValue(item.getPrice());
+        writer.write(',');
+        writeValue(item.getQuantity());
+        writer.write(',');
+        writeValue(item.getOpen());
+        writer.write(',');
+        writeValue(item.getRegions() == null ? null : String.join(";", item.getRegions()));
+        writer.write(',');
+        writeValue(item.getItemType() == null ? null : item.getItemType().name());
+        writer.write(',');
+        writeValue(item.getDeliveryCode());
+        writer.write(',');
+        writeValue(item.getVersion());
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeValue(Object value) throws IOException {
+
+        if (value == null) {
+
+            return;
+        }
+
+        String text = value.toString();
+
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+
+            writer.write(text);
+
+            return;
+        }
+
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
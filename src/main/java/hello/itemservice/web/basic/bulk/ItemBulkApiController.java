@@ -0,0 +1,258 @@
+package hello.itemservice.web.basic.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.exception.exhandler.ErrorResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 상품 일괄 등록/수정/내보내기 API
+ *
+ * 등록/수정은 요청 본문(UTF-8)을 스트리밍으로 읽어서 처리하고 행별 오류를 응답한다.
+ * 내보내기는 상품을 묶음 단위로 읽어서 같은 형식으로 응답 본문에 한 행씩 바로 쓰므로,
+ * 상품 수가 많아도 상품 목록이나 응답 전체를 메모리에 만들지 않는다.
+ *
+ * 예) curl -X POST -H 'Content-Type: application/x-ndjson' --data-binary @items.ndjson /basic/api/items/bulk
+ *     curl -X POST -H 'Content-Type: text/csv' --data-binary @items.csv /basic/api/items/bulk
+ *     curl --compressed '/basic/api/items/bulk?format=csv' -o items.csv
+ *     curl '/basic/api/items/bulk?format=csv&ids=false' -o new-items.csv
+ *
+ * 내보낸 파일에는 id 와 version 이 있으므로 그대로 다시 올리면 같은 상품의 수정(버전이 다르면 충돌)으로 처리된다.
+ * 새 상품으로 등록할 파일이 필요하면 ids=false 로 id 와 version 을 비워서 내보낸다.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/basic/api/items")
+public class ItemBulkApiController {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int EXPORT_CHUNK = ItemPage.MAX_SIZE;
+
+    private final ItemBulkImporter itemBulkImporter;
+    private final ItemRepository itemRepository;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ItemBulkResult bulkNdjson(InputStream body, Locale locale) throws IOException {
+
+        return itemBulkImporter.importRows(new NdjsonItemRowReader(reader(body), objectMapper.readerFor(Item.class)), locale);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ItemBulkResult bulkCsv(InputStream body, Locale locale) throws IOException {
+
+        return itemBulkImporter.importRows(new CsvItemRowReader(reader(body)), locale);
+    }
+
+    /**
+     * 상품 내보내기
+     *
+     * 상품 목록을 만들지 않고 커서 방식 페이지 조회(findAfter)로 EXPORT_CHUNK 개씩 id 순으로 읽으면서 쓴다.
+     * 요청 시점의 스냅샷이 아니므로 일관성은 묶음 단위이다.
+     * - 각 상품은 한 번만, id 순으로 나온다.
+     * - 내보내는 동안 수정된 상품은 그 상품이 속한 묶음을 읽은 시점의 값으로 나온다.
+     * - 내보내는 동안 등록된 상품은 id 가 가장 크므로 끝에 포함되고, 아직 읽지 않은 묶음에서 삭제된 상품은 빠진다.
+     * Accept-Encoding 이 gzip 을 허용하면 (q=0 이 아니면) gzip 으로 압축해서 보낸다.
+     *
+     * @param format csv, ndjson
+     * @param ids false 면 id 와 version 을 비워서 다시 올릴 때 새 상품으로 등록되게 한다.
+     * @param acceptEncoding
+     * @return
+     */
+    @GetMapping("/bulk")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "true") boolean ids,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+
+        boolean csv = "csv".equalsIgnoreCase(format);
+
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+
+            throw new IllegalArgumentException("지원하지 않는 형식입니다. format = " + format);
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+
+            try (ItemRowWriter writer = csv ? csvWriter(target) : ndjsonWriter(target)) {
+
+                writeItems(itemRepository, writer, ids);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, csv ? "text/csv;charset=UTF-8" : "application/x-ndjson")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"items." + (csv ? "csv" : "ndjson") + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(body);
+    }
+
+    /**
+     * 모든 상품을 EXPORT_CHUNK 개씩 id 순으로 읽어서 쓰기
+     */
+    static void writeItems(ItemRepository itemRepository, ItemRowWriter writer, boolean ids) throws IOException {
+
+        ItemPage page = itemRepository.findAfter(0, EXPORT_CHUNK);
+
+        while (true) {
+
+            for (Item item : page.getItems()) {
+
+                writer.write(ids ? item : withoutIds(item));
+            }
+
+            if (!page.hasNext()) {
+
+                break;
+            }
+
+            page = itemRepository.findAfter(page.getNextCursor(), EXPORT_CHUNK);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ErrorResult illegalExHandler(IllegalArgumentException e) {
+
+        log.info("[bulk] 잘못된 요청 : {}", e.getMessage());
+
+        return new ErrorResult("BAD", e.getMessage());
+    }
+
+    /**
+     * Accept-Encoding 이 gzip 을 허용하는지 여부
+     *
+     * gzip(x-gzip) 이 있으면 그 q 값을, 없으면 * 의 q 값을 따른다. q 값이 없으면 1 이다.
+     * 예) "gzip, deflate" -> true, "gzip;q=0, identity" -> false, "*;q=0.5" -> true
+     *
+     * @param acceptEncoding
+     * @return
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+
+        for (String element : acceptEncoding.split(",")) {
+
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            }
+            else if (coding.equals("*")) {
+
+                anyQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+
+            return gzipQuality > 0;
+        }
+
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    /**
+     * @return q 파라미터 값 (없으면 1, 읽을 수 없으면 0)
+     */
+    private static double quality(String[] parts) {
+
+        for (int i = 1; i < parts.length; i++) {
+
+            String parameter = parts[i].trim();
+
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q') && parameter.charAt(1) == '=') {
+
+                try {
+
+                    return Double.parseDouble(parameter.substring(2).trim());
+
+                } catch (NumberFormatException e) {
+
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * id 와 version 을 비운 복사본 (새 상품 등록용)
+     */
+    private static Item withoutIds(Item item) {
+
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+
+        copy.setOpen(item.getOpen());
+        copy.setRegions(item.getRegions());
+        copy.setItemType(item.getItemType());
+        copy.setDeliveryCode(item.getDeliveryCode());
+
+        return copy;
+    }
+
+    private static BufferedReader reader(InputStream body) {
+
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static ItemRowWriter csvWriter(OutputStream out) throws IOException {
+
+        return new CsvItemRowWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    private ItemRowWriter ndjsonWriter(OutputStream out) {
+
+        return new NdjsonItemRowWriter(new BufferedOutputStream(out, BUFFER_SIZE), objectMapper.writerFor(Item.class));
+    }
+}
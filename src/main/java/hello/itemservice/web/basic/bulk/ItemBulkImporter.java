@@ -0,0 +1,171 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemCodec;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemVersionConflictException;
+import hello.itemservice.web.basic.ItemValidator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 상품 일괄 등록/수정
+ *
+ * 행을 BATCH_SIZE 개씩 모아서
+ * 1. 상품 등록 폼과 같은 규칙(ItemValidator)과 저장소 로그 레코드로 쓸 수 있는지(ItemCodec.isWritable) 병렬 검증하고
+ * 2. 통과한 행 중 id 가 없는 행은 saveAll (id 범위 한 번에 발급), id 가 있는 행은 updateAll 로 한 번에 반영한다.
+ *
+ * 요청 본문은 행 단위로 읽으므로 메모리에는 배치 하나만 올라간다.
+ * 값 변환에 실패한 행은 검증하지 않고 변환 오류만 알려준다.
+ * 로그 기록에 실패하면 예외를 던진다. 그 전 배치는 이미 반영되어 있다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBulkImporter {
+
+    static final int BATCH_SIZE = 10_000;
+
+    private final ItemRepository itemRepository;
+    private final ItemValidator itemValidator;
+    private final MessageSource messageSource;
+
+    public ItemBulkResult importRows(ItemRowReader reader, Locale locale) throws IOException {
+
+        long start = System.nanoTime();
+
+        ItemBulkResult result = new ItemBulkResult();
+        List<ItemRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (reader) {
+
+            ItemRow row;
+
+            while ((row = reader.next()) != null) {
+
+                batch.add(row);
+
+                if (batch.size() == BATCH_SIZE) {
+
+                    commit(batch, result, locale);
+                    batch.clear();
+                }
+            }
+
+            commit(batch, result, locale);
+        }
+
+        log.info("상품 일괄 등록 : total = {}, saved = {}, updated = {}, failed = {}, {}ms",
+                result.getTotal(), result.getSaved(), result.getUpdated(), result.getFailed(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        return result;
+    }
+
+    private void commit(List<ItemRow> batch, ItemBulkResult result, Locale locale) {
+
+        batch.parallelStream().forEach(this::validate);
+
+        List<Item> newItems = new ArrayList<>();
+        List<ItemRow> updateRows = new ArrayList<>();
+        List<Item> updateParams = new ArrayList<>();
+
+        for (ItemRow row : batch) {
+
+            if (row.hasErrors()) {
+
+                result.addFailed(toRowErrors(row.getLine(), row.getErrors(), locale));
+            }
+            else if (row.getItem().getId() == null) {
+
+                newItems.add(row.getItem());
+            }
+            else {
+
+                updateRows.add(row);
+                updateParams.add(row.getItem());
+            }
+        }
+
+        if (!newItems.isEmpty()) {
+
+            itemRepository.saveAll(newItems);
+        }
+
+        Map<Integer, RuntimeException> failures = updateParams.isEmpty() ? Map.of() : itemRepository.updateAll(updateParams);
+
+        for (Map.Entry<Integer, RuntimeException> failure : failures.entrySet()) {
+
+            ObjectError error = new ObjectError("item", new String[]{errorCode(failure.getValue())}, null, failure.getValue().getMessage());
+
+            result.addFailed(toRowErrors(updateRows.get(failure.getKey()).getLine(), List.of(error), locale));
+        }
+
+        result.addTotal(batch.size());
+        result.addSaved(newItems.size());
+        result.addUpdated(updateParams.size() - failures.size());
+    }
+
+    private void validate(ItemRow row) {
+
+        if (row.hasErrors()) {
+
+            return;
+        }
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(row.getItem(), "item");
+
+        itemValidator.validate(row.getItem(), bindingResult);
+
+        if (!bindingResult.hasErrors() && !ItemCodec.isWritable(row.getItem())) {
+
+            bindingResult.reject("tooLarge.item");
+        }
+
+        row.getErrors().addAll(bindingResult.getAllErrors());
+    }
+
+    /**
+     * updateAll 이 알려준 원인별 오류 코드
+     */
+    private static String errorCode(RuntimeException failure) {
+
+        if (failure instanceof ItemVersionConflictException) {
+
+            return "conflict.item";
+        }
+
+        if (failure instanceof IllegalArgumentException) {
+
+            return "notFound.item";
+        }
+
+        // 레코드를 만들 수 없는 경우 (UncheckedIOException)
+        return "tooLarge.item";
+    }
+
+    private List<ItemBulkResult.RowError> toRowErrors(long line, List<ObjectError> errors, Locale locale) {
+
+        List<ItemBulkResult.RowError> rowErrors = new ArrayList<>(errors.size());
+
+        for (ObjectError error : errors) {
+
+            String field = error instanceof FieldError ? ((FieldError) error).getField() : null;
+
+            rowErrors.add(new ItemBulkResult.RowError(line, field, messageSource.getMessage(error, locale)));
+        }
+
+        return rowErrors;
+    }
+}
@@ -0,0 +1,62 @@
+package hello.itemservice.web.basic.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 일괄 등록 결과
+ *
+ * 행 오류는 MAX_ERRORS 개까지만 담고, 실패한 행 수(failed)는 모두 센다.
+ */
+@Getter
+public class ItemBulkResult {
+
+    public static final int MAX_ERRORS = 1000;
+
+    private long total;
+    private long saved;
+    private long updated;
+    private long failed;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    void addTotal(int count) {
+        total += count;
+    }
+
+    void addSaved(int count) {
+        saved += count;
+    }
+
+    void addUpdated(int count) {
+        updated += count;
+    }
+
+    void addFailed(List<RowError> rowErrors) {
+
+        failed++;
+
+        for (RowError rowError : rowErrors) {
+
+            if (errors.size() < MAX_ERRORS) {
+
+                errors.add(rowError);
+            }
+        }
+    }
+
+    /**
+     * 행 오류
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+
+        private final long line;
+        private final String field; // 특정 필드 오류가 아니면 null
+        private final String message;
+    }
+}
@@ -0,0 +1,30 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+import lombok.Getter;
+import org.springframework.validation.ObjectError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 일괄 등록 파일의 한 행
+ *
+ * 변환에 실패한 필드는 item 에 비워두고 errors 에 오류를 남긴다.
+ */
+@Getter
+public class ItemRow {
+
+    private final long line;
+    private final Item item;
+    private final List<ObjectError> errors = new ArrayList<>();
+
+    public ItemRow(long line, Item item) {
+        this.line = line;
+        this.item = item;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
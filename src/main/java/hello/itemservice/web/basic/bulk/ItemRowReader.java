@@ -0,0 +1,20 @@
+package hello.itemservice.web.basic.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 일괄 등록 파일을 한 행씩 읽는다.
+ *
+ * 전체를 메모리에 올리지 않고 요청 본문을 읽는 만큼만 처리한다.
+ */
+public interface ItemRowReader extends Closeable {
+
+    /**
+     * 다음 행
+     *
+     * @return 더 이상 없으면 null
+     * @throws IOException
+     */
+    ItemRow next() throws IOException;
+}
@@ -0,0 +1,14 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 상품을 한 행씩 내보낸다. (ItemRowReader 로 다시 읽을 수 있는 형식)
+ */
+public interface ItemRowWriter extends Closeable {
+
+    void write(Item item) throws IOException;
+}
@@ -0,0 +1,80 @@
+package hello.itemservice.web.basic.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import hello.itemservice.domain.item.Item;
+import org.springframework.validation.ObjectError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * NDJSON 행 읽기 (한 줄에 상품 JSON 하나)
+ *
+ * 예) {"itemName":"itemA","price":10000,"quantity":10,"regions":["SEOUL"],"itemType":"FOOD"}
+ *
+ * id 가 있는 행은 수정, 없는 행은 등록으로 처리한다. 빈 줄은 건너뛴다.
+ * JSON 으로 읽을 수 없거나 상품 객체가 아닌 줄(예: null)은 줄 번호와 함께 행 오류로 처리한다.
+ */
+public class NdjsonItemRowReader implements ItemRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader itemReader;
+
+    private long line;
+
+    public NdjsonItemRowReader(BufferedReader reader, ObjectReader itemReader) {
+        this.reader = reader;
+        this.itemReader = itemReader;
+    }
+
+    @Override
+    public ItemRow next() throws IOException {
+
+        String text;
+
+        do {
+
+            text = reader.readLine();
+            line++;
+
+            if (text == null) {
+
+                return null;
+            }
+
+        } while (text.isBlank());
+
+        Item item;
+
+        try {
+
+            item = itemReader.readValue(text);
+
+        } catch (JsonProcessingException e) {
+
+            return errorRow("JSON 형식 오류");
+        }
+
+        // 한 줄 전체가 null 인 경우
+        if (item == null) {
+
+            return errorRow("상품 JSON 객체가 아닙니다.");
+        }
+
+        return new ItemRow(line, item);
+    }
+
+    private ItemRow errorRow(String message) {
+
+        ItemRow row = new ItemRow(line, new Item());
+        row.getErrors().add(new ObjectError("item", new String[]{"typeMismatch"}, null, message));
+
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,33 @@
+package hello.itemservice.web.basic.bulk;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import hello.itemservice.domain.item.Item;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * NDJSON 행 쓰기 (한 줄에 상품 JSON 하나)
+ */
+public class NdjsonItemRowWriter implements ItemRowWriter {
+
+    private final OutputStream out;
+    private final ObjectWriter itemWriter;
+
+    public NdjsonItemRowWriter(OutputStream out, ObjectWriter itemWriter) {
+        this.out = out;
+        this.itemWriter = itemWriter;
+    }
+
+    @Override
+    public void write(Item item) throws IOException {
+
+        out.write(itemWriter.writeValueAsBytes(item));
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
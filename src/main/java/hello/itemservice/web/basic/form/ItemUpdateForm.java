@@ -27,4 +27,7 @@ public class ItemUpdateForm {
     private List<String> regions;
     private ItemType itemType;
     private String deliveryCode;
+
+    // 수정 폼을 열 때의 수정 버전
+    private Integer version;
 }
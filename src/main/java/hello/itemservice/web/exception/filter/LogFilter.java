@@ -1,11 +1,11 @@
 package hello.itemservice.web.exception.filter;
 
+import hello.itemservice.util.IdGenerator;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.util.UUID;
 
 @Slf4j
 public class LogFilter implements Filter {
@@ -26,11 +26,11 @@ public class LogFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         String requestURI = httpRequest.getRequestURI();
 
-        String uuid = UUID.randomUUID().toString();
+        String uuid = IdGenerator.uniqueId();
 
         try {
 
-            log.info("REQUEST [{}][{}][{}]", uuid, request.getDispatcherType(), requestURI);
+            log.debug("REQUEST [{}][{}][{}]", uuid, request.getDispatcherType(), requestURI);
 
             chain.doFilter(request, response);
 
@@ -42,7 +42,7 @@ public class LogFilter implements Filter {
 
         } finally {
 
-            log.info("RESPONSE [{}][{}][{}]", uuid, request.getDispatcherType(), requestURI);
+            log.debug("RESPONSE [{}][{}][{}]", uuid, request.getDispatcherType(), requestURI);
         }
     }
 
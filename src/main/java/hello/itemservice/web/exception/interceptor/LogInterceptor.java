@@ -1,18 +1,33 @@
 package hello.itemservice.web.exception.interceptor;
 
+import hello.itemservice.util.IdGenerator;
+import hello.itemservice.web.log.AccessLog;
+import hello.itemservice.web.metrics.LatencyMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.UUID;
 
+/**
+ * 요청 로그 인터셉터
+ *
+ * 요청마다 로그를 여러 줄 쓰지 않고, 끝날 때 AccessLog 에 레코드 하나만 남긴다.
+ * 같은 시점에 핸들러별 응답 시간(preHandle ~ afterCompletion, 뷰 렌더링 포함)을 LatencyMetrics 에 기록한다.
+ */
 @Slf4j
+@RequiredArgsConstructor
 public class LogInterceptor implements HandlerInterceptor {
 
     public static final String LOG_ID = "logId";
 
+    private static final String START_TIME = LogInterceptor.class.getName() + ".START_TIME";
+
+    private final AccessLog accessLog;
+    private final LatencyMetrics latencyMetrics;
+
     @Override
     public boolean preHandle(
             HttpServletRequest request,
@@ -20,12 +35,8 @@ public class LogInterceptor implements HandlerInterceptor {
             Object handler
     ) throws Exception {
 
-        String requestURI = request.getRequestURI();
-        String uuid = UUID.randomUUID().toString();
-
-        request.setAttribute(LOG_ID, uuid);
-
-        log.info("REQUEST [{}][{}][{}][{}]", uuid, request.getDispatcherType(), requestURI, handler);
+        request.setAttribute(LOG_ID, IdGenerator.uniqueId());
+        request.setAttribute(START_TIME, System.nanoTime());
 
         return true;
     }
@@ -38,7 +49,7 @@ public class LogInterceptor implements HandlerInterceptor {
             ModelAndView modelAndView
     ) throws Exception {
 
-        log.info("postHandle [{}]", modelAndView);
+        log.trace("postHandle [{}]", modelAndView);
     }
 
     @Override
@@ -49,10 +60,16 @@ public class LogInterceptor implements HandlerInterceptor {
             Exception ex
     ) throws Exception {
 
-        String requestURI = request.getRequestURI();
         String logId = (String)request.getAttribute(LOG_ID);
+        Long startTime = (Long) request.getAttribute(START_TIME);
+        long durationNanos = startTime == null ? 0 : System.nanoTime() - startTime;
+
+        int status = response.getStatus();
+
+        accessLog.record(logId, request.getDispatcherType(), request.getMethod(), request.getRequestURI(),
+                status, durationNanos, handler, ex);
 
-        log.info("RESPONSE [{}][{}][{}]", logId, request.getDispatcherType(), requestURI);
+        latencyMetrics.record(handler, request.getDispatcherType(), durationNanos, ex != null || status >= 500);
 
         if (ex != null) {
 
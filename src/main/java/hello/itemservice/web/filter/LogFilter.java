@@ -1,11 +1,11 @@
 package hello.itemservice.web.filter;
 
+import hello.itemservice.util.IdGenerator;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.util.UUID;
 
 /**
  * 모든 요청을 로그로 남기는 필터
@@ -31,19 +31,19 @@ public class LogFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
 
-        log.info("log filter doFilter");
+        log.debug("log filter doFilter");
 
         // HttpServletRequest 로 다운캐스팅
         HttpServletRequest httpRequest = (HttpServletRequest) request;
 
         String requestURI = httpRequest.getRequestURI();
 
-        // HTTP 요청을 구분하기 위해 요청당 임의의 uuid 생성
-        String uuid = UUID.randomUUID().toString();
+        // HTTP 요청을 구분하기 위해 요청당 겹치지 않는 id 생성
+        String uuid = IdGenerator.uniqueId();
 
         try {
 
-            log.info("REQUEST [{}][{}]", uuid, requestURI);
+            log.debug("REQUEST [{}][{}]", uuid, requestURI);
 
             // 다음 필터가 있으면 필터를 호출하고, 필터가 없으면 서블릿을 호출
             chain.doFilter(request, response);
@@ -54,7 +54,7 @@ public class LogFilter implements Filter {
 
         } finally {
 
-            log.info("RESPONSE [{}][{}]", uuid, requestURI);
+            log.debug("RESPONSE [{}][{}]", uuid, requestURI);
         }
     }
 
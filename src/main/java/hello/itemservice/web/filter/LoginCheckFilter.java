@@ -1,24 +1,25 @@
 package hello.itemservice.web.filter;
 
-import hello.itemservice.web.SessionConst;
+import hello.itemservice.web.LoginMemberCache;
+import hello.itemservice.web.WhitelistPathMatcher;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.PatternMatchUtils;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
 /**
  * 인증 체크 필터
  */
 @Slf4j
+@RequiredArgsConstructor
 public class LoginCheckFilter implements Filter {
 
     // 인증과 무관하게 항상 허용
     // 화이트 리스트를 제외한 나머지 모든 경로에는 인증 체크 로직을 적용
-    private static final String[] whilteList = {"/", "/members/add", "/login", "/logout", "/css/*"};
+    private final WhitelistPathMatcher whitelist;
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
@@ -30,18 +31,17 @@ public class LoginCheckFilter implements Filter {
 
         try {
 
-            log.info("인증 체크 필터 시작 {}", requestURI);
+            log.debug("인증 체크 필터 시작 {}", requestURI);
 
             // 화이트 리스트를 제외한 모든 경우에 인증 체크 로직을 적용
             if (isLoginCheckPath(requestURI)) {
 
-                log.info("인증 체크 로직 실행 {}", requestURI);
+                log.debug("인증 체크 로직 실행 {}", requestURI);
 
-                HttpSession session = httpRequest.getSession(false);
+                // 조회 결과는 같은 요청의 인터셉터, ArgumentResolver 가 재사용
+                if (LoginMemberCache.get(httpRequest) == null) {
 
-                if (session == null || session.getAttribute(SessionConst.LOGIN_MEMBER) == null) {
-
-                    log.info("미인증 사용자 요청 {}", requestURI);
+                    log.debug("미인증 사용자 요청 {}", requestURI);
 
                     // 로그인으로 redirect
                     httpResponse.sendRedirect("/login?redirectURL=" + requestURI);
@@ -59,7 +59,7 @@ public class LoginCheckFilter implements Filter {
 
         } finally {
 
-            log.info("인증 체크 필터 종료 {}", requestURI);
+            log.debug("인증 체크 필터 종료 {}", requestURI);
         }
     }
 
@@ -71,6 +71,6 @@ public class LoginCheckFilter implements Filter {
      */
     private boolean isLoginCheckPath(String requestURI) {
 
-        return !PatternMatchUtils.simpleMatch(whilteList, requestURI);
+        return !whitelist.matches(requestURI);
     }
 }
@@ -1,31 +1,41 @@
 package hello.itemservice.web.interceptor;
 
-import hello.itemservice.web.SessionConst;
+import hello.itemservice.web.LoginMemberCache;
+import hello.itemservice.web.WhitelistPathMatcher;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 /**
  * 인증 체크 기능 인터셉터
+ *
+ * 화이트 리스트는 LoginCheckFilter 와 같은 WhitelistPathMatcher 를 쓴다.
  */
 @Slf4j
+@RequiredArgsConstructor
 public class LoginCheckInterceptor implements HandlerInterceptor {
 
+    private final WhitelistPathMatcher whitelist;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
 
         String requestURI = request.getRequestURI();
 
-        log.info("인증 체크 인터셉터 실행 {}", requestURI);
+        if (whitelist.matches(requestURI)) {
+
+            return true;
+        }
 
-        HttpSession session = request.getSession();
+        log.debug("인증 체크 인터셉터 실행 {}", requestURI);
 
-        if (session == null || session.getAttribute(SessionConst.LOGIN_MEMBER) == null) {
+        // 세션이 없으면 만들지 않고, 조회 결과는 같은 요청의 ArgumentResolver 가 재사용
+        if (LoginMemberCache.get(request) == null) {
 
-            log.info("미인증 사용자 요청");
+            log.debug("미인증 사용자 요청 {}", requestURI);
 
             response.sendRedirect("/login?redirectURL=" + requestURI);
 
@@ -1,5 +1,6 @@
 package hello.itemservice.web.interceptor;
 
+import hello.itemservice.util.IdGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -7,7 +8,6 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.UUID;
 
 /**
  * 요청 로그 인터셉터
@@ -23,7 +23,7 @@ public class LoginInterceptor implements HandlerInterceptor {
         String requestURI = request.getRequestURI();
 
         // 요청 로그를 구분하기 위한 uuid 생성
-        String uuid = UUID.randomUUID().toString();
+        String uuid = IdGenerator.uniqueId();
 
         // 스프링 인터셉터는 호출 시점이 완전히 분리되어 있으므로
         // preHandle 에서 지정한 값을 request 등에 담아 postHandle, afterCompletion 에서 함께 사용
@@ -0,0 +1,195 @@
+package hello.itemservice.web.log;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.DispatcherType;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 접근 로그
+ *
+ * 요청 하나에 레코드 하나를 남긴다. 요청 스레드는 링 버퍼(AccessLogBuffer)에 값만 쓰고 바로 돌아가며,
+ * 기록 스레드가 flush-interval 마다 모아서 로그로 쓴다.
+ *
+ * - 샘플링 : 정상 응답은 sample-rate 비율만 남긴다. (1.0 이면 전부)
+ *            오류(상태 코드 500 이상 또는 예외)와 slow-threshold 보다 오래 걸린 요청은 항상 남긴다.
+ * - 버퍼가 가득 차면 요청을 기다리게 하지 않고 버린다. 버린 수는 getDropped() 로 확인한다.
+ *
+ * 형식 : ACCESS 응답 시각 [logId][dispatcherType] METHOD URI status durationMs handler error
+ */
+@Slf4j
+@Component
+public class AccessLog {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final AccessLogBuffer buffer;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final long flushIntervalNanos;
+    private final Consumer<String> writer;
+
+    private final LongAdder dropped = new LongAdder();
+    private final StringBuilder line = new StringBuilder(256);
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AccessLog(
+            @Value("${access-log.buffer-size:8192}") int bufferSize,
+            @Value("${access-log.sample-rate:1.0}") double sampleRate,
+            @Value("${access-log.slow-threshold-millis:1000}") long slowThresholdMillis,
+            @Value("${access-log.flush-interval-millis:100}") long flushIntervalMillis
+    ) {
+
+        this(bufferSize, sampleRate, slowThresholdMillis, flushIntervalMillis, log::info);
+    }
+
+    /**
+     * @param writer 완성된 로그 한 줄을 쓰는 곳 (테스트용)
+     */
+    AccessLog(int bufferSize, double sampleRate, long slowThresholdMillis, long flushIntervalMillis, Consumer<String> writer) {
+
+        this.buffer = new AccessLogBuffer(bufferSize);
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.writer = writer;
+
+        this.flusher = new Thread(this::flushLoop, "access-log");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 요청 하나의 접근 로그 남기기
+     *
+     * @param logId
+     * @param dispatcherType
+     * @param method
+     * @param requestURI
+     * @param status
+     * @param durationNanos
+     * @param handler toString 은 기록 스레드에서 호출
+     * @param error 없으면 null
+     */
+    public void record(String logId, DispatcherType dispatcherType, String method, String requestURI,
+                       int status, long durationNanos, Object handler, Exception error) {
+
+        boolean always = error != null || status >= 500 || durationNanos >= slowThresholdNanos;
+
+        if (!always && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+
+            return;
+        }
+
+        long position = buffer.claim();
+
+        if (position < 0) {
+
+            dropped.increment();
+
+            return;
+        }
+
+        AccessLogRecord record = buffer.record(position);
+
+        record.timestamp = System.currentTimeMillis();
+        record.logId = logId;
+        record.dispatcherType = dispatcherType;
+        record.method = method;
+        record.requestURI = requestURI;
+        record.status = status;
+        record.durationNanos = durationNanos;
+        record.handler = handler;
+        record.error = error;
+
+        buffer.publish(position);
+    }
+
+    /**
+     * 버퍼가 가득 차서 버린 레코드 수
+     *
+     * @return
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 남은 레코드를 모두 쓰고 기록 스레드 종료
+     */
+    @PreDestroy
+    public void close() {
+
+        running = false;
+        LockSupport.unpark(flusher);
+
+        try {
+
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+
+        while (running) {
+
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            flush();
+        }
+
+        flush();
+    }
+
+    private void flush() {
+
+        try {
+
+            while (buffer.drain(this::write, BATCH_SIZE) == BATCH_SIZE) {
+
+                // 한 번에 BATCH_SIZE 개씩 비울 때까지 반복
+            }
+
+        } catch (RuntimeException e) {
+
+            log.warn("접근 로그를 쓰지 못했습니다.", e);
+        }
+    }
+
+    private void write(AccessLogRecord record) {
+
+        line.setLength(0);
+
+        line.append("ACCESS ").append(Instant.ofEpochMilli(record.timestamp))
+                .append(" [").append(record.logId)
+                .append("][").append(record.dispatcherType)
+                .append("] ").append(record.method)
+                .append(' ').append(record.requestURI)
+                .append(' ').append(record.status)
+                .append(' ').append(TimeUnit.NANOSECONDS.toMicros(record.durationNanos) / 1000.0).append("ms")
+                .append(' ').append(record.handler);
+
+        if (record.error != null) {
+
+            line.append(' ').append(record.error.getClass().getName())
+                    .append(": ").append(record.error.getMessage());
+        }
+
+        writer.accept(line.toString());
+    }
+}
@@ -0,0 +1,124 @@
+package hello.itemservice.web.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 접근 로그 링 버퍼 (여러 요청 스레드가 쓰고, 기록 스레드 하나가 읽음)
+ *
+ * 레코드 객체를 미리 만들어 두고 재사용하므로 요청마다 객체를 할당하지 않는다.
+ *
+ * 칸마다 순번(sequence)을 두어 잠금 없이 동작한다.
+ * - 쓰기 : 칸의 순번이 쓰려는 위치와 같으면 CAS 로 위치를 차지하고 값을 채운 다음 순번을 위치 + 1 로 바꾼다.
+ *          순번이 더 작으면 기록 스레드가 아직 읽지 않은 칸이므로 버퍼가 가득 찬 것이다.
+ * - 읽기 : 칸의 순번이 읽으려는 위치 + 1 이면 다 채워진 칸이다. 읽은 다음 순번을 위치 + 용량으로 바꿔 다음 바퀴에 쓰게 한다.
+ *
+ * 가득 차면 요청 스레드를 기다리게 하지 않고 false 를 반환한다.
+ */
+class AccessLogBuffer {
+
+    private final AccessLogRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * @param capacity 2의 거듭제곱
+     */
+    AccessLogBuffer(int capacity) {
+
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+
+            throw new IllegalArgumentException("접근 로그 버퍼 크기는 2의 거듭제곱이어야 합니다. capacity = " + capacity);
+        }
+
+        this.records = new AccessLogRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+
+            records[i] = new AccessLogRecord();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 쓸 위치 차지 (여러 스레드)
+     *
+     * 차지한 다음 record(position) 에 값을 채우고 publish(position) 를 호출한다.
+     *
+     * @return 버퍼가 가득 찼으면 -1
+     */
+    long claim() {
+
+        while (true) {
+
+            long position = tail.get();
+            long difference = sequences.get((int) (position & mask)) - position;
+
+            if (difference == 0) {
+
+                if (tail.compareAndSet(position, position + 1)) {
+
+                    return position;
+                }
+            }
+            else if (difference < 0) {
+
+                return -1;
+            }
+        }
+    }
+
+    AccessLogRecord record(long position) {
+
+        return records[(int) (position & mask)];
+    }
+
+    /**
+     * 다 채운 레코드를 기록 스레드에 공개
+     *
+     * @param position claim 으로 차지한 위치
+     */
+    void publish(long position) {
+
+        sequences.set((int) (position & mask), position + 1);
+    }
+
+    /**
+     * 채워진 레코드 읽기 (기록 스레드 하나)
+     *
+     * @param reader
+     * @param max 최대 읽을 개수
+     * @return 읽은 개수
+     */
+    int drain(Consumer<AccessLogRecord> reader, int max) {
+
+        int count = 0;
+
+        while (count < max) {
+
+            int index = (int) (head & mask);
+
+            if (sequences.get(index) != head + 1) {
+
+                break;
+            }
+
+            AccessLogRecord record = records[index];
+
+            reader.accept(record);
+            record.clear();
+
+            sequences.set(index, head + records.length);
+            head++;
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package hello.itemservice.web.log;
+
+import javax.servlet.DispatcherType;
+
+/**
+ * 접근 로그 레코드
+ *
+ * 링 버퍼의 칸마다 하나씩 미리 만들어 두고 재사용한다. 요청 스레드는 값만 채우고,
+ * 문자열로 바꾸는 일(핸들러 toString 포함)은 기록 스레드가 한다.
+ */
+class AccessLogRecord {
+
+    long timestamp;
+    String logId;
+    DispatcherType dispatcherType;
+    String method;
+    String requestURI;
+    int status;
+    long durationNanos;
+    Object handler;
+    Exception error;
+
+    void clear() {
+
+        logId = null;
+        dispatcherType = null;
+        method = null;
+        requestURI = null;
+        handler = null;
+        error = null;
+    }
+}
@@ -2,6 +2,7 @@ package hello.itemservice.web.login;
 
 import hello.itemservice.domain.login.LoginService;
 import hello.itemservice.domain.member.Member;
+import hello.itemservice.web.LoginMemberCache;
 import hello.itemservice.web.SessionConst;
 import hello.itemservice.web.session.SessionManager;
 import lombok.RequiredArgsConstructor;
@@ -200,6 +201,7 @@ public class LoginController {
 
         // 세션에 로그인 회원 정보 보관
         session.setAttribute(SessionConst.LOGIN_MEMBER, loginMember);
+        LoginMemberCache.evict(request);
 
         return "redirect:" + redirectURL;
     }
@@ -250,6 +252,8 @@ public class LoginController {
             session.invalidate();
         }
 
+        LoginMemberCache.evict(request);
+
         return "redirect:/";
     }
 
@@ -46,7 +46,17 @@ public class MemberController {
             return "members/addMemberForm";
         }
 
-        memberRepository.save(member);
+        try {
+
+            memberRepository.save(member);
+
+        } catch (IllegalStateException e) {
+
+            // 이미 사용 중인 로그인 아이디
+            bindingResult.rejectValue("loginId", "duplicate");
+
+            return "members/addMemberForm";
+        }
 
         return "redirect:/";
     }
@@ -0,0 +1,44 @@
+package hello.itemservice.web.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.servlet.DispatcherType;
+
+/**
+ * 핸들러 응답 시간 요약 (시간 단위 ms)
+ */
+@Getter
+@AllArgsConstructor
+public class HandlerLatency {
+
+    private final String handler;
+    private final DispatcherType dispatcherType;
+    private final long count;
+    private final long errors;
+    private final double mean;
+    private final double p50;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    static HandlerLatency of(String handler, DispatcherType dispatcherType, LatencyHistogram.Snapshot snapshot) {
+
+        return new HandlerLatency(
+                handler,
+                dispatcherType,
+                snapshot.getCount(),
+                snapshot.getErrors(),
+                millis(snapshot.getMeanMicros()),
+                millis(snapshot.percentileMicros(50)),
+                millis(snapshot.percentileMicros(99)),
+                millis(snapshot.percentileMicros(99.9)),
+                millis(snapshot.getMaxMicros())
+        );
+    }
+
+    private static double millis(double micros) {
+
+        return Math.round(micros) / 1000.0;
+    }
+}
@@ -0,0 +1,174 @@
+package hello.itemservice.web.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 응답 시간 히스토그램 (HDR 방식)
+ *
+ * 마이크로초 단위 값을 2의 거듭제곱 구간으로 나누고, 각 구간을 다시 SUB_BUCKETS 개로 똑같이 나눈 칸에 센다.
+ * 값의 크기와 무관하게 오차가 1 / SUB_BUCKETS (약 3%) 이내이며, 칸 수가 정해져 있어 메모리가 일정하다.
+ * - 0 ~ 63 µs : 1 µs 단위
+ * - 64 ~ 127 µs : 2 µs 단위, 128 ~ 255 µs : 4 µs 단위 ...
+ * - MAX_MICROS 보다 큰 값은 MAX_MICROS 로 센다.
+ *
+ * 기록은 칸 하나의 카운터를 올리는 것뿐이라 잠금이 없다. 백분위수는 조회할 때 칸을 모두 더해서 계산한다.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 2^40 µs (약 12일)
+    private static final int MAX_EXPONENT = 40;
+    static final long MAX_MICROS = (1L << MAX_EXPONENT) - 1;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * 응답 시간 기록
+     *
+     * @param durationNanos
+     * @param error
+     */
+    public void record(long durationNanos, boolean error) {
+
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(durationNanos), 0), MAX_MICROS);
+
+        counts.incrementAndGet(index(micros));
+        totalMicros.add(micros);
+
+        if (error) {
+
+            errors.increment();
+        }
+
+        long max = maxMicros.get();
+
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * 현재까지 기록한 값의 요약
+     *
+     * 기록 중에도 조회할 수 있으며, 그 사이 기록된 값은 일부만 반영될 수 있다.
+     *
+     * @return
+     */
+    public Snapshot snapshot() {
+
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+
+        return new Snapshot(copy, count, errors.sum(), totalMicros.sum(), maxMicros.get());
+    }
+
+    static int index(long micros) {
+
+        if (micros < SUB_BUCKETS) {
+
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * index 칸에 들어가는 가장 큰 값
+     */
+    static long highestValue(int index) {
+
+        int bucket = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+
+        if (bucket == 0) {
+
+            return subBucket;
+        }
+
+        int shift = bucket - 1;
+
+        return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long errors;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(long[] counts, long count, long errors, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.errors = errors;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public double getMeanMicros() {
+            return count == 0 ? 0 : (double) totalMicros / count;
+        }
+
+        /**
+         * 백분위수
+         *
+         * @param percentile 0 ~ 100 (예: 99.9)
+         * @return 해당 백분위수 값이 들어간 칸의 가장 큰 값 (µs). 최댓값을 넘지 않는다.
+         */
+        public long percentileMicros(double percentile) {
+
+            if (count == 0) {
+
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+
+                seen += counts[i];
+
+                if (seen >= rank) {
+
+                    return Math.min(highestValue(i), maxMicros);
+                }
+            }
+
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package hello.itemservice.web.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 핸들러별 응답 시간 지표
+ *
+ * 핸들러(컨트롤러 메서드) + DispatcherType 마다 LatencyHistogram 을 하나씩 둔다.
+ * 요청마다 키 객체를 만들지 않도록 핸들러 메서드(Method)로 먼저 찾고, DispatcherType 은 배열 위치로 찾는다.
+ */
+@Component
+public class LatencyMetrics {
+
+    private static final DispatcherType[] DISPATCHER_TYPES = DispatcherType.values();
+
+    private final ConcurrentHashMap<Object, HandlerHistograms> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * 응답 시간 기록
+     *
+     * @param handler 인터셉터가 받은 핸들러
+     * @param dispatcherType
+     * @param durationNanos
+     * @param error 예외가 발생했거나 상태 코드가 500 이상
+     */
+    public void record(Object handler, DispatcherType dispatcherType, long durationNanos, boolean error) {
+
+        Object key = keyOf(handler);
+        HandlerHistograms histograms = handlers.get(key);
+
+        if (histograms == null) {
+
+            histograms = handlers.computeIfAbsent(key, k -> new HandlerHistograms(nameOf(handler)));
+        }
+
+        histograms.get(dispatcherType).record(durationNanos, error);
+    }
+
+    /**
+     * 핸들러별 응답 시간 요약 (핸들러 이름, DispatcherType 순)
+     *
+     * @return
+     */
+    public List<HandlerLatency> getLatencies() {
+
+        List<HandlerLatency> result = new ArrayList<>();
+
+        for (HandlerHistograms histograms : handlers.values()) {
+
+            for (DispatcherType dispatcherType : DISPATCHER_TYPES) {
+
+                LatencyHistogram histogram = histograms.histograms.get(dispatcherType.ordinal());
+
+                if (histogram != null) {
+
+                    result.add(HandlerLatency.of(histograms.name, dispatcherType, histogram.snapshot()));
+                }
+            }
+        }
+
+        result.sort(Comparator.comparing(HandlerLatency::getHandler).thenComparing(HandlerLatency::getDispatcherType));
+
+        return result;
+    }
+
+    /**
+     * 컨트롤러 메서드는 요청마다 HandlerMethod 객체가 새로 만들어질 수 있으므로 Method 를 키로 쓴다.
+     */
+    private static Object keyOf(Object handler) {
+
+        if (handler instanceof HandlerMethod) {
+
+            return ((HandlerMethod) handler).getMethod();
+        }
+
+        return handler == null ? HandlerHistograms.class : handler.getClass();
+    }
+
+    private static String nameOf(Object handler) {
+
+        if (handler instanceof HandlerMethod) {
+
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+
+            return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        }
+
+        return handler == null ? "none" : handler.getClass().getSimpleName();
+    }
+
+    private static class HandlerHistograms {
+
+        final String name;
+        final AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<>(DISPATCHER_TYPES.length);
+
+        HandlerHistograms(String name) {
+            this.name = name;
+        }
+
+        LatencyHistogram get(DispatcherType dispatcherType) {
+
+            int index = dispatcherType.ordinal();
+            LatencyHistogram histogram = histograms.get(index);
+
+            if (histogram == null) {
+
+                histograms.compareAndSet(index, null, new LatencyHistogram());
+                histogram = histograms.get(index);
+            }
+
+            return histogram;
+        }
+    }
+}
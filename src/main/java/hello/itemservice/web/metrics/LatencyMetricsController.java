@@ -0,0 +1,28 @@
+package hello.itemservice.web.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 내부 확인용 지표 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class LatencyMetricsController {
+
+    private final LatencyMetrics latencyMetrics;
+
+    /**
+     * 핸들러별 응답 시간 (LogInterceptor 가 기록)
+     *
+     * @return
+     */
+    @GetMapping("/internal/latency")
+    public List<HandlerLatency> latency() {
+
+        return latencyMetrics.getLatencies();
+    }
+}
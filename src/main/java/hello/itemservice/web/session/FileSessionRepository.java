@@ -0,0 +1,433 @@
+package hello.itemservice.web.session;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * 파일 세션 저장소
+ *
+ * 세션마다 디렉토리에 파일 하나(파일명 = sessionId 의 SHA-256 hex)를 둔다. 서버에 상태가 없으므로
+ * 여러 서버가 같은 디렉토리(공유 파일 시스템)를 쓰면 어느 서버로 요청이 가도 같은 세션을 조회한다.
+ * 파일 형식은 SessionCodec 참고.
+ *
+ * sessionId 는 쿠키로 들고 다니는 인증 토큰이므로 파일 이름에 그대로 쓰지 않는다.
+ * (디렉토리 목록을 볼 수 있다고 세션을 가로챌 수 있으면 안 된다.)
+ * 파일 내용은 인증하지 않으므로 디렉토리는 신뢰할 수 있어야 한다. 디렉토리에 파일을 쓸 수 있으면
+ * 원하는 sessionId 로 로그인 세션을 만들 수 있으니 이 애플리케이션 서버들만 읽고 쓰도록 권한을 둔다.
+ *
+ * - 저장 : 임시 파일에 쓰고 이름을 바꾸므로 다른 서버가 쓰다 만 파일을 읽지 않는다.
+ * - 조회 : 파일을 읽고 만료 여부를 확인한다. 마지막 조회 시각은 touchInterval 이 지났을 때만 그 8 byte 를 덮어쓴다.
+ *          (요청마다 파일을 쓰지 않는 대신 유휴 만료가 최대 touchInterval 만큼 일찍 일어날 수 있다.)
+ * - 만료 : 조회 시점에 만료된 세션은 바로 지우고, 조회하지 않는 세션은 SWEEP_INTERVAL_MILLIS 마다 디렉토리를 훑어서 지운다.
+ * - 최대 개수 : 디렉토리를 훑을 때 maxSize 를 넘은 만큼 마지막 조회 시각이 오래된 세션부터 지운다.
+ *
+ * 여러 서버가 동시에 훑어도 삭제는 중복되어도 문제가 없다.
+ */
+@Slf4j
+public class FileSessionRepository implements SessionRepository {
+
+    static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    // 쿠키로 들어온 값이므로 다이제스트를 구하기 전에 확인한다.
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    private final long touchIntervalMillis;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private final ScheduledExecutorService sweeper;
+
+    private volatile int live;
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+
+    public FileSessionRepository(Path dir, long idleTimeoutMillis, long absoluteTimeoutMillis, int maxSize) throws IOException {
+
+        this(dir, idleTimeoutMillis, absoluteTimeoutMillis, maxSize, System::currentTimeMillis, true);
+    }
+
+    /**
+     * @param clock 현재 시각 (밀리초)
+     * @param startSweeper false 면 sweep 을 직접 호출해야 조회하지 않는 세션을 지운다. (테스트용)
+     */
+    FileSessionRepository(Path dir, long idleTimeoutMillis, long absoluteTimeoutMillis, int maxSize,
+                          LongSupplier clock, boolean startSweeper) throws IOException {
+
+        if (idleTimeoutMillis <= 0 || absoluteTimeoutMillis <= 0 || maxSize <= 0) {
+
+            throw new IllegalArgumentException("세션 만료 시간과 최대 개수는 0 보다 커야 합니다.");
+        }
+
+        Files.createDirectories(dir);
+
+        this.dir = dir;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.absoluteTimeoutMillis = absoluteTimeoutMillis;
+        this.touchIntervalMillis = Math.min(idleTimeoutMillis / 10, 60_000);
+        this.maxSize = maxSize;
+        this.clock = clock;
+
+        if (startSweeper) {
+
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+                Thread thread = new Thread(runnable, "session-sweeper");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+            sweeper.scheduleWithFixedDelay(this::sweep, 0, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        else {
+
+            sweeper = null;
+        }
+    }
+
+    @Override
+    public void put(String sessionId, Object value) {
+
+        if (!SESSION_ID.matcher(sessionId).matches()) {
+
+            throw new IllegalArgumentException("형식이 맞지 않는 sessionId 입니다.");
+        }
+
+        byte[] bytes = SessionCodec.encode(clock.getAsLong(), value);
+
+        String fileName = fileName(sessionId);
+        Path file = dir.resolve(fileName);
+        Path tempFile = dir.resolve(fileName + TEMP_SUFFIX);
+
+        try {
+
+            Files.write(tempFile, bytes);
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        created.incrementAndGet();
+    }
+
+    @Override
+    public Object get(String sessionId) {
+
+        if (!SESSION_ID.matcher(sessionId).matches()) {
+
+            return null;
+        }
+
+        Path file = dir.resolve(fileName(sessionId));
+        byte[] bytes;
+
+        try {
+
+            bytes = Files.readAllBytes(file);
+
+        } catch (NoSuchFileException e) {
+
+            return null;
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        long now = clock.getAsLong();
+
+        try {
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            long[] header = SessionCodec.readHeader(in);
+
+            if (expiresAt(header[0], header[1]) <= now) {
+
+                if (Files.deleteIfExists(file)) {
+
+                    expired.incrementAndGet();
+                }
+
+                return null;
+            }
+
+            Object value = SessionCodec.decodeValue(in);
+
+            if (now - header[1] >= touchIntervalMillis) {
+
+                touch(file, now);
+            }
+
+            return value;
+
+        } catch (IOException e) {
+
+            log.warn("세션 파일을 읽을 수 없어 삭제합니다. file = {}", file, e);
+            deleteQuietly(file);
+
+            return null;
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) {
+
+        if (!SESSION_ID.matcher(sessionId).matches()) {
+
+            return;
+        }
+
+        try {
+
+            if (Files.deleteIfExists(dir.resolve(fileName(sessionId)))) {
+
+                removed.incrementAndGet();
+            }
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * live 는 마지막으로 디렉토리를 훑었을 때의 세션 수이다. (모든 서버 합계)
+     */
+    @Override
+    public SessionStats getStats() {
+
+        return new SessionStats(live, created.get(), expired.get(), evicted.get(), removed.get());
+    }
+
+    /**
+     * 디렉토리를 훑어서 만료된 세션과 최대 개수를 넘은 세션 삭제
+     */
+    void sweep() {
+
+        long now = clock.getAsLong();
+
+        List<SessionFile> alive = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+
+            for (Path file : files) {
+
+                sweepFile(file, now, alive);
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            log.warn("세션 디렉토리를 훑지 못했습니다. dir = {}", dir, e);
+
+            return;
+        }
+
+        int excess = alive.size() - maxSize;
+
+        if (excess > 0) {
+
+            alive.sort(Comparator.comparingLong(sessionFile -> sessionFile.lastAccessedAt));
+
+            for (int i = 0; i < excess; i++) {
+
+                if (deleteQuietly(alive.get(i).file)) {
+
+                    evicted.incrementAndGet();
+                }
+            }
+        }
+
+        live = Math.min(alive.size(), maxSize);
+    }
+
+    @Override
+    public void close() {
+
+        if (sweeper != null) {
+
+            sweeper.shutdownNow();
+        }
+    }
+
+    private void sweepFile(Path file, long now, List<SessionFile> alive) throws IOException {
+
+        String fileName = file.getFileName().toString();
+
+        if (fileName.endsWith(TEMP_SUFFIX)) {
+
+            // 저장 중 멈춘 서버가 남긴 임시 파일
+            try {
+
+                if (now - Files.getLastModifiedTime(file).toMillis() > SWEEP_INTERVAL_MILLIS) {
+
+                    deleteQuietly(file);
+                }
+
+            } catch (NoSuchFileException e) {
+
+                // 그 사이 이름이 바뀐 파일
+            }
+
+            return;
+        }
+
+        if (!FILE_NAME.matcher(fileName).matches()) {
+
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(SessionCodec.HEADER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            int read = 0;
+
+            while (header.hasRemaining() && read >= 0) {
+
+                read = channel.read(header);
+            }
+
+        } catch (NoSuchFileException e) {
+
+            return;
+        }
+
+        if (header.hasRemaining() || header.getInt(0) != SessionCodec.MAGIC) {
+
+            log.warn("세션 파일 형식이 아니어서 삭제합니다. file = {}", file);
+            deleteQuietly(file);
+
+            return;
+        }
+
+        long createdAt = header.getLong(4);
+        long lastAccessedAt = header.getLong(SessionCodec.LAST_ACCESSED_POSITION);
+
+        if (expiresAt(createdAt, lastAccessedAt) <= now) {
+
+            if (deleteQuietly(file)) {
+
+                expired.incrementAndGet();
+            }
+
+            return;
+        }
+
+        alive.add(new SessionFile(file, lastAccessedAt));
+    }
+
+    /**
+     * 세션 파일 이름 (sessionId 의 SHA-256 hex)
+     */
+    static String fileName(String sessionId) {
+
+        byte[] digest;
+
+        try {
+
+            digest = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.US_ASCII));
+
+        } catch (NoSuchAlgorithmException e) {
+
+            // 모든 JVM 이 SHA-256 을 제공한다.
+            throw new IllegalStateException(e);
+        }
+
+        char[] name = new char[digest.length * 2];
+
+        for (int i = 0; i < digest.length; i++) {
+
+            name[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            name[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+
+        return new String(name);
+    }
+
+    private long expiresAt(long createdAt, long lastAccessedAt) {
+
+        return Math.min(lastAccessedAt + idleTimeoutMillis, createdAt + absoluteTimeoutMillis);
+    }
+
+    /**
+     * 마지막 조회 시각만 덮어쓰기
+     *
+     * 다른 서버가 그 사이 지웠으면 아무것도 하지 않는다.
+     */
+    private void touch(Path file, long now) {
+
+        ByteBuffer lastAccessedAt = ByteBuffer.allocate(8).putLong(0, now);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+            channel.write(lastAccessedAt, SessionCodec.LAST_ACCESSED_POSITION);
+
+        } catch (NoSuchFileException e) {
+
+            // 로그아웃 또는 만료로 삭제된 세션
+
+        } catch (IOException e) {
+
+            log.warn("세션 조회 시각을 갱신하지 못했습니다. file = {}", file, e);
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+
+        try {
+
+            return Files.deleteIfExists(file);
+
+        } catch (IOException e) {
+
+            log.warn("세션 파일을 삭제하지 못했습니다. file = {}", file, e);
+
+            return false;
+        }
+    }
+
+    private static class SessionFile {
+
+        final Path file;
+        final long lastAccessedAt;
+
+        SessionFile(Path file, long lastAccessedAt) {
+            this.file = file;
+            this.lastAccessedAt = lastAccessedAt;
+        }
+    }
+}
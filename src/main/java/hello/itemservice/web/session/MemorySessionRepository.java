@@ -0,0 +1,430 @@
+package hello.itemservice.web.session;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 메모리 세션 저장소
+ *
+ * 세션을 이 JVM 메모리에만 보관한다. 서버가 여러 대면 FileSessionRepository 를 사용한다.
+ *
+ * - 유휴 만료 : 마지막 조회 후 idleTimeout 이 지나면 만료
+ * - 절대 만료 : 생성 후 absoluteTimeout 이 지나면 조회 여부와 무관하게 만료
+ * - 최대 개수 : maxSize 를 넘으면 가장 오래 조회하지 않은 세션(LRU)부터 제거
+ *
+ * 만료 처리는 요청마다 전체를 훑지 않고 타이머 휠로 한다.
+ * 세션은 만료 예정 시각의 칸(slot)에 들어가고, 백그라운드 스레드가 TICK_MILLIS 마다 현재 칸만 확인한다.
+ * 조회할 때마다 칸을 옮기지 않고, 칸을 확인할 때 그 사이 조회된 세션이면 새 만료 예정 시각의 칸으로 옮긴다.
+ * 조회 시점에 이미 만료된 세션은 칸 확인을 기다리지 않고 바로 제거한다.
+ *
+ * 조회는 잠금 없이 ConcurrentHashMap 에서 찾는다. (조회끼리 서로 기다리지 않음)
+ * 조회 기록은 읽기 버퍼에 남기고, LRU 순서는 잠금을 잡은 쪽이 버퍼를 비우면서 한꺼번에 반영한다.
+ * - 조회 READ_BUFFER_DRAIN 번마다 tryLock 으로 비운다. 잠금이 사용 중이면 기다리지 않고 다음 기회로 넘긴다.
+ * - 저장(put)과 tick 은 잠금 안에서 먼저 버퍼를 비우므로, 제거할 세션을 고를 때 최근 조회가 반영된다.
+ * 버퍼가 가득 찬 채로 비워지지 않으면 오래된 기록을 덮어쓰므로 LRU 순서는 근사값이다. (만료 시각은 정확)
+ * 저장, 삭제, 만료 처리는 하나의 잠금 안에서 처리한다. (작업당 O(1))
+ */
+public class MemorySessionRepository implements SessionRepository {
+
+    static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    // 읽기 버퍼 크기와 비우기 주기 (2의 거듭제곱)
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_DRAIN = 32;
+
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 조회용. 변경은 잠금 안에서 lruOrder 와 함께 한다.
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+
+    // 조회 순서(access order) : 첫 번째가 가장 오래 조회하지 않은 세션. 잠금 안에서만 사용
+    private final LinkedHashMap<String, Entry> lruOrder = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 아직 lruOrder 에 반영하지 않은 조회 기록
+    private final AtomicReferenceArray<Entry> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCount = new AtomicLong();
+    private long drainedCount;
+
+    // 타이머 휠 : 칸마다 Entry 의 이중 연결 리스트
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+    private long currentTick;
+
+    private final ScheduledExecutorService timer;
+
+    private long created;
+    private long expired;
+    private long evicted;
+    private long removed;
+
+    public MemorySessionRepository(long idleTimeoutMillis, long absoluteTimeoutMillis, int maxSize) {
+
+        this(idleTimeoutMillis, absoluteTimeoutMillis, maxSize, System::currentTimeMillis, true);
+    }
+
+    /**
+     * @param clock 현재 시각 (밀리초)
+     * @param startTimer false 면 tick 을 직접 호출해야 만료 처리한다. (테스트용)
+     */
+    MemorySessionRepository(long idleTimeoutMillis, long absoluteTimeoutMillis, int maxSize, LongSupplier clock, boolean startTimer) {
+
+        if (idleTimeoutMillis <= 0 || absoluteTimeoutMillis <= 0 || maxSize <= 0) {
+
+            throw new IllegalArgumentException("세션 만료 시간과 최대 개수는 0 보다 커야 합니다.");
+        }
+
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.absoluteTimeoutMillis = absoluteTimeoutMillis;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.currentTick = clock.getAsLong() / TICK_MILLIS;
+
+        if (startTimer) {
+
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+                Thread thread = new Thread(runnable, "session-timer");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+            timer.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        else {
+
+            timer = null;
+        }
+    }
+
+    @Override
+    public void put(String sessionId, Object value) {
+
+        long now = clock.getAsLong();
+
+        lock.lock();
+
+        try {
+
+            drainReadBuffer();
+
+            Entry old = lruOrder.remove(sessionId);
+
+            if (old != null) {
+
+                sessions.remove(sessionId);
+                unschedule(old);
+            }
+
+            if (lruOrder.size() >= maxSize) {
+
+                Iterator<Entry> eldest = lruOrder.values().iterator();
+                Entry entry = eldest.next();
+
+                eldest.remove();
+                sessions.remove(entry.sessionId);
+                unschedule(entry);
+                evicted++;
+            }
+
+            Entry entry = new Entry(sessionId, value, now);
+
+            lruOrder.put(sessionId, entry);
+            sessions.put(sessionId, entry);
+            schedule(entry, expiresAt(entry));
+            created++;
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object get(String sessionId) {
+
+        long now = clock.getAsLong();
+        Entry entry = sessions.get(sessionId);
+
+        if (entry == null) {
+
+            return null;
+        }
+
+        if (expiresAt(entry) <= now) {
+
+            expire(entry);
+
+            return null;
+        }
+
+        entry.lastAccessedAt = now;
+        recordRead(entry);
+
+        return entry.value;
+    }
+
+    @Override
+    public void remove(String sessionId) {
+
+        lock.lock();
+
+        try {
+
+            Entry entry = lruOrder.remove(sessionId);
+
+            if (entry != null) {
+
+                sessions.remove(sessionId);
+                unschedule(entry);
+                removed++;
+            }
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SessionStats getStats() {
+
+        lock.lock();
+
+        try {
+
+            return new SessionStats(lruOrder.size(), created, expired, evicted, removed);
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 지난 tick 의 칸을 확인해서 만료된 세션 제거
+     *
+     * 오래 호출되지 않았더라도 휠 한 바퀴만 확인하면 된다. (칸에는 만료 예정 tick 이 지난 세션만 처리)
+     */
+    void tick() {
+
+        long now = clock.getAsLong();
+        long nowTick = now / TICK_MILLIS;
+
+        lock.lock();
+
+        try {
+
+            drainReadBuffer();
+
+            long steps = Math.min(nowTick - currentTick, WHEEL_SIZE);
+
+            for (long step = 1; step <= steps; step++) {
+
+                expireSlot((int) ((currentTick + step) & (WHEEL_SIZE - 1)), nowTick, now);
+            }
+
+            currentTick = Math.max(currentTick, nowTick);
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+
+        if (timer != null) {
+
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * 조회 시점에 이미 만료된 세션 제거
+     *
+     * 그 사이 다른 스레드가 제거했거나 같은 id 로 새로 저장했으면 그대로 둔다.
+     */
+    private void expire(Entry entry) {
+
+        lock.lock();
+
+        try {
+
+            if (lruOrder.get(entry.sessionId) == entry) {
+
+                lruOrder.remove(entry.sessionId);
+                sessions.remove(entry.sessionId);
+                unschedule(entry);
+                expired++;
+            }
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 조회 기록을 읽기 버퍼에 남기고, READ_BUFFER_DRAIN 번마다 잠금이 비어 있으면 버퍼를 비운다.
+     */
+    private void recordRead(Entry entry) {
+
+        long count = readCount.getAndIncrement();
+
+        readBuffer.lazySet((int) (count & (READ_BUFFER_SIZE - 1)), entry);
+
+        if ((count & (READ_BUFFER_DRAIN - 1)) == READ_BUFFER_DRAIN - 1 && lock.tryLock()) {
+
+            try {
+
+                drainReadBuffer();
+
+            } finally {
+
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 읽기 버퍼의 조회 기록을 lruOrder 에 반영 (잠금 안에서 호출)
+     *
+     * 이미 제거된 세션의 기록은 lruOrder 에 없으므로 무시된다.
+     */
+    private void drainReadBuffer() {
+
+        long count = readCount.get();
+
+        if (count == drainedCount) {
+
+            return;
+        }
+
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+
+            Entry entry = readBuffer.getAndSet(i, null);
+
+            if (entry != null) {
+
+                lruOrder.get(entry.sessionId);
+            }
+        }
+
+        drainedCount = count;
+    }
+
+    private void expireSlot(int slot, long nowTick, long now) {
+
+        Entry entry = wheel[slot];
+
+        while (entry != null) {
+
+            Entry next = entry.next;
+
+            // 아직 이번 바퀴가 아닌 세션
+            if (entry.deadlineTick <= nowTick) {
+
+                long expiresAt = expiresAt(entry);
+
+                unschedule(entry);
+
+                if (expiresAt <= now) {
+
+                    lruOrder.remove(entry.sessionId);
+                    sessions.remove(entry.sessionId);
+                    expired++;
+                }
+                else {
+
+                    // 그 사이 조회된 세션
+                    schedule(entry, expiresAt);
+                }
+            }
+
+            entry = next;
+        }
+    }
+
+    private long expiresAt(Entry entry) {
+
+        return Math.min(entry.lastAccessedAt + idleTimeoutMillis, entry.createdAt + absoluteTimeoutMillis);
+    }
+
+    private void schedule(Entry entry, long expiresAt) {
+
+        // 만료 시각이 속한 tick 이 끝난 다음 tick 에 확인
+        long deadlineTick = Math.max(expiresAt / TICK_MILLIS + 1, currentTick + 1);
+        int slot = (int) (deadlineTick & (WHEEL_SIZE - 1));
+
+        entry.deadlineTick = deadlineTick;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = wheel[slot];
+
+        if (wheel[slot] != null) {
+
+            wheel[slot].prev = entry;
+        }
+
+        wheel[slot] = entry;
+    }
+
+    private void unschedule(Entry entry) {
+
+        if (entry.prev != null) {
+
+            entry.prev.next = entry.next;
+        }
+        else if (wheel[entry.slot] == entry) {
+
+            wheel[entry.slot] = entry.next;
+        }
+
+        if (entry.next != null) {
+
+            entry.next.prev = entry.prev;
+        }
+
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private static class Entry {
+
+        final String sessionId;
+        final Object value;
+        final long createdAt;
+
+        // 조회는 잠금 없이 갱신한다.
+        volatile long lastAccessedAt;
+
+        // 타이머 휠
+        long deadlineTick;
+        int slot;
+        Entry prev;
+        Entry next;
+
+        Entry(String sessionId, Object value, long now) {
+            this.sessionId = sessionId;
+            this.value = value;
+            this.createdAt = now;
+            this.lastAccessedAt = now;
+        }
+    }
+}
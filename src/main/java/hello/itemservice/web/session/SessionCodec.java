@@ -0,0 +1,147 @@
+package hello.itemservice.web.session;
+
+import hello.itemservice.domain.member.Member;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 세션 파일 변환
+ *
+ * 세션 파일 : [magic int][생성 시각 long][마지막 조회 시각 long][값 종류 byte][값]
+ *
+ * 값 종류
+ * - MEMBER : 세션용 회원 형식 (id, 로그인 아이디, 이름). 비밀번호는 공유 디렉토리에 쓰지 않으므로 조회한 회원의 비밀번호는 null
+ * - STRING : writeUTF
+ *
+ * 세션 디렉토리는 여러 서버가 함께 쓰므로 읽은 내용으로 임의의 객체를 만들지 않는다. (자바 직렬화 사용 안 함)
+ * 그 외 종류의 값은 저장할 수 없고, 알 수 없는 값 종류의 파일은 깨진 파일로 본다.
+ */
+class SessionCodec {
+
+    static final int MAGIC = 0x53455353;
+    static final int HEADER_SIZE = 20;
+
+    // 마지막 조회 시각 위치. 조회 시각만 바꿀 때는 이 위치의 8 byte 만 덮어쓴다.
+    static final int LAST_ACCESSED_POSITION = 12;
+
+    // 1 (비밀번호를 포함한 회원), 3 (자바 직렬화) 는 이전 형식이므로 다시 쓰지 않는다.
+    private static final byte STRING = 2;
+    private static final byte MEMBER = 4;
+
+    private SessionCodec() {
+    }
+
+    static byte[] encode(long createdAt, Object value) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+            out.writeInt(MAGIC);
+            out.writeLong(createdAt);
+            out.writeLong(createdAt);
+
+            if (value instanceof Member && ((Member) value).getId() != null) {
+
+                out.writeByte(MEMBER);
+                writeMember(out, (Member) value);
+            }
+            else if (value instanceof String) {
+
+                out.writeByte(STRING);
+                out.writeUTF((String) value);
+            }
+            else {
+
+                throw new IllegalArgumentException("파일 세션 저장소에 저장할 수 없는 값입니다. type = "
+                        + (value == null ? null : value.getClass().getName()));
+            }
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 헤더 다음의 값 읽기
+     *
+     * @param in 헤더를 읽은 다음 위치
+     * @return
+     * @throws IOException 값 종류를 알 수 없거나 값이 잘린 경우
+     */
+    static Object decodeValue(DataInputStream in) throws IOException {
+
+        byte type = in.readByte();
+
+        switch (type) {
+
+            case MEMBER:
+                return readMember(in);
+
+            case STRING:
+                return in.readUTF();
+
+            default:
+                throw new IOException("알 수 없는 세션 값 종류입니다. type = " + type);
+        }
+    }
+
+    /**
+     * 헤더 읽기
+     *
+     * @param in
+     * @return [생성 시각, 마지막 조회 시각]
+     * @throws IOException 세션 파일 형식이 아닌 경우
+     */
+    static long[] readHeader(DataInput in) throws IOException {
+
+        if (in.readInt() != MAGIC) {
+
+            throw new IOException("세션 파일 형식이 아닙니다.");
+        }
+
+        return new long[]{in.readLong(), in.readLong()};
+    }
+
+    private static void writeMember(DataOutput out, Member member) throws IOException {
+
+        out.writeLong(member.getId());
+        writeNullableUTF(out, member.getLoginId());
+        writeNullableUTF(out, member.getName());
+    }
+
+    private static Member readMember(DataInput in) throws IOException {
+
+        Member member = new Member();
+
+        member.setId(in.readLong());
+        member.setLoginId(readNullableUTF(in));
+        member.setName(readNullableUTF(in));
+
+        return member;
+    }
+
+    private static void writeNullableUTF(DataOutput out, String value) throws IOException {
+
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInput in) throws IOException {
+
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
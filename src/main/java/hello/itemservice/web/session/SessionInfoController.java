@@ -1,5 +1,6 @@
 package hello.itemservice.web.session;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -10,8 +11,11 @@ import java.util.Date;
 
 @Slf4j
 @RestController
+@RequiredArgsConstructor
 public class SessionInfoController {
 
+    private final SessionManager sessionManager;
+
     /**
      * 세션 정보 확인
      * 
@@ -49,4 +53,15 @@ public class SessionInfoController {
 
         return "세션 출력";
     }
+
+    /**
+     * 직접 만든 세션 저장소(SessionManager) 지표
+     *
+     * @return
+     */
+    @GetMapping("/session-store-info")
+    public SessionStats sessionStoreInfo() {
+
+        return sessionManager.getStats();
+    }
 }
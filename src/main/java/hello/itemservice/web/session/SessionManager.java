@@ -1,20 +1,79 @@
 package hello.itemservice.web.session;
 
+import hello.itemservice.util.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Enumeration;
 
+/**
+ * 세션 관리
+ *
+ * 세션은 SessionRepository 에 보관하므로 로그아웃하지 않고 떠난 세션도 만료 시간이 지나면 제거되고,
+ * 세션 수가 session.store.max-size 를 넘으면 가장 오래 사용하지 않은 세션부터 제거된다.
+ * 저장소는 session.store.type 으로 고른다. (SessionStoreType 참고)
+ *
+ * 로그인 확인처럼 매 요청마다 세션을 조회하는 곳은 getSessionV3 를 사용한다.
+ */
 @Component
 public class SessionManager {
 
     public static final String SESSION_COOKIE_NAME = "mySessionId";
-    private Map<String, Object> sessionStore = new ConcurrentHashMap<>();
+
+    // 요청 한 번 안에서 조회한 세션을 보관하는 요청 속성
+    static final String SESSION_ATTRIBUTE = SessionManager.class.getName() + ".SESSION";
+
+    // 세션이 없다는 조회 결과도 보관하기 위한 값
+    private static final Object NO_SESSION = new Object();
+
+    private final SessionRepository sessionRepository;
+
+    public SessionManager() {
+
+        this(new MemorySessionRepository(1800 * 1000, 43200 * 1000, 100_000));
+    }
+
+    public SessionManager(SessionRepository sessionRepository) {
+
+        this.sessionRepository = sessionRepository;
+    }
+
+    @Autowired
+    public SessionManager(
+            @Value("${session.store.type:MEMORY}") SessionStoreType storeType,
+            @Value("${session.store.dir:}") String storeDir,
+            @Value("${session.store.idle-timeout-seconds:1800}") long idleTimeoutSeconds,
+            @Value("${session.store.absolute-timeout-seconds:43200}") long absoluteTimeoutSeconds,
+            @Value("${session.store.max-size:100000}") int maxSize
+    ) throws IOException {
+
+        this(createRepository(storeType, storeDir, idleTimeoutSeconds * 1000, absoluteTimeoutSeconds * 1000, maxSize));
+    }
+
+    private static SessionRepository createRepository(SessionStoreType storeType, String storeDir,
+                                                      long idleTimeoutMillis, long absoluteTimeoutMillis, int maxSize) throws IOException {
+
+        if (storeType == SessionStoreType.FILE) {
+
+            if (!StringUtils.hasText(storeDir)) {
+
+                throw new IllegalArgumentException("session.store.type=FILE 이면 session.store.dir 을 지정해야 합니다.");
+            }
+
+            return new FileSessionRepository(Paths.get(storeDir), idleTimeoutMillis, absoluteTimeoutMillis, maxSize);
+        }
+
+        return new MemorySessionRepository(idleTimeoutMillis, absoluteTimeoutMillis, maxSize);
+    }
 
     /**
      * 세션 생성
@@ -29,10 +88,10 @@ public class SessionManager {
     public void createSession(Object value, HttpServletResponse response) {
 
         // sessionId 생성
-        String sessionId = UUID.randomUUID().toString();
+        String sessionId = IdGenerator.secureId();
 
         // 값을 세션에 저장
-        sessionStore.put(sessionId, value);
+        sessionRepository.put(sessionId, value);
 
         // 쿠키 생성
         Cookie mySessionCookie = new Cookie(SESSION_COOKIE_NAME, sessionId);
@@ -58,7 +117,7 @@ public class SessionManager {
 
             if (cookie.getName().equals(SESSION_COOKIE_NAME)) {
 
-                return sessionStore.get(cookie.getValue());
+                return sessionRepository.get(cookie.getValue());
             }
         }
 
@@ -82,7 +141,145 @@ public class SessionManager {
             return null;
         }
 
-        return sessionStore.get(sessionCookie.getValue());
+        return sessionRepository.get(sessionCookie.getValue());
+    }
+
+    /**
+     * 세션 조회 방법3
+     *
+     * Cookie 헤더에서 세션 쿠키 값만 바로 찾으므로 서블릿 컨테이너가 Cookie 객체 배열을 만들지 않는다.
+     * 조회 결과(없음 포함)는 요청 속성에 보관해서, 같은 요청에서 다시 호출하면 헤더와 세션 저장소를 다시 보지 않는다.
+     *
+     * @param request
+     * @return
+     */
+    public Object getSessionV3(HttpServletRequest request) {
+
+        Object cached = request.getAttribute(SESSION_ATTRIBUTE);
+
+        if (cached != null) {
+
+            return cached == NO_SESSION ? null : cached;
+        }
+
+        String sessionId = findCookieValue(request, SESSION_COOKIE_NAME);
+        Object session = sessionId == null ? null : sessionRepository.get(sessionId);
+
+        request.setAttribute(SESSION_ATTRIBUTE, session == null ? NO_SESSION : session);
+
+        return session;
+    }
+
+    /**
+     * 쿠키 값 조회
+     *
+     * Cookie 헤더를 직접 훑어서 이름이 같은 쿠키의 값만 꺼낸다. (값 문자열 외에는 할당하지 않음)
+     * 값이 " 로 감싸져 있으면 " 를 벗긴다.
+     *
+     * @param request
+     * @param cookieName
+     * @return 없으면 null
+     */
+    public static String findCookieValue(HttpServletRequest request, String cookieName) {
+
+        Enumeration<String> headers = request.getHeaders("Cookie");
+
+        if (headers == null) {
+
+            return null;
+        }
+
+        while (headers.hasMoreElements()) {
+
+            String value = findCookieValue(headers.nextElement(), cookieName);
+
+            if (value != null) {
+
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Cookie 헤더 하나에서 쿠키 값 조회
+     *
+     * 형식 : name1=value1; name2=value2
+     */
+    static String findCookieValue(String header, String cookieName) {
+
+        int length = header.length();
+        int i = 0;
+
+        while (i < length) {
+
+            // 이름 앞의 공백
+            while (i < length && isWhitespace(header.charAt(i))) {
+
+                i++;
+            }
+
+            int nameStart = i;
+
+            while (i < length && header.charAt(i) != '=' && header.charAt(i) != ';') {
+
+                i++;
+            }
+
+            int nameEnd = i;
+
+            while (nameEnd > nameStart && isWhitespace(header.charAt(nameEnd - 1))) {
+
+                nameEnd--;
+            }
+
+            if (i < length && header.charAt(i) == '=') {
+
+                i++;
+
+                int valueStart = i;
+
+                while (i < length && header.charAt(i) != ';') {
+
+                    i++;
+                }
+
+                if (nameEnd - nameStart == cookieName.length()
+                        && header.regionMatches(nameStart, cookieName, 0, cookieName.length())) {
+
+                    int valueEnd = i;
+
+                    while (valueStart < valueEnd && isWhitespace(header.charAt(valueStart))) {
+
+                        valueStart++;
+                    }
+
+                    while (valueEnd > valueStart && isWhitespace(header.charAt(valueEnd - 1))) {
+
+                        valueEnd--;
+                    }
+
+                    if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+
+                        valueStart++;
+                        valueEnd--;
+                    }
+
+                    return header.substring(valueStart, valueEnd);
+                }
+            }
+
+            // 다음 쿠키
+            i++;
+        }
+
+        return null;
+    }
+
+    private static boolean isWhitespace(char c) {
+
+        return c == ' ' || c == '\t';
     }
 
     /**
@@ -107,6 +304,20 @@ public class SessionManager {
                 .orElse(null);
     }
 
+    /**
+     * 세션 저장소 지표
+     *
+     * @return
+     */
+    public SessionStats getStats() {
+        return sessionRepository.getStats();
+    }
+
+    @PreDestroy
+    public void close() {
+        sessionRepository.close();
+    }
+
     /**
      * 세션 만료
      *
@@ -114,11 +325,13 @@ public class SessionManager {
      */
     public void expireCookie(HttpServletRequest request) {
 
-        Cookie sessionCookie = findCookie(request, SESSION_COOKIE_NAME);
+        String sessionId = findCookieValue(request, SESSION_COOKIE_NAME);
 
-        if (sessionCookie != null) {
+        if (sessionId != null) {
 
-            sessionStore.remove(sessionCookie.getValue());
+            sessionRepository.remove(sessionId);
         }
+
+        request.removeAttribute(SESSION_ATTRIBUTE);
     }
 }
@@ -0,0 +1,48 @@
+package hello.itemservice.web.session;
+
+import java.io.Closeable;
+
+/**
+ * 세션 저장소
+ *
+ * SessionManager 가 세션 값을 보관하는 곳이다. 구현체는 SessionStoreType 으로 고른다.
+ * - MemorySessionRepository : 이 JVM 메모리에 보관 (기본값)
+ * - FileSessionRepository : 여러 서버가 함께 쓰는 디렉토리에 보관
+ *
+ * 구현체는 유휴 만료, 절대 만료 시간이 지난 세션을 조회하지 않아야 한다.
+ */
+public interface SessionRepository extends Closeable {
+
+    /**
+     * 세션 저장
+     *
+     * @param sessionId
+     * @param value
+     */
+    void put(String sessionId, Object value);
+
+    /**
+     * 세션 조회 (유휴 만료 시각 연장)
+     *
+     * @param sessionId
+     * @return 없거나 만료되었으면 null
+     */
+    Object get(String sessionId);
+
+    /**
+     * 세션 삭제
+     *
+     * @param sessionId
+     */
+    void remove(String sessionId);
+
+    /**
+     * 세션 저장소 지표
+     *
+     * @return
+     */
+    SessionStats getStats();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,20 @@
+package hello.itemservice.web.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 세션 저장소 지표
+ *
+ * live 외의 값은 이 서버에서 처리한 건수다.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionStats {
+
+    private final int live;       // 현재 세션 수
+    private final long created;   // 생성된 세션 수
+    private final long expired;   // 만료로 제거된 세션 수
+    private final long evicted;   // 최대 개수를 넘어 제거된 세션 수
+    private final long removed;   // 로그아웃으로 삭제된 세션 수
+}
@@ -0,0 +1,12 @@
+package hello.itemservice.web.session;
+
+/**
+ * 세션 저장소 종류
+ *
+ * MEMORY : 이 JVM 메모리에 보관 (기본값). 서버가 한 대일 때 사용
+ * FILE : session.store.dir 디렉토리에 세션마다 파일 하나로 보관. 여러 서버가 같은 디렉토리를 공유하면 고정 세션 없이 부하 분산 가능
+ */
+public enum SessionStoreType {
+
+    MEMORY, FILE
+}
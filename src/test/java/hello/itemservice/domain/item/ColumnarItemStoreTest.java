@@ -0,0 +1,136 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 컬럼 기반 상품 저장 엔진 테스트
+ */
+class ColumnarItemStoreTest {
+
+    ColumnarItemStore store = new ColumnarItemStore();
+
+    /**
+     * 모든 필드가 그대로 복원되어야 한다.
+     */
+    @Test
+    void putAndGet() {
+
+        // given
+        Item item = new Item("itemA", 10000, 10);
+
+        item.setId(1L);
+        item.setOpen(true);
+        item.setRegions(List.of("SEOUL", "JEJU"));
+        item.setItemType(ItemType.FOOD);
+        item.setDeliveryCode("FAST");
+
+        // when
+        store.put(item);
+
+        // then
+        assertThat(store.get(1L)).isEqualTo(item);
+        assertThat(store.get(2L)).isNull();
+    }
+
+    /**
+     * null 필드도 null 로 복원되어야 한다.
+     */
+    @Test
+    void nullFields() {
+
+        Item item = new Item();
+        item.setId(1L);
+
+        store.put(item);
+
+        assertThat(store.get(1L)).isEqualTo(item);
+    }
+
+    /**
+     * 같은 id 로 저장하면 교체된다.
+     */
+    @Test
+    void replace() {
+
+        Item item = new Item("itemA", 10000, 10);
+        item.setId(1L);
+        store.put(item);
+
+        Item updateItem = new Item("itemB", 20000, 20);
+        updateItem.setId(1L);
+        store.put(updateItem);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get(1L)).isEqualTo(updateItem);
+    }
+
+    /**
+     * 삭제하면 마지막 행이 빈자리로 옮겨져도 나머지 상품은 그대로 조회되어야 한다.
+     */
+    @Test
+    void remove() {
+
+        for (long id = 1; id <= 3000; id++) {
+
+            Item item = new Item("item" + id, (int) id, 1);
+            item.setId(id);
+
+            store.put(item);
+        }
+
+        for (long id = 1; id <= 3000; id += 3) {
+
+            store.remove(id);
+        }
+
+        store.remove(9999L);
+
+        assertThat(store.size()).isEqualTo(2000);
+
+        for (long id = 1; id <= 3000; id++) {
+
+            if (id % 3 == 1) {
+
+                assertThat(store.get(id)).isNull();
+            }
+            else {
+
+                assertThat(store.get(id).getItemName()).isEqualTo("item" + id);
+            }
+        }
+    }
+
+    /**
+     * 초기 용량을 넘어서 저장해도 모두 조회되어야 한다.
+     */
+    @Test
+    void grow() {
+
+        int count = 10_000;
+
+        for (long id = 1; id <= count; id++) {
+
+            Item item = new Item("item" + id, (int) id, 1);
+            item.setId(id);
+
+            store.put(item);
+        }
+
+        assertThat(store.size()).isEqualTo(count);
+        assertThat(store.values()).hasSize(count);
+
+        for (long id = 1; id <= count; id++) {
+
+            assertThat(store.get(id).getPrice()).isEqualTo((int) id);
+        }
+
+        store.clear();
+
+        assertThat(store.size()).isZero();
+        assertThat(store.get(1L)).isNull();
+    }
+}
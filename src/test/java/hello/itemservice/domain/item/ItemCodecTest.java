@@ -0,0 +1,69 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 상품 저장소 로그 레코드 변환 테스트
+ */
+class ItemCodecTest {
+
+    /**
+     * isWritable 이 true 인 상품은 레코드로 쓰고 그대로 읽는다.
+     */
+    @Test
+    void writableItem() throws IOException {
+
+        // given
+        Item item = new Item("가".repeat(0xFFFF / 3), 10000, 10);
+
+        item.setId(1L);
+        item.setRegions(List.of("SEOUL", "a".repeat(0xFFFF)));
+
+        // when
+        byte[] record = ItemCodec.put(item);
+
+        // then
+        assertThat(ItemCodec.isWritable(item)).isTrue();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        assertThat(in.readByte()).isEqualTo(ItemCodec.PUT);
+
+        Item result = ItemCodec.readItem(in);
+        assertThat(result.getItemName()).isEqualTo(item.getItemName());
+        assertThat(result.getRegions()).isEqualTo(item.getRegions());
+    }
+
+    /**
+     * 문자열이 64KB 를 넘거나 지역이 너무 많으면 isWritable 이 false 이고 레코드를 만들지 않는다.
+     */
+    @Test
+    void notWritableItem() {
+
+        Item longName = new Item("가".repeat(0xFFFF / 3 + 1), 10000, 10);
+        longName.setId(1L);
+
+        Item longDeliveryCode = new Item("itemA", 10000, 10);
+        longDeliveryCode.setId(1L);
+        longDeliveryCode.setDeliveryCode("a".repeat(0x10000));
+
+        Item manyRegions = new Item("itemA", 10000, 10);
+        manyRegions.setId(1L);
+        manyRegions.setRegions(Collections.nCopies(0x10000, "SEOUL"));
+
+        for (Item item : List.of(longName, longDeliveryCode, manyRegions)) {
+
+            assertThat(ItemCodec.isWritable(item)).isFalse();
+            assertThatThrownBy(() -> ItemCodec.put(item))
+                    .isInstanceOf(UncheckedIOException.class);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 상품 속성 보조 인덱스 테스트
+ */
+class ItemIndexTest {
+
+    ItemIndex itemIndex = new ItemIndex();
+
+    /**
+     * 가격 범위가 가장 좁은 조건이면 가격 범위에서 시작해도 결과는 id 오름차순
+     */
+    @Test
+    void searchStartingFromPriceRange() {
+
+        // given
+        for (long id = 1; id <= 100; id++) {
+
+            // id 가 클수록 가격이 낮다
+            itemIndex.update(null, item(id, 100000 - (int) id * 100, id % 2 == 0));
+        }
+
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setOpen(true);
+        cond.setMinPrice(100000 - 10 * 100);
+        cond.setMaxPrice(100000 - 5 * 100);
+
+        // when
+        List<Long> ids = itemIndex.search(cond, 10);
+
+        // then
+        assertThat(ids).containsExactly(6L, 8L, 10L);
+    }
+
+    /**
+     * 비트맵 조건에서 시작해서 가격은 상품별로 확인
+     */
+    @Test
+    void searchStartingFromBitmap() {
+
+        // given
+        for (long id = 1; id <= 100; id++) {
+
+            itemIndex.update(null, item(id, 10000, id <= 3));
+        }
+
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setOpen(true);
+        cond.setMaxPrice(10000);
+
+        // when
+        List<Long> ids = itemIndex.search(cond, 10);
+
+        // then
+        assertThat(ids).containsExactly(1L, 2L, 3L);
+    }
+
+    /**
+     * 가격을 바꾸면 이전 가격 범위에서 빠진다
+     */
+    @Test
+    void updatePrice() {
+
+        // given
+        Item oldItem = item(1L, 1000, true);
+        itemIndex.update(null, oldItem);
+        itemIndex.update(null, item(2L, 1000, false));
+
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setMaxPrice(1000);
+
+        // when
+        itemIndex.update(oldItem, item(1L, 5000, true));
+
+        // then
+        assertThat(itemIndex.search(cond, 10)).containsExactly(2L);
+
+        cond.setOpen(false);
+        assertThat(itemIndex.search(cond, 10)).containsExactly(2L);
+    }
+
+    /**
+     * 비트 위치로 쓸 수 없는 id 는 거부
+     */
+    @Test
+    void checkId() {
+
+        assertThatThrownBy(() -> ItemIndex.checkId((long) Integer.MAX_VALUE + 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Item item(Long id, int price, boolean open) {
+
+        Item item = new Item("item" + id, price, 10);
+        item.setId(id);
+        item.setOpen(open);
+
+        return item;
+    }
+}
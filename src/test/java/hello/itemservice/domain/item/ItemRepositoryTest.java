@@ -1,10 +1,27 @@
 package hello.itemservice.domain.item;
 
+import hello.itemservice.domain.wal.WriteAheadLog;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -15,6 +32,9 @@ public class ItemRepositoryTest {
 
     ItemRepository itemRepository = new ItemRepository();
 
+    @TempDir
+    Path dir;
+
     /**
      * 테스트 때마다 item 리셋
      */
@@ -62,6 +82,190 @@ public class ItemRepositoryTest {
         assertThat(result).contains(item1, item2);
     }
 
+    /**
+     * 상품 목록 스냅샷 테스트
+     *
+     * 쓰기가 없으면 같은 리스트를 공유하고, 쓰기가 있으면 새로 만든다.
+     */
+    @Test
+    void findAllSnapshot() {
+
+        // given
+        Item item1 = itemRepository.save(new Item("item1", 10000, 10));
+
+        // when
+        List<Item> first = itemRepository.findAll();
+        List<Item> second = itemRepository.findAll();
+
+        Item item2 = itemRepository.save(new Item("item2", 20000, 20));
+
+        List<Item> third = itemRepository.findAll();
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+        assertThat(third).containsExactly(item1, item2);
+        assertThatThrownBy(() -> third.add(item1)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * COLUMNAR 는 조회할 때마다 Item 을 만들므로 목록 스냅샷을 보관하지 않는다.
+     */
+    @Test
+    void findAllNotCachedForColumnar() {
+
+        // given
+        ItemRepository repository = new ItemRepository(ItemStoreType.COLUMNAR, null);
+        Item item1 = repository.save(new Item("item1", 10000, 10));
+
+        // when
+        List<Item> first = repository.findAll();
+        List<Item> second = repository.findAll();
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(second).containsExactly(item1);
+    }
+
+    /**
+     * 상품 목록 페이지 조회 테스트
+     */
+    @Test
+    void findPage() {
+
+        // given
+        for (int i = 1; i <= 5; i++) {
+
+            itemRepository.save(new Item("item" + i, 10000, 10));
+        }
+
+        // when
+        ItemPage first = itemRepository.findPage(0, 2);
+        ItemPage last = itemRepository.findPage(2, 2);
+        ItemPage outOfRange = itemRepository.findPage(10, 2);
+
+        // then
+        assertThat(first.getItems()).extracting(Item::getItemName).containsExactly("item1", "item2");
+        assertThat(first.getTotalCount()).isEqualTo(5);
+        assertThat(first.hasNext()).isTrue();
+
+        assertThat(last.getItems()).extracting(Item::getItemName).containsExactly("item5");
+        assertThat(last.hasNext()).isFalse();
+
+        assertThat(outOfRange.getItems()).isEmpty();
+    }
+
+    /**
+     * 커서 방식 페이지 조회 테스트
+     */
+    @Test
+    void findAfter() {
+
+        // given
+        for (int i = 1; i <= 5; i++) {
+
+            itemRepository.save(new Item("item" + i, 10000, 10));
+        }
+
+        // when
+        ItemPage first = itemRepository.findPage(0, 2);
+        ItemPage second = itemRepository.findAfter(first.getNextCursor(), 2);
+        ItemPage third = itemRepository.findAfter(second.getNextCursor(), 2);
+
+        // then
+        assertThat(second.getItems()).extracting(Item::getItemName).containsExactly("item3", "item4");
+        assertThat(third.getItems()).extracting(Item::getItemName).containsExactly("item5");
+        assertThat(third.getNextCursor()).isNull();
+    }
+
+    /**
+     * 커서 방식 이전 페이지 조회 테스트
+     */
+    @Test
+    void findBefore() {
+
+        // given
+        for (int i = 1; i <= 5; i++) {
+
+            itemRepository.save(new Item("item" + i, 10000, 10));
+        }
+
+        // when
+        ItemPage last = itemRepository.findPage(2, 2);
+        ItemPage second = itemRepository.findBefore(last.getPreviousCursor(), 2);
+        ItemPage first = itemRepository.findBefore(second.getPreviousCursor(), 2);
+
+        // then
+        assertThat(second.getItems()).extracting(Item::getItemName).containsExactly("item3", "item4");
+        assertThat(second.hasPrevious()).isTrue();
+        assertThat(second.getNextCursor()).isEqualTo(second.getItems().get(1).getId());
+
+        assertThat(first.getItems()).extracting(Item::getItemName).containsExactly("item1", "item2");
+        assertThat(first.hasPrevious()).isFalse();
+        assertThat(first.hasNext()).isTrue();
+    }
+
+    /**
+     * 조건 검색 테스트
+     *
+     * 제주에 등록된 판매 중인 음식 중 20,000 원 이하
+     */
+    @Test
+    void findByCond() {
+
+        // given
+        Item match = itemRepository.save(createItem("match", 15000, true, ItemType.FOOD, "JEJU", "SEOUL"));
+
+        itemRepository.save(createItem("expensive", 30000, true, ItemType.FOOD, "JEJU"));
+        itemRepository.save(createItem("closed", 15000, false, ItemType.FOOD, "JEJU"));
+        itemRepository.save(createItem("book", 15000, true, ItemType.BOOK, "JEJU"));
+        itemRepository.save(createItem("busan", 15000, true, ItemType.FOOD, "BUSAN"));
+
+        Item updated = itemRepository.save(createItem("updated", 30000, true, ItemType.FOOD, "JEJU"));
+        itemRepository.update(updated.getId(), createItem("updated", 20000, true, ItemType.FOOD, "JEJU"));
+
+        ItemSearchCond cond = new ItemSearchCond();
+
+        cond.setOpen(true);
+        cond.setItemType(ItemType.FOOD);
+        cond.setRegion("JEJU");
+        cond.setMaxPrice(20000);
+
+        // when
+        List<Item> result = itemRepository.findByCond(cond, 100);
+
+        // then
+        assertThat(result).extracting(Item::getItemName).containsExactly("match", "updated");
+        assertThat(result.get(0)).isEqualTo(match);
+    }
+
+    /**
+     * 상품명 접두어 검색 테스트
+     *
+     * 한글은 입력 중인 글자(자모)로도 검색되어야 한다.
+     */
+    @Test
+    void findByNamePrefix() {
+
+        // given
+        Item juice = itemRepository.save(new Item("사과 주스", 10000, 10));
+        Item pie = itemRepository.save(new Item("Apple Pie", 20000, 20));
+
+        // when, then
+        assertThat(itemRepository.findByNamePrefix("사", 10)).containsExactly(juice);
+        assertThat(itemRepository.findByNamePrefix("삭", 10)).containsExactly(juice);
+        assertThat(itemRepository.findByNamePrefix("주스", 10)).containsExactly(juice);
+        assertThat(itemRepository.findByNamePrefix("apple p", 10)).containsExactly(pie);
+        assertThat(itemRepository.findByNamePrefix("PIE", 10)).containsExactly(pie);
+        assertThat(itemRepository.findByNamePrefix("바나나", 10)).isEmpty();
+
+        // 수정하면 이전 상품명으로는 검색되지 않는다.
+        itemRepository.update(juice.getId(), new Item("포도 주스", 10000, 10));
+
+        assertThat(itemRepository.findByNamePrefix("사과", 10)).isEmpty();
+        assertThat(itemRepository.findByNamePrefix("포", 10)).extracting(Item::getItemName).containsExactly("포도 주스");
+    }
+
     /**
      * 상품 수정 테스트
      */
@@ -87,4 +291,402 @@ public class ItemRepositoryTest {
         assertThat(findItem.getPrice()).isEqualTo(updateParam.getPrice());
         assertThat(findItem.getQuantity()).isEqualTo(updateParam.getQuantity());
     }
+
+    /**
+     * 일괄 등록은 연속된 id 를 발급한다.
+     */
+    @Test
+    void saveAll() {
+
+        // given
+        itemRepository.save(new Item("item0", 10000, 10));
+
+        // when
+        List<Item> items = itemRepository.saveAll(List.of(new Item("item1", 10000, 10), new Item("item2", 20000, 20)));
+
+        // then
+        assertThat(items).extracting(Item::getId).containsExactly(2L, 3L);
+        assertThat(itemRepository.findAll()).hasSize(3);
+        assertThat(itemRepository.findByNamePrefix("item2", 10)).containsExactly(items.get(1));
+    }
+
+    /**
+     * 일괄 수정은 수정할 수 없는 상품만 건너뛴다.
+     */
+    @Test
+    void updateAll() {
+
+        // given
+        Item savedItem = itemRepository.save(new Item("item1", 10000, 10));
+
+        Item updateParam = new Item("item2", 20000, 20);
+        updateParam.setId(savedItem.getId());
+
+        Item notFound = new Item("item3", 30000, 30);
+        notFound.setId(999L);
+
+        Item stale = new Item("item4", 40000, 40);
+        stale.setId(savedItem.getId());
+        stale.setVersion(1);
+
+        // when
+        Map<Integer, RuntimeException> failures = itemRepository.updateAll(List.of(updateParam, notFound, stale));
+
+        // then
+        assertThat(failures).containsOnlyKeys(1, 2);
+        assertThat(failures.get(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(failures.get(2)).isInstanceOf(ItemVersionConflictException.class);
+        assertThat(itemRepository.findById(savedItem.getId()).getItemName()).isEqualTo("item2");
+    }
+
+    /**
+     * 낡은 수정 버전으로는 수정할 수 없다.
+     */
+    @Test
+    void updateConflict() {
+
+        // given
+        Item savedItem = itemRepository.save(new Item("item1", 10000, 10));
+        Long itemId = savedItem.getId();
+
+        Item first = new Item("item2", 20000, 20);
+        first.setVersion(1);
+
+        itemRepository.update(itemId, first);
+
+        // when
+        Item stale = new Item("item3", 30000, 30);
+        stale.setVersion(1);
+
+        // then
+        assertThatThrownBy(() -> itemRepository.update(itemId, stale))
+                .isInstanceOf(ItemVersionConflictException.class);
+
+        Item findItem = itemRepository.findById(itemId);
+
+        assertThat(findItem.getItemName()).isEqualTo("item2");
+        assertThat(findItem.getVersion()).isEqualTo(2);
+    }
+
+    /**
+     * 동시 수정 테스트
+     *
+     * 여러 스레드가 같은 상품을 읽은 버전으로 동시에 수정해도
+     * - 조회하는 스레드는 일부 필드만 바뀐 상품을 보지 않고 (가격 == 수량 * 1000)
+     * - 성공한 수정 수만큼만 버전이 올라간다.
+     */
+    @Test
+    void concurrentUpdate() throws InterruptedException {
+
+        // given
+        Long itemId = itemRepository.save(new Item("item", 1000, 1)).getId();
+
+        int threadCount = 32;
+        int updatesPerThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        AtomicInteger torn = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        reader.submit(() -> {
+
+            start.await();
+
+            while (running.get()) {
+
+                Item item = itemRepository.findById(itemId);
+
+                if (item.getPrice() != item.getQuantity() * 1000) {
+
+                    torn.incrementAndGet();
+                }
+            }
+
+            return null;
+        });
+
+        // when
+        for (int i = 0; i < threadCount; i++) {
+
+            executor.submit(() -> {
+
+                start.await();
+
+                for (int j = 0; j < updatesPerThread; j++) {
+
+                    Item findItem = itemRepository.findById(itemId);
+                    int quantity = findItem.getQuantity() + 1;
+
+                    Item updateParam = new Item("item", quantity * 1000, quantity);
+                    updateParam.setVersion(findItem.getVersion());
+
+                    try {
+
+                        itemRepository.update(itemId, updateParam);
+                        succeeded.incrementAndGet();
+
+                    } catch (ItemVersionConflictException e) {
+
+                        conflicted.incrementAndGet();
+                    }
+                }
+
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        running.set(false);
+        reader.shutdown();
+
+        assertThat(reader.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        Item findItem = itemRepository.findById(itemId);
+
+        assertThat(succeeded.get() + conflicted.get()).isEqualTo(threadCount * updatesPerThread);
+        assertThat(torn.get()).isZero();
+        assertThat(findItem.getVersion()).isEqualTo(1 + succeeded.get());
+
+        // 읽은 값에서 1 씩 올리므로 충돌 없이 성공한 수정은 유실되지 않는다.
+        assertThat(findItem.getQuantity()).isEqualTo(1 + succeeded.get());
+    }
+
+    /**
+     * 동시 등록 테스트
+     *
+     * 64 개의 스레드가 동시에 상품을 등록해도 유실되거나 중복된 id 가 없어야 한다.
+     */
+    @Test
+    void concurrentSave() throws InterruptedException {
+
+        // given
+        int threadCount = 64;
+        int itemsPerThread = 1000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        for (int i = 0; i < threadCount; i++) {
+
+            executor.submit(() -> {
+
+                start.await();
+
+                for (int j = 0; j < itemsPerThread; j++) {
+
+                    itemRepository.save(new Item("item", 10000, 10));
+                }
+
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        List<Item> result = itemRepository.findAll();
+        Set<Long> ids = result.stream().map(Item::getId).collect(Collectors.toSet());
+
+        assertThat(result).hasSize(threadCount * itemsPerThread);
+        assertThat(ids).hasSize(threadCount * itemsPerThread);
+    }
+
+    /**
+     * 로그 기록에 실패한 등록은 저장소와 인덱스에서 되돌린다.
+     */
+    @Test
+    void saveUndoneWhenLogFails() {
+
+        // given
+        FailingLog failingLog = new FailingLog();
+        ItemRepository repository = new ItemRepository(ItemStoreType.HEAP, failingLog);
+
+        Item saved = repository.save(createItem("saved", 10000, true, ItemType.FOOD, "JEJU"));
+
+        // when
+        failingLog.fail = true;
+
+        assertThatThrownBy(() -> repository.save(createItem("lost", 10000, true, ItemType.FOOD, "JEJU")))
+                .isInstanceOf(UncheckedIOException.class);
+
+        // then
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setRegion("JEJU");
+
+        assertThat(repository.findAll()).containsExactly(saved);
+        assertThat(repository.findPage(0, 10).getItems()).containsExactly(saved);
+        assertThat(repository.findByCond(cond, 10)).containsExactly(saved);
+        assertThat(repository.findByNamePrefix("lost", 10)).isEmpty();
+    }
+
+    /**
+     * 로그 기록에 실패한 수정은 이전 상품으로 되돌린다. (같은 상품을 여러 번 수정한 경우 포함)
+     */
+    @Test
+    void updateUndoneWhenLogFails() {
+
+        // given
+        FailingLog failingLog = new FailingLog();
+        ItemRepository repository = new ItemRepository(ItemStoreType.COLUMNAR, failingLog);
+
+        Item saved = repository.save(createItem("before", 10000, true, ItemType.FOOD, "JEJU"));
+
+        Item first = createItem("first", 20000, true, ItemType.BOOK, "SEOUL");
+        first.setId(saved.getId());
+        Item second = createItem("second", 30000, true, ItemType.BOOK, "SEOUL");
+        second.setId(saved.getId());
+
+        // when
+        failingLog.fail = true;
+
+        assertThatThrownBy(() -> repository.update(saved.getId(), first)).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> repository.updateAll(List.of(first, second))).isInstanceOf(UncheckedIOException.class);
+
+        // then
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setItemType(ItemType.FOOD);
+
+        assertThat(repository.findById(saved.getId())).isEqualTo(saved);
+        assertThat(repository.findByCond(cond, 10)).containsExactly(saved);
+        assertThat(repository.findByNamePrefix("before", 10)).containsExactly(saved);
+        assertThat(repository.findByNamePrefix("second", 10)).isEmpty();
+    }
+
+    /**
+     * 스냅샷 파일을 옮기는 중에 수정한 상품은 기록에 실패해도 스냅샷 파일의 상품으로 되돌린다.
+     */
+    @Test
+    void updateDuringWarmUpUndoneWhenLogFails() throws Exception {
+
+        // given
+        Item base = createItem("base", 10000, true, ItemType.FOOD, "JEJU");
+        base.setId(1L);
+        base.setVersion(1);
+
+        ItemSnapshotFile.write(dir.resolve("items.columns"), List.of(base));
+
+        FailingLog failingLog = new FailingLog();
+        ItemRepository repository = new ItemRepository(ItemStoreType.HEAP, failingLog,
+                ItemSnapshotFile.open(dir.resolve("items.columns")));
+
+        CompletableFuture<Void> logged = new CompletableFuture<>();
+        failingLog.result = logged;
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> update = executor.submit(() -> repository.update(1L, new Item("updated", 20000, 20)));
+
+        // when : 기록을 기다리는 동안 옮기기가 끝나고 나서 기록 실패
+        while (repository.findById(1L).getItemName().equals("base")) {
+
+            Thread.sleep(1);
+        }
+
+        repository.warmUp();
+        logged.completeExceptionally(new IOException("기록 실패"));
+
+        assertThatThrownBy(update::get).hasCauseInstanceOf(UncheckedIOException.class);
+        executor.shutdown();
+
+        // then
+        assertThat(repository.findById(1L)).isEqualTo(base);
+        assertThat(repository.findAll()).containsExactly(base);
+        assertThat(repository.findByNamePrefix("base", 10)).containsExactly(base);
+    }
+
+    /**
+     * 로그 레코드로 만들 수 없는 상품은 저장소에 반영하지 않는다.
+     */
+    @Test
+    void saveRejectsUnencodableItem() {
+
+        // given
+        ItemRepository repository = new ItemRepository(ItemStoreType.HEAP, new FailingLog());
+
+        // when
+        assertThatThrownBy(() -> repository.save(new Item("a".repeat(70_000), 10000, 10)))
+                .isInstanceOf(UncheckedIOException.class);
+
+        // then
+        assertThat(repository.findAll()).isEmpty();
+        assertThat(repository.findPage(0, 10).getTotalCount()).isZero();
+    }
+
+    /**
+     * fail 을 켜면 기록 요청이 모두 실패하는 로그
+     */
+    /**
+     * 리셋 로그 기록에 실패하면 아무것도 지우지 않는다.
+     */
+    @Test
+    void clearKeptWhenLogFails() {
+
+        // given
+        FailingLog failingLog = new FailingLog();
+        ItemRepository repository = new ItemRepository(ItemStoreType.HEAP, failingLog);
+
+        Item saved = repository.save(createItem("kept", 10000, true, ItemType.FOOD, "JEJU"));
+
+        // when
+        failingLog.fail = true;
+
+        assertThatThrownBy(repository::clearStore).isInstanceOf(UncheckedIOException.class);
+
+        // then
+        assertThat(repository.findById(saved.getId())).isEqualTo(saved);
+        assertThat(repository.findAll()).containsExactly(saved);
+        assertThat(repository.findPage(0, 10).getItems()).containsExactly(saved);
+        assertThat(repository.findByNamePrefix("kept", 10)).containsExactly(saved);
+    }
+
+    private static class FailingLog extends WriteAheadLog {
+
+        volatile boolean fail;
+
+        // null 이 아니면 기록 요청이 이 결과를 기다린다.
+        volatile CompletableFuture<Void> result;
+
+        FailingLog() {
+            super(Paths.get("unused"), "test");
+        }
+
+        @Override
+        public CompletableFuture<Void> append(byte[] record) {
+
+            if (result != null) {
+
+                return result;
+            }
+
+            if (fail) {
+
+                return CompletableFuture.failedFuture(new IOException("기록 실패"));
+            }
+
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private Item createItem(String itemName, int price, boolean open, ItemType itemType, String... regions) {
+
+        Item item = new Item(itemName, price, 10);
+
+        item.setOpen(open);
+        item.setItemType(itemType);
+        item.setRegions(List.of(regions));
+
+        return item;
+    }
 }
@@ -0,0 +1,192 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 메모리 매핑 상품 스냅샷 파일 테스트
+ */
+class ItemSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 쓴 내용을 id 로 그대로 조회
+     */
+    @Test
+    void writeAndGet() throws IOException {
+
+        // given
+        Item itemA = createItem(1L, "itemA", 10000, true, ItemType.FOOD, "FAST", List.of("SEOUL", "JEJU"));
+        Item itemB = createItem(3L, "상품B", null, null, null, null, null);
+
+        ItemSnapshotFile.write(dir.resolve("items.columns"), List.of(itemA, itemB));
+
+        // when
+        ItemSnapshotFile snapshotFile = ItemSnapshotFile.open(dir.resolve("items.columns"));
+
+        // then
+        assertThat(snapshotFile.size()).isEqualTo(2);
+        assertThat(snapshotFile.get(2L)).isNull();
+
+        Item findItemA = snapshotFile.get(1L);
+
+        assertThat(findItemA.getItemName()).isEqualTo("itemA");
+        assertThat(findItemA.getPrice()).isEqualTo(10000);
+        assertThat(findItemA.getOpen()).isTrue();
+        assertThat(findItemA.getItemType()).isEqualTo(ItemType.FOOD);
+        assertThat(findItemA.getDeliveryCode()).isEqualTo("FAST");
+        assertThat(findItemA.getRegions()).containsExactly("SEOUL", "JEJU");
+
+        Item findItemB = snapshotFile.get(3L);
+
+        assertThat(findItemB.getItemName()).isEqualTo("상품B");
+        assertThat(findItemB.getPrice()).isNull();
+        assertThat(findItemB.getOpen()).isNull();
+        assertThat(findItemB.getItemType()).isNull();
+        assertThat(findItemB.getDeliveryCode()).isNull();
+        assertThat(findItemB.getRegions()).isNull();
+    }
+
+    /**
+     * 최대 크기를 넘으면 파일을 만들지 않고 실패
+     */
+    @Test
+    void writeOverMaxLength() {
+
+        // given
+        List<Item> items = new ArrayList<>();
+
+        for (long id = 1; id <= 10; id++) {
+
+            items.add(createItem(id, "item" + id, 1000, true, ItemType.BOOK, "FAST", List.of("SEOUL")));
+        }
+
+        Path file = dir.resolve("items.columns");
+
+        // when, then
+        assertThatThrownBy(() -> ItemSnapshotFile.write(file, items, 16 + 10 * 34 + 50))
+                .isInstanceOf(IOException.class);
+
+        assertThat(Files.exists(file)).isFalse();
+        assertThat(Files.exists(dir.resolve("items.columns.tmp"))).isFalse();
+    }
+
+    /**
+     * 이전 형식(고정 길이 컬럼이 문자열 힙보다 앞)도 읽는다.
+     */
+    @Test
+    void readColumnsFirstFormat() throws IOException {
+
+        // given
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 34 + 4 + 5);
+
+        buffer.putInt(0x4954454D).putInt(1).putInt(1).putInt(0);
+        buffer.putLong(7L).putInt(10000).putInt(0).putInt(3);
+        buffer.put((byte) (1 << 1)).put((byte) ItemType.BOOK.ordinal());
+        buffer.putInt(0).putInt(-1).putInt(-1);
+        buffer.putInt(5).put("itemA".getBytes(StandardCharsets.UTF_8));
+
+        Path file = dir.resolve("items.columns");
+        Files.write(file, buffer.array());
+
+        // when
+        Item item = ItemSnapshotFile.open(file).get(7L);
+
+        // then
+        assertThat(item.getItemName()).isEqualTo("itemA");
+        assertThat(item.getPrice()).isEqualTo(10000);
+        assertThat(item.getQuantity()).isNull();
+        assertThat(item.getVersion()).isEqualTo(3);
+        assertThat(item.getItemType()).isEqualTo(ItemType.BOOK);
+    }
+
+    /**
+     * 압축 후 다시 시작하면 스냅샷 파일 + 이후 로그로 복구
+     */
+    @Test
+    void recoverFromSnapshotFile() throws IOException {
+
+        // given
+        ItemRepository itemRepository = new ItemRepository(ItemStoreType.HEAP, dir.toString(), 600);
+
+        List<Item> saved = new ArrayList<>();
+
+        for (int i = 0; i < 3000; i++) {
+
+            saved.add(itemRepository.save(new Item("item" + i, i, i)));
+        }
+
+        itemRepository.compact();
+        itemRepository.update(saved.get(0).getId(), new Item("updated", 1, 1));
+        Item afterCompact = itemRepository.save(new Item("afterCompact", 1, 1));
+        itemRepository.close();
+
+        // when
+        ItemRepository recovered = new ItemRepository(ItemStoreType.HEAP, dir.toString(), 600);
+
+        // then
+        assertThat(recovered.isRecovered()).isTrue();
+        assertThat(recovered.findById(saved.get(2999).getId()).getItemName()).isEqualTo("item2999");
+        assertThat(recovered.findById(saved.get(0).getId()).getItemName()).isEqualTo("updated");
+        assertThat(recovered.findAll()).hasSize(3001);
+        assertThat(recovered.findByNamePrefix("afterc", 10)).containsExactly(afterCompact);
+
+        recovered.close();
+    }
+
+    /**
+     * COLUMNAR 저장 엔진도 압축 후 스냅샷 파일로 복구 (id 인덱스를 묶음으로 나누어 쓴다)
+     */
+    @Test
+    void recoverColumnarFromSnapshotFile() throws IOException {
+
+        // given
+        ItemRepository itemRepository = new ItemRepository(ItemStoreType.COLUMNAR, dir.toString(), 600);
+
+        for (int i = 0; i < 3000; i++) {
+
+            itemRepository.save(new Item("item" + i, i, i));
+        }
+
+        itemRepository.compact();
+        itemRepository.close();
+
+        // when
+        ItemRepository recovered = new ItemRepository(ItemStoreType.COLUMNAR, dir.toString(), 600);
+
+        // then
+        List<Item> items = recovered.findAll();
+
+        assertThat(items).hasSize(3000);
+        assertThat(items.get(2999).getItemName()).isEqualTo("item2999");
+        assertThat(items.get(2999).getId()).isEqualTo(3000L);
+
+        recovered.close();
+    }
+
+    private Item createItem(Long id, String itemName, Integer price, Boolean open, ItemType itemType,
+                            String deliveryCode, List<String> regions) {
+
+        Item item = new Item(itemName, price, null);
+
+        item.setId(id);
+        item.setOpen(open);
+        item.setItemType(itemType);
+        item.setDeliveryCode(deliveryCode);
+        item.setRegions(regions);
+
+        return item;
+    }
+}
@@ -0,0 +1,107 @@
+package hello.itemservice.domain.member;
+
+import hello.itemservice.domain.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 회원 저장소 테스트
+ */
+class MemberRepositoryTest {
+
+    MemberRepository memberRepository = new MemberRepository();
+
+    @AfterEach
+    void afterEach() {
+        memberRepository.clearStore();
+    }
+
+    /**
+     * 로그인 아이디로 조회
+     */
+    @Test
+    void findByLoginId() {
+
+        // given
+        Member member = memberRepository.save(createMember("test"));
+
+        // when, then
+        assertThat(memberRepository.findByLoginId("test")).contains(member);
+        assertThat(memberRepository.findByLoginId("none")).isEmpty();
+        assertThat(memberRepository.findByLoginId(null)).isEmpty();
+    }
+
+    /**
+     * 같은 로그인 아이디로는 가입할 수 없다.
+     */
+    @Test
+    void duplicateLoginId() {
+
+        // given
+        memberRepository.save(createMember("test"));
+
+        // when, then
+        assertThatThrownBy(() -> memberRepository.save(createMember("test")))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(memberRepository.findAll()).hasSize(1);
+    }
+
+    /**
+     * 리셋하면 인덱스도 함께 비워진다.
+     */
+    @Test
+    void clearStore() {
+
+        // given
+        memberRepository.save(createMember("test"));
+
+        // when
+        memberRepository.clearStore();
+
+        // then
+        assertThat(memberRepository.findByLoginId("test")).isEmpty();
+        assertThat(memberRepository.save(createMember("test")).getId()).isNotNull();
+    }
+
+    /**
+     * 로그 기록에 실패한 가입은 되돌리므로 같은 로그인 아이디로 다시 가입할 수 있다.
+     */
+    @Test
+    void saveUndoneWhenLogFails() {
+
+        // given
+        MemberRepository repository = new MemberRepository(new WriteAheadLog(Paths.get("unused"), "test") {
+
+            @Override
+            public CompletableFuture<Void> append(byte[] record) {
+                return CompletableFuture.failedFuture(new IOException("기록 실패"));
+            }
+        });
+
+        // when
+        assertThatThrownBy(() -> repository.save(createMember("test"))).isInstanceOf(UncheckedIOException.class);
+
+        // then
+        assertThat(repository.findByLoginId("test")).isEmpty();
+        assertThat(repository.findAll()).isEmpty();
+    }
+
+    private Member createMember(String loginId) {
+
+        Member member = new Member();
+
+        member.setLoginId(loginId);
+        member.setPassword("test!");
+        member.setName("테스터");
+
+        return member;
+    }
+}
@@ -0,0 +1,339 @@
+package hello.itemservice.domain.wal;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemStoreType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 쓰기 전 로그 테스트
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 닫았다가 다시 열면 기록한 순서대로 복구
+     */
+    @Test
+    void replay() throws IOException {
+
+        // given
+        WriteAheadLog wal = new WriteAheadLog(dir, "test");
+        wal.open(in -> fail("빈 로그"));
+
+        List<CompletableFuture<Void>> logged = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+
+            logged.add(wal.append(("record" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        logged.forEach(WriteAheadLog::await);
+        wal.close();
+
+        // when
+        List<String> records = new ArrayList<>();
+        long count = new WriteAheadLog(dir, "test").open(in -> records.add(readString(in)));
+
+        // then
+        assertThat(count).isEqualTo(100);
+        assertThat(records).hasSize(100);
+        assertThat(records.get(0)).isEqualTo("record0");
+        assertThat(records.get(99)).isEqualTo("record99");
+    }
+
+    /**
+     * 마지막 레코드가 잘린 경우 그 앞까지만 복구
+     */
+    @Test
+    void tornTail() throws IOException {
+
+        // given
+        WriteAheadLog wal = new WriteAheadLog(dir, "test");
+        wal.open(in -> fail("빈 로그"));
+
+        WriteAheadLog.await(wal.append("first".getBytes(StandardCharsets.UTF_8)));
+        wal.close();
+
+        Files.write(dir.resolve("test-0.log"), new byte[]{0, 0, 0, 10, 1, 2}, StandardOpenOption.APPEND);
+
+        // when
+        List<String> records = new ArrayList<>();
+        new WriteAheadLog(dir, "test").open(in -> records.add(readString(in)));
+
+        // then
+        assertThat(records).containsExactly("first");
+    }
+
+    /**
+     * 쓰기가 중간에 실패하면 남은 바이트를 잘라내고, 이후에 기록한 레코드도 복구
+     */
+    @Test
+    void failedWriteIsTruncated() throws IOException {
+
+        // given
+        FailingChannels channels = new FailingChannels();
+        WriteAheadLog wal = new WriteAheadLog(dir, "test", channels::open);
+        wal.open(in -> fail("빈 로그"));
+
+        WriteAheadLog.await(wal.append("first".getBytes(StandardCharsets.UTF_8)));
+
+        // when
+        channels.failWrite.set(true);
+        CompletableFuture<Void> torn = wal.append("torn".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> WriteAheadLog.await(torn)).isInstanceOf(UncheckedIOException.class);
+
+        WriteAheadLog.await(wal.append("after".getBytes(StandardCharsets.UTF_8)));
+        wal.close();
+
+        // then
+        assertThat(Files.exists(dir.resolve("test-1.log"))).isFalse();
+
+        List<String> records = new ArrayList<>();
+        new WriteAheadLog(dir, "test").open(in -> records.add(readString(in)));
+
+        assertThat(records).containsExactly("first", "after");
+    }
+
+    /**
+     * 잘라낼 수도 없으면 새 세대로 넘어가서 이후에 기록한 레코드를 복구
+     */
+    @Test
+    void failedWriteRotates() throws IOException {
+
+        // given
+        FailingChannels channels = new FailingChannels();
+        WriteAheadLog wal = new WriteAheadLog(dir, "test", channels::open);
+        wal.open(in -> fail("빈 로그"));
+
+        WriteAheadLog.await(wal.append("first".getBytes(StandardCharsets.UTF_8)));
+
+        // when
+        channels.failWrite.set(true);
+        channels.failTruncate.set(true);
+        CompletableFuture<Void> torn = wal.append("torn".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> WriteAheadLog.await(torn)).isInstanceOf(UncheckedIOException.class);
+
+        WriteAheadLog.await(wal.append("after".getBytes(StandardCharsets.UTF_8)));
+        wal.close();
+
+        // then
+        assertThat(Files.exists(dir.resolve("test-1.log"))).isTrue();
+
+        List<String> records = new ArrayList<>();
+        new WriteAheadLog(dir, "test").open(in -> records.add(readString(in)));
+
+        assertThat(records).containsExactly("first", "after");
+    }
+
+    /**
+     * 압축하면 스냅샷 + 이후 로그로 복구하고 이전 로그는 삭제
+     */
+    @Test
+    void compact() throws IOException {
+
+        // given
+        WriteAheadLog wal = new WriteAheadLog(dir, "test");
+        wal.open(in -> fail("빈 로그"));
+
+        WriteAheadLog.await(wal.append("old".getBytes(StandardCharsets.UTF_8)));
+
+        // when
+        wal.compact(sink -> sink.accept("snapshot".getBytes(StandardCharsets.UTF_8)));
+        WriteAheadLog.await(wal.append("new".getBytes(StandardCharsets.UTF_8)));
+        wal.close();
+
+        // then
+        assertThat(Files.exists(dir.resolve("test-0.log"))).isFalse();
+
+        List<String> records = new ArrayList<>();
+        new WriteAheadLog(dir, "test").open(in -> records.add(readString(in)));
+
+        assertThat(records).containsExactly("snapshot", "new");
+    }
+
+    /**
+     * 상품 저장소를 다시 만들면 저장, 수정, 리셋 결과와 id 발급 번호가 복구된다.
+     */
+    @Test
+    void recoverItemRepository() throws IOException {
+
+        // given
+        ItemRepository itemRepository = new ItemRepository(ItemStoreType.HEAP, dir.toString(), 600);
+
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.clearStore();
+
+        Item itemB = itemRepository.save(new Item("itemB", 20000, 20));
+        itemRepository.update(itemB.getId(), new Item("itemC", 30000, 30));
+        itemRepository.close();
+
+        // when
+        ItemRepository recovered = new ItemRepository(ItemStoreType.HEAP, dir.toString(), 600);
+
+        // then
+        assertThat(recovered.isRecovered()).isTrue();
+        assertThat(recovered.findById(itemA.getId())).isNull();
+        assertThat(recovered.findById(itemB.getId()).getItemName()).isEqualTo("itemC");
+        assertThat(recovered.findByNamePrefix("itemc", 10)).hasSize(1);
+        assertThat(recovered.save(new Item("itemD", 40000, 40)).getId()).isEqualTo(itemB.getId() + 1);
+
+        recovered.close();
+    }
+
+    private static String readString(DataInput in) throws IOException {
+
+        byte[] bytes = new byte[((DataInputStream) in).available()];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 한 번 켜면 다음 쓰기가 절반만 쓰고 실패하는 로그 채널
+     */
+    private static class FailingChannels {
+
+        final AtomicBoolean failWrite = new AtomicBoolean();
+        final AtomicBoolean failTruncate = new AtomicBoolean();
+
+        FileChannel open(Path file) throws IOException {
+
+            FileChannel delegate = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+            return new FileChannel() {
+
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+
+                    if (failWrite.getAndSet(false)) {
+
+                        ByteBuffer half = src.duplicate();
+                        half.limit(src.position() + src.remaining() / 2);
+                        delegate.write(half);
+
+                        throw new IOException("쓰기 실패");
+                    }
+
+                    return delegate.write(src);
+                }
+
+                @Override
+                public FileChannel truncate(long size) throws IOException {
+
+                    if (failTruncate.getAndSet(false)) {
+
+                        throw new IOException("잘라내기 실패");
+                    }
+
+                    delegate.truncate(size);
+
+                    return this;
+                }
+
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    return delegate.read(dst);
+                }
+
+                @Override
+                public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+                    return delegate.read(dsts, offset, length);
+                }
+
+                @Override
+                public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                    return delegate.write(srcs, offset, length);
+                }
+
+                @Override
+                public long position() throws IOException {
+                    return delegate.position();
+                }
+
+                @Override
+                public FileChannel position(long newPosition) throws IOException {
+                    delegate.position(newPosition);
+                    return this;
+                }
+
+                @Override
+                public long size() throws IOException {
+                    return delegate.size();
+                }
+
+                @Override
+                public void force(boolean metaData) throws IOException {
+                    delegate.force(metaData);
+                }
+
+                @Override
+                public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                    return delegate.transferTo(position, count, target);
+                }
+
+                @Override
+                public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+                    return delegate.transferFrom(src, position, count);
+                }
+
+                @Override
+                public int read(ByteBuffer dst, long position) throws IOException {
+                    return delegate.read(dst, position);
+                }
+
+                @Override
+                public int write(ByteBuffer src, long position) throws IOException {
+                    return delegate.write(src, position);
+                }
+
+                @Override
+                public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+                    return delegate.map(mode, position, size);
+                }
+
+                @Override
+                public FileLock lock(long position, long size, boolean shared) throws IOException {
+                    return delegate.lock(position, size, shared);
+                }
+
+                @Override
+                public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+                    return delegate.tryLock(position, size, shared);
+                }
+
+                @Override
+                protected void implCloseChannel() throws IOException {
+                    delegate.close();
+                }
+            };
+        }
+    }
+}
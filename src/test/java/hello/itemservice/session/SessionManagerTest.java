@@ -34,4 +34,54 @@ class SessionManagerTest {
         Object expired = sessionManager.getSessionV2(request);
         assertThat(expired).isNull();
     }
+
+    @Test
+    void sessionV3Test() {
+
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Member member = new Member();
+        sessionManager.createSession(member, response);
+
+        String sessionId = response.getCookie(SessionManager.SESSION_COOKIE_NAME).getValue();
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Cookie", "theme=dark; mySessionIdX=other;  mySessionId = \"" + sessionId + "\" ; lang=ko");
+
+        // when
+        Object result = sessionManager.getSessionV3(request);
+
+        // then
+        assertThat(result).isEqualTo(member);
+        assertThat(SessionManager.findCookieValue(request, "lang")).isEqualTo("ko");
+        assertThat(SessionManager.findCookieValue(request, "mySession")).isNull();
+
+        // 세션 만료
+        sessionManager.expireCookie(request);
+        assertThat(sessionManager.getSessionV3(request)).isNull();
+    }
+
+    /**
+     * 같은 요청에서 다시 조회하면 요청 속성에 보관한 결과를 사용
+     */
+    @Test
+    void sessionV3CachedInRequest() {
+
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Member member = new Member();
+        sessionManager.createSession(member, response);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(response.getCookies());
+
+        sessionManager.getSessionV3(request);
+
+        // when
+        request.removeHeader("Cookie");
+
+        // then
+        assertThat(sessionManager.getSessionV3(request)).isEqualTo(member);
+        assertThat(sessionManager.getSessionV3(new MockHttpServletRequest())).isNull();
+    }
 }
@@ -0,0 +1,247 @@
+package hello.itemservice.upload.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 저장 파일 응답 테스트 (조건부 요청, 범위 요청, sendfile)
+ */
+class FileSenderTest {
+
+    @TempDir
+    Path dir;
+
+    FileSender fileSender = new FileSender(new ImageCache(0, 0));
+
+    Path file;
+    byte[] content;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+
+        content = new byte[100 * 1024];
+        new Random(1).nextBytes(content);
+
+        file = dir.resolve("image.png");
+        Files.write(file, content);
+    }
+
+    @Test
+    void sendAll() throws IOException {
+
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/image.png");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getContentLengthLong()).isEqualTo(content.length);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"");
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    /**
+     * 내용 주소 방식 파일은 SHA-256 이 ETag
+     */
+    @Test
+    void contentAddressedETag() {
+
+        String sha256 = "0967115f2813a3541eaef77de9d9d5773f1c0c04314b0bbfe4ff3b3b1c55b5d5";
+
+        assertThat(FileSender.eTag(dir.resolve(sha256 + ".png"), 4, 0)).isEqualTo("\"" + sha256 + "\"");
+        assertThat(FileSender.eTag(dir.resolve("random.png"), 255, 4096)).isEqualTo("\"ff-1000\"");
+    }
+
+    /**
+     * ETag 가 같으면 본문 없이 304
+     */
+    @Test
+    void ifNoneMatch() throws IOException {
+
+        // given
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        fileSender.send(new MockHttpServletRequest("GET", "/images/image.png"), first, file, null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/image.png");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + first.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void ifModifiedSince() throws IOException {
+
+        // given
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        fileSender.send(new MockHttpServletRequest("GET", "/images/image.png"), first, file, null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/image.png");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void range() throws IOException {
+
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attach/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, "attachment; filename=\"image.png\"");
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/" + content.length);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment; filename=\"image.png\"");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+    }
+
+    /**
+     * If-Range 가 현재 파일과 다르면 범위를 무시하고 전체를 보낸다.
+     */
+    @Test
+    void ifRangeChanged() throws IOException {
+
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attach/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void rangeNotSatisfiable() throws IOException {
+
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attach/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + content.length + "-");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + content.length);
+    }
+
+    @Test
+    void parseRange() {
+
+        assertThat(FileSender.parseRange("bytes=0-9", 100)).containsExactly(0L, 9L);
+        assertThat(FileSender.parseRange("bytes=90-", 100)).containsExactly(90L, 99L);
+        assertThat(FileSender.parseRange("bytes=-10", 100)).containsExactly(90L, 99L);
+        assertThat(FileSender.parseRange("bytes=-500", 100)).containsExactly(0L, 99L);
+        assertThat(FileSender.parseRange("bytes=50-500", 100)).containsExactly(50L, 99L);
+        assertThat(FileSender.parseRange("bytes=0-9,20-29", 100)).isNull();
+        assertThat(FileSender.parseRange("bytes=9-0", 100)).isNull();
+        assertThat(FileSender.parseRange("items=0-9", 100)).isNull();
+        assertThat(FileSender.parseRange("bytes=100-", 100)).isEmpty();
+    }
+
+    /**
+     * Tomcat 이 sendfile 을 지원하면 본문을 쓰지 않고 요청 속성으로 파일과 범위를 넘긴다.
+     */
+    @Test
+    void sendfile() throws IOException {
+
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attach/1");
+        request.setAttribute(FileSender.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(request, response, file, null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute(FileSender.SENDFILE_FILENAME)).isEqualTo(file.toAbsolutePath().toString());
+        assertThat(request.getAttribute(FileSender.SENDFILE_START)).isEqualTo(1000L);
+        assertThat(request.getAttribute(FileSender.SENDFILE_END)).isEqualTo((long) content.length);
+    }
+
+    /**
+     * 캐시된 이미지는 파일 없이도 범위 요청까지 처리
+     */
+    @Test
+    void sendImageFromCache() throws IOException {
+
+        // given
+        FileSender cachingSender = new FileSender(new ImageCache(1024 * 1024, 256 * 1024));
+        cachingSender.sendImage(new MockHttpServletRequest("GET", "/images/image.png"), new MockHttpServletResponse(), file);
+
+        Files.delete(file);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/image.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        cachingSender.sendImage(request, response, file);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 10, 20));
+    }
+
+    @Test
+    void notFound() throws IOException {
+
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        fileSender.send(new MockHttpServletRequest("GET", "/images/none.png"), response, dir.resolve("none.png"), null);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+}
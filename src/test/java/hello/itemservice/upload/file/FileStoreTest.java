@@ -0,0 +1,415 @@
+package hello.itemservice.upload.file;
+
+import hello.itemservice.upload.domain.UploadFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 파일 저장 테스트 (스트리밍 multipart 업로드, 여러 파일 동시 저장, 내용 주소 방식, 이미지 캐시 제거)
+ */
+class FileStoreTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
+
+    @TempDir
+    Path dir;
+
+    FileStore fileStore;
+
+    @BeforeEach
+    void beforeEach() {
+
+        fileStore = new FileStore(dir.toString() + "/", FileStoreType.RANDOM, DataSize.ofMegabytes(1), DataSize.ofMegabytes(10), new ImageCache(0, 0));
+    }
+
+    /**
+     * 일반 필드는 값으로, 파일은 file.dir 에 저장 (버퍼 경계에 걸친 구분자 포함)
+     */
+    @Test
+    void storeMultipart() throws IOException {
+
+        // given
+        byte[] image = new byte[300 * 1024];
+        new Random(1).nextBytes(image);
+
+        // 구분자와 비슷한 바이트가 본문 안에 있어도 구분자로 보지 않는다.
+        byte[] similar = ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1)).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(similar, 0, image, 64 * 1024 - 10, similar.length);
+
+        byte[] body = new MultipartBody()
+                .field("itemName", "상품A")
+                .file("attachFile", "C:\\Users\\hyo\\첨부.txt", "hello".getBytes(StandardCharsets.UTF_8))
+                .file("imageFiles", "a.png", image)
+                .file("imageFiles", "", new byte[0])
+                .build();
+
+        // when
+        MultipartUpload upload = fileStore.storeMultipart(new ChunkedInputStream(body, 1000), CONTENT_TYPE);
+
+        // then
+        assertThat(upload.getParameter("itemName")).isEqualTo("상품A");
+
+        UploadFile attachFile = upload.getFile("attachFile");
+
+        assertThat(attachFile.getUploadFileName()).isEqualTo("첨부.txt");
+        assertThat(attachFile.getStoreFileName()).endsWith(".txt");
+        assertThat(Files.readAllBytes(Path.of(fileStore.getFullPath(attachFile.getStoreFileName())))).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(upload.getFiles("imageFiles")).hasSize(1);
+        assertThat(Files.readAllBytes(Path.of(fileStore.getFullPath(upload.getFiles("imageFiles").get(0).getStoreFileName())))).isEqualTo(image);
+    }
+
+    /**
+     * 파일 최대 크기를 넘으면 이미 저장한 파일까지 모두 지운다.
+     */
+    @Test
+    void maxFileSizeExceeded() throws IOException {
+
+        // given
+        byte[] body = new MultipartBody()
+                .file("attachFile", "a.txt", "hello".getBytes(StandardCharsets.UTF_8))
+                .file("imageFiles", "b.png", new byte[(int) DataSize.ofMegabytes(1).toBytes() + 1])
+                .build();
+
+        // when
+        assertThatThrownBy(() -> fileStore.storeMultipart(new ByteArrayInputStream(body), CONTENT_TYPE))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+
+        // then
+        try (var files = Files.list(dir)) {
+
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    /**
+     * 일반 필드는 값 하나가 작아도 개수나 합계 크기가 최대를 넘으면 실패하고, 먼저 저장한 파일은 지운다.
+     */
+    @Test
+    void parametersExceeded() throws IOException {
+
+        // given
+        MultipartBody manyFields = new MultipartBody()
+                .file("attachFile", "a.txt", "hello".getBytes(StandardCharsets.UTF_8));
+
+        for (int i = 0; i <= 1000; i++) {
+
+            manyFields.field("f", "");
+        }
+
+        MultipartBody largeFields = new MultipartBody();
+        String value = "a".repeat(60 * 1024);
+
+        for (int i = 0; i < 20; i++) {
+
+            largeFields.field("itemName", value);
+        }
+
+        byte[] manyFieldsBody = manyFields.build();
+        byte[] largeFieldsBody = largeFields.build();
+
+        // when
+        assertThatThrownBy(() -> fileStore.storeMultipart(new ByteArrayInputStream(manyFieldsBody), CONTENT_TYPE))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        assertThatThrownBy(() -> fileStore.storeMultipart(new ByteArrayInputStream(largeFieldsBody), CONTENT_TYPE))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+
+        // then
+        try (var files = Files.list(dir)) {
+
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    /**
+     * 마지막 구분자 전에 본문이 끝나면 실패
+     */
+    @Test
+    void truncatedBody() throws IOException {
+
+        // given
+        byte[] body = new MultipartBody()
+                .file("attachFile", "a.txt", "hello".getBytes(StandardCharsets.UTF_8))
+                .build();
+
+        byte[] truncated = new byte[body.length - 10];
+        System.arraycopy(body, 0, truncated, 0, truncated.length);
+
+        // when
+        assertThatThrownBy(() -> fileStore.storeMultipart(new ByteArrayInputStream(truncated), CONTENT_TYPE))
+                .isInstanceOf(IOException.class);
+
+        // then
+        try (var files = Files.list(dir)) {
+
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    @Test
+    void notMultipart() {
+
+        assertThatThrownBy(() -> fileStore.storeMultipart(new ByteArrayInputStream(new byte[0]), "application/x-www-form-urlencoded"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 여러 파일 저장 결과는 요청 순서대로, 빈 파일은 제외
+     */
+    @Test
+    void storeFiles() throws IOException {
+
+        // given
+        List<MultipartFile> multipartFiles = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+
+            multipartFiles.add(new MockMultipartFile("imageFiles", "image" + i + ".png", "image/png", ("image" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        multipartFiles.add(new MockMultipartFile("imageFiles", "", "application/octet-stream", new byte[0]));
+
+        // when
+        List<UploadFile> uploadFiles = fileStore.storeFiles(multipartFiles);
+
+        // then
+        assertThat(uploadFiles).hasSize(20);
+
+        for (int i = 0; i < 20; i++) {
+
+            assertThat(uploadFiles.get(i).getUploadFileName()).isEqualTo("image" + i + ".png");
+            assertThat(Files.readString(Path.of(fileStore.getFullPath(uploadFiles.get(i).getStoreFileName())))).isEqualTo("image" + i);
+        }
+    }
+
+    /**
+     * 하나라도 실패하면 이번에 저장한 파일을 모두 지운다.
+     */
+    @Test
+    void storeFilesFailure() throws IOException {
+
+        // given
+        List<MultipartFile> multipartFiles = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+
+            multipartFiles.add(new MockMultipartFile("imageFiles", "image" + i + ".png", "image/png", new byte[]{1}));
+        }
+
+        multipartFiles.set(10, new MockMultipartFile("imageFiles", "broken.png", "image/png", new byte[]{1}) {
+
+            @Override
+            public void transferTo(File dest) throws IOException {
+
+                Files.write(dest.toPath(), new byte[]{1});
+
+                throw new IOException("disk full");
+            }
+        });
+
+        // when
+        assertThatThrownBy(() -> fileStore.storeFiles(multipartFiles))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("disk full");
+
+        // then
+        try (var files = Files.list(dir)) {
+
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    /**
+     * CONTENT 방식은 같은 내용을 한 번만 저장하고, 마지막 참조를 해제할 때 지운다.
+     */
+    @Test
+    void contentAddressed() throws IOException {
+
+        // given
+        FileStore contentStore = new FileStore(dir.toString() + "/", FileStoreType.CONTENT, DataSize.ofMegabytes(1), DataSize.ofMegabytes(10), new ImageCache(0, 0));
+
+        byte[] body = new MultipartBody()
+                .file("attachFile", "a.png", "same".getBytes(StandardCharsets.UTF_8))
+                .file("imageFiles", "b.png", "same".getBytes(StandardCharsets.UTF_8))
+                .build();
+
+        // when
+        MultipartUpload upload = contentStore.storeMultipart(new ByteArrayInputStream(body), CONTENT_TYPE);
+
+        // then
+        UploadFile attachFile = upload.getFile("attachFile");
+        UploadFile imageFile = upload.getFiles("imageFiles").get(0);
+
+        // "same" 의 SHA-256
+        assertThat(attachFile.getStoreFileName()).isEqualTo("0967115f2813a3541eaef77de9d9d5773f1c0c04314b0bbfe4ff3b3b1c55b5d5.png");
+        assertThat(imageFile.getStoreFileName()).isEqualTo(attachFile.getStoreFileName());
+        assertThat(imageFile.getUploadFileName()).isEqualTo("b.png");
+        assertThat(contentStore.getReferenceCount(attachFile.getStoreFileName())).isEqualTo(2);
+
+        try (var files = Files.list(dir)) {
+
+            assertThat(files.count()).isEqualTo(1);
+        }
+
+        Path path = Path.of(contentStore.getFullPath(attachFile.getStoreFileName()));
+
+        contentStore.release(attachFile);
+        assertThat(Files.exists(path)).isTrue();
+
+        contentStore.release(imageFile);
+        assertThat(Files.exists(path)).isFalse();
+    }
+
+    /**
+     * CONTENT 방식으로 같은 파일을 동시에 저장해도 파일은 하나, 참조 수는 정확하다.
+     */
+    @Test
+    void contentAddressedConcurrently() throws Exception {
+
+        // given
+        FileStore contentStore = new FileStore(dir.toString() + "/", FileStoreType.CONTENT, DataSize.ofMegabytes(1), DataSize.ofMegabytes(10), new ImageCache(0, 0));
+
+        byte[] image = new byte[100 * 1024];
+        new Random(1).nextBytes(image);
+
+        List<MultipartFile> multipartFiles = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+
+            multipartFiles.add(new MockMultipartFile("imageFiles", "image" + i + ".png", "image/png", image));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<UploadFile>> futures = new ArrayList<>();
+
+        // when
+        for (MultipartFile multipartFile : multipartFiles) {
+
+            futures.add(executor.submit(() -> contentStore.storeFile(multipartFile)));
+        }
+
+        List<UploadFile> uploadFiles = new ArrayList<>();
+
+        for (Future<UploadFile> future : futures) {
+
+            uploadFiles.add(future.get());
+        }
+
+        executor.shutdown();
+
+        // then
+        String storeFileName = uploadFiles.get(0).getStoreFileName();
+
+        assertThat(contentStore.getReferenceCount(storeFileName)).isEqualTo(20);
+        assertThat(Files.readAllBytes(Path.of(contentStore.getFullPath(storeFileName)))).isEqualTo(image);
+
+        try (var files = Files.list(dir)) {
+
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * 파일을 지우면 이미지 캐시에서도 제거
+     */
+    @Test
+    void releaseInvalidatesImageCache() throws IOException {
+
+        // given
+        ImageCache imageCache = new ImageCache(1024 * 1024, 1024);
+        FileStore cachingStore = new FileStore(dir.toString() + "/", FileStoreType.RANDOM, DataSize.ofMegabytes(1), DataSize.ofMegabytes(10), imageCache);
+
+        UploadFile uploadFile = cachingStore.storeFile(new MockMultipartFile("imageFiles", "a.png", "image/png", new byte[]{1, 2, 3}));
+        Path path = cachingStore.findPath(uploadFile.getStoreFileName());
+
+        imageCache.get(uploadFile.getStoreFileName(), path);
+
+        // when
+        cachingStore.release(uploadFile);
+
+        // then
+        assertThat(Files.exists(path)).isFalse();
+        assertThat(imageCache.getStats().getEntries()).isZero();
+    }
+
+    /**
+     * 브라우저가 보내는 형식의 multipart 본문
+     */
+    static class MultipartBody {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        MultipartBody field(String name, String value) {
+
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n");
+
+            return this;
+        }
+
+        MultipartBody file(String name, String filename, byte[] content) {
+
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename + "\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n");
+            out.writeBytes(content);
+            write("\r\n");
+
+            return this;
+        }
+
+        byte[] build() {
+
+            write("--" + BOUNDARY + "--\r\n");
+
+            return out.toByteArray();
+        }
+
+        private void write(String text) {
+
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 한 번에 chunkSize 이하만 읽히는 스트림 (네트워크에서 나눠 들어오는 본문)
+     */
+    static class ChunkedInputStream extends FilterInputStream {
+
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] bytes, int chunkSize) {
+
+            super(new ByteArrayInputStream(bytes));
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            return super.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+}
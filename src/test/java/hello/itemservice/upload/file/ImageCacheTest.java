@@ -0,0 +1,134 @@
+package hello.itemservice.upload.file;
+
+import hello.itemservice.upload.file.ImageCache.CachedFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 이미지 캐시 테스트
+ */
+class ImageCacheTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 처음은 파일에서 읽고, 다음부터는 파일이 없어도 캐시에서
+     */
+    @Test
+    void cacheOnFirstRead() throws IOException {
+
+        // given
+        ImageCache imageCache = new ImageCache(1000, 100);
+        Path path = write("a.png", 10);
+
+        // when
+        CachedFile first = imageCache.get("a.png", path);
+        Files.delete(path);
+        CachedFile second = imageCache.get("a.png", path);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(bytes(second.getContent())).isEqualTo(new byte[10]);
+
+        ImageCacheStats stats = imageCache.getStats();
+
+        assertThat(stats.getEntries()).isEqualTo(1);
+        assertThat(stats.getBytes()).isEqualTo(10);
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHitRatio()).isEqualTo(0.5);
+    }
+
+    /**
+     * 지운 파일은 캐시에서도 제거
+     */
+    @Test
+    void invalidate() throws IOException {
+
+        // given
+        ImageCache imageCache = new ImageCache(1000, 100);
+        Path path = write("a.png", 10);
+
+        imageCache.get("a.png", path);
+
+        // when
+        Files.delete(path);
+        imageCache.invalidate("a.png");
+
+        // then
+        assertThatThrownBy(() -> imageCache.get("a.png", path))
+                .isInstanceOf(NoSuchFileException.class);
+
+        assertThat(imageCache.getStats().getEntries()).isZero();
+    }
+
+    /**
+     * 최대 파일 크기보다 큰 파일은 캐시하지 않는다.
+     */
+    @Test
+    void tooLarge() throws IOException {
+
+        // given
+        ImageCache imageCache = new ImageCache(1000, 100);
+        Path path = write("large.png", 101);
+
+        // when
+        CachedFile cachedFile = imageCache.get("large.png", path);
+
+        // then
+        assertThat(cachedFile).isNull();
+        assertThat(imageCache.getStats().getBytes()).isZero();
+    }
+
+    /**
+     * 두 번 이상 조회한 파일은 한 번만 조회한 파일이 많이 지나가도 남는다.
+     */
+    @Test
+    void protectFrequentlyUsed() throws IOException {
+
+        // given
+        ImageCache imageCache = new ImageCache(500, 100);
+        Path hot = write("hot.png", 100);
+
+        imageCache.get("hot.png", hot);
+        imageCache.get("hot.png", hot);
+
+        // when
+        for (int i = 0; i < 20; i++) {
+
+            imageCache.get("cold" + i + ".png", write("cold" + i + ".png", 100));
+        }
+
+        Files.delete(hot);
+
+        // then
+        assertThat(imageCache.get("hot.png", hot)).isNotNull();
+
+        ImageCacheStats stats = imageCache.getStats();
+
+        assertThat(stats.getBytes()).isLessThanOrEqualTo(500);
+        assertThat(stats.getEvictions()).isEqualTo(16);
+    }
+
+    private Path write(String fileName, int size) throws IOException {
+
+        return Files.write(dir.resolve(fileName), new byte[size]);
+    }
+
+    private byte[] bytes(ByteBuffer buffer) {
+
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,63 @@
+package hello.itemservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    @Test
+    void secureId() {
+
+        // when
+        String id = IdGenerator.secureId();
+
+        // then
+        assertThat(id).matches("[A-Za-z0-9_-]{22}");
+        assertThat(Base64.getUrlDecoder().decode(id)).hasSize(16);
+    }
+
+    /**
+     * 여러 스레드가 동시에 만들어도 겹치지 않는다.
+     */
+    @Test
+    void noDuplicates() throws InterruptedException {
+
+        // given
+        Set<String> secureIds = ConcurrentHashMap.newKeySet();
+        Set<String> uniqueIds = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+
+            threads.add(new Thread(() -> {
+
+                for (int j = 0; j < 10_000; j++) {
+
+                    secureIds.add(IdGenerator.secureId());
+                    uniqueIds.add(IdGenerator.uniqueId());
+                }
+            }));
+        }
+
+        // when
+        threads.forEach(Thread::start);
+
+        for (Thread thread : threads) {
+
+            thread.join();
+        }
+
+        // then
+        assertThat(secureIds).hasSize(80_000);
+        assertThat(uniqueIds).hasSize(80_000);
+        assertThat(uniqueIds.iterator().next()).matches("[0-9a-f]{20}");
+    }
+}
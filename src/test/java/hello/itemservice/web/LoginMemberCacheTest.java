@@ -0,0 +1,89 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.member.Member;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.http.HttpSession;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LoginMemberCacheTest {
+
+    /**
+     * 같은 요청에서는 세션을 한 번만 조회
+     */
+    @Test
+    void sessionAccessedOncePerRequest() {
+
+        // given
+        Member member = new Member();
+        CountingRequest request = new CountingRequest();
+        request.getSession().setAttribute(SessionConst.LOGIN_MEMBER, member);
+        request.sessionAccessCount = 0;
+
+        // when
+        Member filter = LoginMemberCache.get(request);
+        Member interceptor = LoginMemberCache.get(request);
+        Member argumentResolver = LoginMemberCache.get(request);
+
+        // then
+        assertThat(filter).isSameAs(member);
+        assertThat(interceptor).isSameAs(member);
+        assertThat(argumentResolver).isSameAs(member);
+        assertThat(request.sessionAccessCount).isEqualTo(1);
+    }
+
+    /**
+     * 로그인하지 않은 요청도 한 번만 조회하고 세션을 만들지 않는다.
+     */
+    @Test
+    void notLoggedIn() {
+
+        // given
+        CountingRequest request = new CountingRequest();
+
+        // when
+        Member first = LoginMemberCache.get(request);
+        Member second = LoginMemberCache.get(request);
+
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        assertThat(request.sessionAccessCount).isEqualTo(1);
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    /**
+     * 같은 요청에서 로그인하면 evict 후 새로 조회
+     */
+    @Test
+    void evict() {
+
+        // given
+        CountingRequest request = new CountingRequest();
+        LoginMemberCache.get(request);
+
+        Member member = new Member();
+        request.getSession().setAttribute(SessionConst.LOGIN_MEMBER, member);
+
+        // when
+        LoginMemberCache.evict(request);
+
+        // then
+        assertThat(LoginMemberCache.get(request)).isSameAs(member);
+    }
+
+    static class CountingRequest extends MockHttpServletRequest {
+
+        int sessionAccessCount;
+
+        @Override
+        public HttpSession getSession(boolean create) {
+
+            sessionAccessCount++;
+
+            return super.getSession(create);
+        }
+    }
+}
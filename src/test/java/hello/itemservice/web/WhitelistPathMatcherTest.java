@@ -0,0 +1,67 @@
+package hello.itemservice.web;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WhitelistPathMatcherTest {
+
+    WhitelistPathMatcher matcher = WhitelistPathMatcher.of(
+            "/", "/members/add", "/login", "/css/**", "/*.ico", "/images/*", "/files/*.png", "/error-page/**");
+
+    @Test
+    void exact() {
+
+        assertThat(matcher.matches("/")).isTrue();
+        assertThat(matcher.matches("/login")).isTrue();
+        assertThat(matcher.matches("/members/add")).isTrue();
+
+        assertThat(matcher.matches("/login/x")).isFalse();
+        assertThat(matcher.matches("/members")).isFalse();
+        assertThat(matcher.matches("/items")).isFalse();
+    }
+
+    @Test
+    void allBelow() {
+
+        assertThat(matcher.matches("/css")).isTrue();
+        assertThat(matcher.matches("/css/bootstrap.min.css")).isTrue();
+        assertThat(matcher.matches("/css/a/b/c.css")).isTrue();
+        assertThat(matcher.matches("/error-page/404")).isTrue();
+
+        assertThat(matcher.matches("/cssx/a.css")).isFalse();
+    }
+
+    @Test
+    void oneSegment() {
+
+        assertThat(matcher.matches("/images/a.jpg")).isTrue();
+
+        assertThat(matcher.matches("/images")).isFalse();
+        assertThat(matcher.matches("/images/")).isFalse();
+        assertThat(matcher.matches("/images/a/b.jpg")).isFalse();
+    }
+
+    @Test
+    void extension() {
+
+        assertThat(matcher.matches("/favicon.ico")).isTrue();
+        assertThat(matcher.matches("/files/a.png")).isTrue();
+
+        assertThat(matcher.matches("/.ico")).isFalse();
+        assertThat(matcher.matches("/a/favicon.ico")).isFalse();
+        assertThat(matcher.matches("/files/a.jpg")).isFalse();
+        assertThat(matcher.matches("/files/a/b.png")).isFalse();
+    }
+
+    @Test
+    void unsupportedPattern() {
+
+        assertThatThrownBy(() -> WhitelistPathMatcher.of("/**/*.css"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WhitelistPathMatcher.of("/css/a*b"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WhitelistPathMatcher.of("login"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
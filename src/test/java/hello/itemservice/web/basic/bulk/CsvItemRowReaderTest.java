@@ -0,0 +1,108 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemType;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.FieldError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * CSV 행 읽기 테스트
+ */
+class CsvItemRowReaderTest {
+
+    @Test
+    void read() throws IOException {
+
+        // given
+        String csv = "itemName,price,quantity,regions,itemType,open\n"
+                + "itemA,10000,10,SEOUL;JEJU,FOOD,true\n"
+                + "\n"
+                + "\"item, \"\"B\"\"\",20000,20,,,\n";
+
+        // when
+        CsvItemRowReader reader = new CsvItemRowReader(new BufferedReader(new StringReader(csv)));
+
+        ItemRow rowA = reader.next();
+        ItemRow rowB = reader.next();
+
+        // then
+        Item itemA = rowA.getItem();
+
+        assertThat(rowA.getLine()).isEqualTo(2);
+        assertThat(rowA.hasErrors()).isFalse();
+        assertThat(itemA.getItemName()).isEqualTo("itemA");
+        assertThat(itemA.getPrice()).isEqualTo(10000);
+        assertThat(itemA.getRegions()).containsExactly("SEOUL", "JEJU");
+        assertThat(itemA.getItemType()).isEqualTo(ItemType.FOOD);
+        assertThat(itemA.getOpen()).isTrue();
+
+        assertThat(rowB.getLine()).isEqualTo(4);
+        assertThat(rowB.getItem().getItemName()).isEqualTo("item, \"B\"");
+        assertThat(rowB.getItem().getRegions()).isNull();
+
+        assertThat(reader.next()).isNull();
+    }
+
+    /**
+     * 숫자가 아닌 값은 해당 필드 변환 오류
+     */
+    @Test
+    void typeMismatch() throws IOException {
+
+        // given
+        String csv = "itemName,price,quantity\nitemA,abc,10\n";
+
+        // when
+        ItemRow row = new CsvItemRowReader(new BufferedReader(new StringReader(csv))).next();
+
+        // then
+        assertThat(row.hasErrors()).isTrue();
+        assertThat(row.getErrors()).singleElement()
+                .isInstanceOfSatisfying(FieldError.class, error -> assertThat(error.getField()).isEqualTo("price"));
+        assertThat(row.getItem().getQuantity()).isEqualTo(10);
+    }
+
+    /**
+     * CsvItemRowWriter 로 쓴 내용을 그대로 다시 읽는다.
+     */
+    @Test
+    void writeAndRead() throws IOException {
+
+        // given
+        Item item = new Item("item, \"A\"", 10000, 10);
+
+        item.setId(1L);
+        item.setVersion(3);
+        item.setRegions(List.of("SEOUL", "BUSAN"));
+        item.setItemType(ItemType.BOOK);
+
+        StringWriter out = new StringWriter();
+
+        try (CsvItemRowWriter writer = new CsvItemRowWriter(out)) {
+
+            writer.write(item);
+        }
+
+        // when
+        ItemRow row = new CsvItemRowReader(new BufferedReader(new StringReader(out.toString()))).next();
+
+        // then
+        assertThat(row.hasErrors()).isFalse();
+        assertThat(row.getItem()).isEqualTo(item);
+    }
+
+    @Test
+    void unknownColumn() {
+
+        assertThatThrownBy(() -> new CsvItemRowReader(new BufferedReader(new StringReader("itemName,color\n"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package hello.itemservice.web.basic.bulk;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 상품 일괄 API 테스트
+ */
+class ItemBulkApiControllerTest {
+
+    /**
+     * Accept-Encoding 의 q 값을 따른다.
+     */
+    @Test
+    void acceptsGzip() {
+
+        assertThat(ItemBulkApiController.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(ItemBulkApiController.acceptsGzip("deflate, GZIP;q=0.8")).isTrue();
+        assertThat(ItemBulkApiController.acceptsGzip("x-gzip")).isTrue();
+        assertThat(ItemBulkApiController.acceptsGzip("*;q=0.5")).isTrue();
+
+        assertThat(ItemBulkApiController.acceptsGzip(null)).isFalse();
+        assertThat(ItemBulkApiController.acceptsGzip("identity")).isFalse();
+        assertThat(ItemBulkApiController.acceptsGzip("gzip;q=0, identity")).isFalse();
+        assertThat(ItemBulkApiController.acceptsGzip("gzip; q=0.0")).isFalse();
+        assertThat(ItemBulkApiController.acceptsGzip("*, gzip;q=0")).isFalse();
+        assertThat(ItemBulkApiController.acceptsGzip("gzipped")).isFalse();
+    }
+
+    /**
+     * 묶음 크기보다 많은 상품도 빠짐없이 id 순으로 내보낸다.
+     */
+    @Test
+    void writeItemsInChunks() throws Exception {
+
+        // given
+        ItemRepository itemRepository = new ItemRepository();
+
+        for (int i = 0; i < 2500; i++) {
+
+            itemRepository.save(new Item("item" + i, i, i));
+        }
+
+        List<Item> written = new ArrayList<>();
+
+        ItemRowWriter writer = new ItemRowWriter() {
+
+            @Override
+            public void write(Item item) {
+                written.add(item);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // when
+        ItemBulkApiController.writeItems(itemRepository, writer, false);
+
+        // then
+        assertThat(written).hasSize(2500);
+        assertThat(written.get(0).getItemName()).isEqualTo("item0");
+        assertThat(written.get(2499).getItemName()).isEqualTo("item2499");
+        assertThat(written.get(2499).getId()).isNull();
+    }
+}
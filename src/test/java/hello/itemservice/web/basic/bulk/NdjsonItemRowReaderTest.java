@@ -0,0 +1,56 @@
+package hello.itemservice.web.basic.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * NDJSON 행 읽기 테스트
+ */
+class NdjsonItemRowReaderTest {
+
+    /**
+     * 형식 오류와 null 줄은 줄 번호가 있는 행 오류, 다음 줄은 계속 읽는다.
+     */
+    @Test
+    void malformedRows() throws IOException {
+
+        // given
+        String ndjson = "{\"itemName\":\"itemA\",\"price\":10000}\n"
+                + "null\n"
+                + "\n"
+                + "{\"itemName\":\n"
+                + "{\"itemName\":\"itemB\"}\n";
+
+        NdjsonItemRowReader reader = new NdjsonItemRowReader(new BufferedReader(new StringReader(ndjson)),
+                new ObjectMapper().readerFor(Item.class));
+
+        // when
+        ItemRow rowA = reader.next();
+        ItemRow nullRow = reader.next();
+        ItemRow brokenRow = reader.next();
+        ItemRow rowB = reader.next();
+
+        // then
+        assertThat(rowA.hasErrors()).isFalse();
+        assertThat(rowA.getItem().getPrice()).isEqualTo(10000);
+
+        assertThat(nullRow.getLine()).isEqualTo(2);
+        assertThat(nullRow.hasErrors()).isTrue();
+        assertThat(nullRow.getItem()).isNotNull();
+
+        assertThat(brokenRow.getLine()).isEqualTo(4);
+        assertThat(brokenRow.hasErrors()).isTrue();
+
+        assertThat(rowB.getLine()).isEqualTo(5);
+        assertThat(rowB.getItem().getItemName()).isEqualTo("itemB");
+
+        assertThat(reader.next()).isNull();
+    }
+}
@@ -0,0 +1,120 @@
+package hello.itemservice.web.log;
+
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.DispatcherType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AccessLogTest {
+
+    List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 여러 스레드가 남긴 레코드를 빠짐없이 기록
+     */
+    @Test
+    void recordFromManyThreads() throws InterruptedException {
+
+        // given
+        AccessLog accessLog = new AccessLog(4096, 1.0, 1000, 1, lines::add);
+
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < 4; i++) {
+
+            int thread = i;
+
+            threads.add(new Thread(() -> {
+
+                awaitQuietly(start);
+
+                for (int j = 0; j < 500; j++) {
+
+                    accessLog.record("log-" + thread + "-" + j, DispatcherType.REQUEST, "GET", "/items/" + j,
+                            200, 1_000_000, "handler", null);
+                }
+            }));
+        }
+
+        // when
+        threads.forEach(Thread::start);
+        start.countDown();
+
+        for (Thread thread : threads) {
+
+            thread.join();
+        }
+
+        accessLog.close();
+
+        // then
+        assertThat(accessLog.getDropped()).isZero();
+        assertThat(lines).hasSize(2000);
+        assertThat(lines.get(0)).contains("[REQUEST] GET /items/", " 200 1.0ms handler");
+    }
+
+    /**
+     * 샘플링해도 오류와 느린 요청은 남긴다.
+     */
+    @Test
+    void sampling() {
+
+        // given
+        AccessLog accessLog = new AccessLog(1024, 0.0, 1000, 1, lines::add);
+
+        // when
+        accessLog.record("ok", DispatcherType.REQUEST, "GET", "/items", 200, 1_000_000, "handler", null);
+        accessLog.record("error", DispatcherType.REQUEST, "GET", "/items", 500, 1_000_000, "handler", null);
+        accessLog.record("exception", DispatcherType.REQUEST, "POST", "/items", 200, 1_000_000, "handler",
+                new IllegalStateException("실패"));
+        accessLog.record("slow", DispatcherType.REQUEST, "GET", "/items", 200, 2_000_000_000L, "handler", null);
+
+        accessLog.close();
+
+        // then
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).contains("[error]");
+        assertThat(lines.get(1)).contains("[exception]", "java.lang.IllegalStateException: 실패");
+        assertThat(lines.get(2)).contains("[slow]", "2000.0ms");
+    }
+
+    /**
+     * 버퍼가 가득 차면 기다리지 않고 버린다.
+     */
+    @Test
+    void dropWhenFull() {
+
+        // given
+        AccessLog accessLog = new AccessLog(4, 1.0, 1000, 60_000, lines::add);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+
+            accessLog.record("log-" + i, DispatcherType.REQUEST, "GET", "/items", 200, 0, "handler", null);
+        }
+
+        accessLog.close();
+
+        // then
+        assertThat(accessLog.getDropped()).isEqualTo(6);
+        assertThat(lines).hasSize(4);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+
+        try {
+
+            latch.await();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+}
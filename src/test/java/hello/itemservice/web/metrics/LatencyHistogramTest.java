@@ -0,0 +1,89 @@
+package hello.itemservice.web.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.DispatcherType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    /**
+     * 칸 번호와 칸의 최댓값이 서로 맞는지 확인
+     */
+    @Test
+    void bucketBoundaries() {
+
+        for (long micros : new long[]{0, 1, 31, 32, 63, 64, 65, 127, 128, 1000, 123_456_789L, LatencyHistogram.MAX_MICROS}) {
+
+            int index = LatencyHistogram.index(micros);
+
+            assertThat(LatencyHistogram.highestValue(index)).isGreaterThanOrEqualTo(micros);
+            assertThat(index == 0 || LatencyHistogram.highestValue(index - 1) < micros).isTrue();
+        }
+    }
+
+    /**
+     * 1 ~ 10000 µs 를 하나씩 기록하면 백분위수 오차가 약 3% 이내
+     */
+    @Test
+    void percentiles() {
+
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int micros = 1; micros <= 10_000; micros++) {
+
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros), micros % 100 == 0);
+        }
+
+        // when
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // then
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getErrors()).isEqualTo(100);
+        assertThat(snapshot.getMaxMicros()).isEqualTo(10_000);
+        assertThat(snapshot.getMeanMicros()).isEqualTo(5000.5);
+        assertThat(snapshot.percentileMicros(50)).isBetween(5000L, 5160L);
+        assertThat(snapshot.percentileMicros(99)).isBetween(9900L, 10_000L);
+        assertThat(snapshot.percentileMicros(99.9)).isBetween(9990L, 10_000L);
+        assertThat(snapshot.percentileMicros(100)).isEqualTo(10_000);
+    }
+
+    /**
+     * 핸들러, DispatcherType 별로 따로 집계
+     */
+    @Test
+    void perHandlerAndDispatcherType() {
+
+        // given
+        LatencyMetrics latencyMetrics = new LatencyMetrics();
+        Object handlerA = new Object();
+        String handlerB = "handlerB";
+
+        // when
+        latencyMetrics.record(handlerA, DispatcherType.REQUEST, 1_000_000, false);
+        latencyMetrics.record(handlerA, DispatcherType.REQUEST, 3_000_000, true);
+        latencyMetrics.record(handlerA, DispatcherType.ERROR, 2_000_000, false);
+        latencyMetrics.record(handlerB, DispatcherType.REQUEST, 5_000_000, false);
+
+        // then
+        List<HandlerLatency> latencies = latencyMetrics.getLatencies();
+
+        assertThat(latencies).hasSize(3);
+
+        HandlerLatency request = latencies.get(0);
+
+        assertThat(request.getHandler()).isEqualTo("Object");
+        assertThat(request.getDispatcherType()).isEqualTo(DispatcherType.REQUEST);
+        assertThat(request.getCount()).isEqualTo(2);
+        assertThat(request.getErrors()).isEqualTo(1);
+        assertThat(request.getMax()).isEqualTo(3.0);
+
+        assertThat(latencies.get(1).getDispatcherType()).isEqualTo(DispatcherType.ERROR);
+        assertThat(latencies.get(2).getHandler()).isEqualTo("String");
+    }
+}
@@ -0,0 +1,240 @@
+package hello.itemservice.web.session;
+
+import hello.itemservice.domain.member.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 파일 세션 저장소 테스트
+ *
+ * 같은 디렉토리를 쓰는 저장소 두 개를 서버 두 대로 본다.
+ */
+class FileSessionRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    AtomicLong now = new AtomicLong(1_000_000);
+
+    FileSessionRepository serverA;
+    FileSessionRepository serverB;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+
+        // 유휴 10초, 절대 60초, 최대 3개
+        serverA = new FileSessionRepository(dir, 10_000, 60_000, 3, now::get, false);
+        serverB = new FileSessionRepository(dir, 10_000, 60_000, 3, now::get, false);
+    }
+
+    @AfterEach
+    void afterEach() {
+
+        serverA.close();
+        serverB.close();
+    }
+
+    /**
+     * 한 서버에서 로그인한 세션을 다른 서버에서 조회하고 로그아웃
+     *
+     * 비밀번호는 세션 파일에 쓰지 않고, sessionId 는 파일 이름에 그대로 쓰지 않는다.
+     */
+    @Test
+    void sharedBetweenServers() throws IOException {
+
+        // given
+        Member member = createMember(1L, "test", "테스터");
+
+        serverA.put("session-a", member);
+
+        // when
+        Member result = (Member) serverB.get("session-a");
+
+        // then
+        assertThat(result.getId()).isEqualTo(1L);
+        assertThat(result.getLoginId()).isEqualTo("test");
+        assertThat(result.getName()).isEqualTo("테스터");
+        assertThat(result.getPassword()).isNull();
+        assertThat(new String(Files.readAllBytes(sessionFile("session-a")), StandardCharsets.UTF_8)).doesNotContain("test!");
+        assertThat(Files.exists(dir.resolve("session-a"))).isFalse();
+
+        serverB.remove("session-a");
+
+        assertThat(serverA.get("session-a")).isNull();
+    }
+
+    /**
+     * 다른 서버의 조회로 유휴 만료 시각이 연장된다.
+     */
+    @Test
+    void idleTimeout() {
+
+        // given
+        serverA.put("session-a", createMember(1L, "test", "테스터"));
+        serverA.put("session-b", "value");
+
+        // when
+        now.addAndGet(6_000);
+        serverB.get("session-a");
+
+        now.addAndGet(6_000);
+        serverA.sweep();
+
+        // then
+        assertThat(Files.exists(sessionFile("session-b"))).isFalse();
+        assertThat(serverB.get("session-a")).isNotNull();
+        assertThat(serverA.getStats().getExpired()).isEqualTo(1);
+        assertThat(serverA.getStats().getLive()).isEqualTo(1);
+    }
+
+    @Test
+    void absoluteTimeout() {
+
+        // given
+        serverA.put("session-a", "value");
+
+        // when
+        for (int i = 0; i < 12; i++) {
+
+            now.addAndGet(5_000);
+            serverB.get("session-a");
+        }
+
+        // then
+        assertThat(serverA.get("session-a")).isNull();
+    }
+
+    /**
+     * 최대 개수를 넘으면 마지막 조회 시각이 오래된 세션부터 삭제
+     */
+    @Test
+    void evictOnSweep() {
+
+        // given
+        for (int i = 0; i < 5; i++) {
+
+            serverA.put("session-" + i, "value" + i);
+            now.addAndGet(1_000);
+        }
+
+        serverB.get("session-0");
+
+        // when
+        serverB.sweep();
+
+        // then
+        assertThat(serverA.get("session-0")).isEqualTo("value0");
+        assertThat(serverA.get("session-1")).isNull();
+        assertThat(serverA.get("session-2")).isNull();
+        assertThat(serverA.get("session-4")).isEqualTo("value4");
+        assertThat(serverB.getStats().getEvicted()).isEqualTo(2);
+    }
+
+    /**
+     * 쿠키로 들어온 값을 파일 경로로 쓰지 않는다.
+     */
+    @Test
+    void invalidSessionId() throws IOException {
+
+        // given
+        Files.writeString(dir.resolveSibling("secret"), "secret");
+
+        // when
+        Object result = serverA.get("../secret");
+
+        // then
+        assertThat(result).isNull();
+        assertThatThrownBy(() -> serverA.put("../secret", "value"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 회원, 문자열 외의 값은 저장하지 않는다.
+     */
+    @Test
+    void unsupportedValue() {
+
+        assertThatThrownBy(() -> serverA.put("session-a", 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 자바 직렬화 값(이전 형식)은 역직렬화하지 않고 깨진 파일로 보고 삭제
+     */
+    @Test
+    void serializedValueRejected() throws IOException {
+
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+            out.writeInt(SessionCodec.MAGIC);
+            out.writeLong(now.get());
+            out.writeLong(now.get());
+            out.writeByte(3);
+
+            ObjectOutputStream objectOut = new ObjectOutputStream(out);
+            objectOut.writeObject(new ArrayList<>(List.of("value")));
+            objectOut.flush();
+        }
+
+        Files.write(sessionFile("session-a"), bytes.toByteArray());
+
+        // when
+        Object result = serverA.get("session-a");
+
+        // then
+        assertThat(result).isNull();
+        assertThat(Files.exists(sessionFile("session-a"))).isFalse();
+    }
+
+    /**
+     * 깨진 세션 파일은 없는 세션으로 보고 삭제
+     */
+    @Test
+    void corruptedFile() throws IOException {
+
+        // given
+        Files.write(sessionFile("session-a"), new byte[]{1, 2, 3});
+
+        // when
+        Object result = serverA.get("session-a");
+
+        // then
+        assertThat(result).isNull();
+        assertThat(Files.exists(sessionFile("session-a"))).isFalse();
+    }
+
+    private Path sessionFile(String sessionId) {
+
+        return dir.resolve(FileSessionRepository.fileName(sessionId));
+    }
+
+    private Member createMember(Long id, String loginId, String name) {
+
+        Member member = new Member();
+
+        member.setId(id);
+        member.setLoginId(loginId);
+        member.setName(name);
+        member.setPassword("test!");
+
+        return member;
+    }
+}
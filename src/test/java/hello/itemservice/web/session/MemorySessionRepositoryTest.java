@@ -0,0 +1,134 @@
+package hello.itemservice.web.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 메모리 세션 저장소 테스트
+ *
+ * 시계를 직접 움직이고 tick 을 호출해서 만료를 확인한다.
+ */
+class MemorySessionRepositoryTest {
+
+    AtomicLong now = new AtomicLong(1_000_000);
+
+    // 유휴 10초, 절대 60초, 최대 3개
+    MemorySessionRepository sessionRepository = new MemorySessionRepository(10_000, 60_000, 3, now::get, false);
+
+    /**
+     * 조회하지 않은 세션은 유휴 시간이 지나면 타이머 휠이 제거한다.
+     */
+    @Test
+    void idleTimeout() {
+
+        // given
+        sessionRepository.put("a", "memberA");
+        sessionRepository.put("b", "memberB");
+
+        // when
+        advance(5_000);
+        sessionRepository.get("b");
+
+        advance(6_000);
+
+        // then
+        assertThat(sessionRepository.getStats().getLive()).isEqualTo(1);
+        assertThat(sessionRepository.getStats().getExpired()).isEqualTo(1);
+        assertThat(sessionRepository.get("a")).isNull();
+        assertThat(sessionRepository.get("b")).isEqualTo("memberB");
+    }
+
+    /**
+     * 계속 조회해도 절대 만료 시간이 지나면 만료된다.
+     */
+    @Test
+    void absoluteTimeout() {
+
+        // given
+        sessionRepository.put("a", "memberA");
+
+        // when
+        for (int i = 0; i < 12; i++) {
+
+            advance(5_000);
+            sessionRepository.get("a");
+        }
+
+        // then
+        assertThat(sessionRepository.get("a")).isNull();
+        assertThat(sessionRepository.getStats().getLive()).isZero();
+    }
+
+    /**
+     * 최대 개수를 넘으면 가장 오래 조회하지 않은 세션부터 제거한다.
+     */
+    @Test
+    void evictLeastRecentlyUsed() {
+
+        // given
+        sessionRepository.put("a", "memberA");
+        sessionRepository.put("b", "memberB");
+        sessionRepository.put("c", "memberC");
+
+        sessionRepository.get("a");
+
+        // when
+        sessionRepository.put("d", "memberD");
+
+        // then
+        assertThat(sessionRepository.get("b")).isNull();
+        assertThat(sessionRepository.get("a")).isEqualTo("memberA");
+        assertThat(sessionRepository.getStats().getEvicted()).isEqualTo(1);
+        assertThat(sessionRepository.getStats().getLive()).isEqualTo(3);
+    }
+
+    /**
+     * 조회 기록이 읽기 버퍼를 여러 번 채워도 비울 때 LRU 순서에 반영된다.
+     */
+    @Test
+    void evictAfterReadBufferDrained() {
+
+        // given
+        sessionRepository.put("a", "memberA");
+        sessionRepository.put("b", "memberB");
+        sessionRepository.put("c", "memberC");
+
+        for (int i = 0; i < 1000; i++) {
+
+            sessionRepository.get(i % 2 == 0 ? "a" : "c");
+        }
+
+        // when
+        sessionRepository.put("d", "memberD");
+
+        // then
+        assertThat(sessionRepository.get("b")).isNull();
+        assertThat(sessionRepository.get("a")).isEqualTo("memberA");
+        assertThat(sessionRepository.get("c")).isEqualTo("memberC");
+    }
+
+    @Test
+    void remove() {
+
+        // given
+        sessionRepository.put("a", "memberA");
+
+        // when
+        sessionRepository.remove("a");
+        advance(20_000);
+
+        // then
+        assertThat(sessionRepository.get("a")).isNull();
+        assertThat(sessionRepository.getStats().getRemoved()).isEqualTo(1);
+        assertThat(sessionRepository.getStats().getExpired()).isZero();
+    }
+
+    private void advance(long millis) {
+
+        now.addAndGet(millis);
+        sessionRepository.tick();
+    }
+}